@@ -16,12 +16,16 @@
 package org.tarik.ta.core;
 
 import io.a2a.spec.AgentCard;
+import io.javalin.http.staticfiles.Location;
 import io.javalin.json.JavalinJackson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tarik.ta.core.a2a.AgentExecutionResource;
+import org.tarik.ta.core.a2a.ArtifactStore;
 import org.tarik.ta.core.a2a.AgentExecutor;
 
+import java.util.Map;
+
 import static io.javalin.Javalin.create;
 import static org.tarik.ta.core.AgentConfig.getHost;
 import static org.tarik.ta.core.AgentConfig.getStartPort;
@@ -72,8 +76,16 @@ public abstract class AbstractServer {
         create(config -> {
             config.http.maxRequestSize = MAX_REQUEST_SIZE;
             config.jsonMapper(new JavalinJackson());
-            config.routes.post(MAIN_PATH, ctx -> ctx.result(agentExecutionResource.handleNonStreamingRequests(ctx)));
+            config.routes.post(MAIN_PATH, agentExecutionResource::handleRequest);
             config.routes.get(AGENT_CARD_PATH, agentExecutionResource::getAgentCard);
+            // Jetty serves the static files with range request support and without copying them through the heap
+            ArtifactStore.getConfigured().ifPresent(artifactStore -> config.staticFiles.add(staticFiles -> {
+                staticFiles.hostedPath = ArtifactStore.ARTIFACTS_PATH;
+                staticFiles.directory = artifactStore.getDirectory().toString();
+                staticFiles.location = Location.EXTERNAL;
+                // The content of an artifact never changes because its name is the hash of its content
+                staticFiles.headers = Map.of("Cache-Control", "max-age=31536000, immutable");
+            }));
         }).start(host, port);
 
         LOG.info(getStartupLogMessage(host, port));
@@ -24,6 +24,7 @@ import org.tarik.ta.core.utils.CommonUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.Properties;
@@ -170,10 +171,81 @@ public class AgentConfig {
         return EXTERNAL_URL.value();
     }
 
+    /**
+     * @return true if the external URL is explicitly configured instead of falling back to the localhost
+     */
+    public static boolean isExternalUrlConfigured() {
+        return getProperty("external.url", "EXTERNAL_URL", false).isPresent();
+    }
+
     public static boolean isDebugMode() {
         return DEBUG_MODE.value();
     }
 
+    // -----------------------------------------------------
+    // Execution Concurrency Config
+    private static final ConfigProperty<Integer> MAX_CONCURRENT_EXECUTIONS = loadPropertyAsInteger(
+            "agent.max.concurrent.executions", "AGENT_MAX_CONCURRENT_EXECUTIONS", "1", false);
+
+    public static int getMaxConcurrentExecutions() {
+        return MAX_CONCURRENT_EXECUTIONS.value();
+    }
+
+    private static final ConfigProperty<Integer> EXECUTION_QUEUE_CAPACITY = loadPropertyAsInteger(
+            "agent.execution.queue.capacity", "AGENT_EXECUTION_QUEUE_CAPACITY", "10", false);
+
+    public static int getExecutionQueueCapacity() {
+        return EXECUTION_QUEUE_CAPACITY.value();
+    }
+
+    // -----------------------------------------------------
+    // Artifact Store Config
+    private static final ConfigProperty<String> ARTIFACT_STORE_DIR = loadProperty("artifact.store.dir", "ARTIFACT_STORE_DIR", "",
+            String::trim, false);
+
+    public static Optional<Path> getArtifactStoreDir() {
+        return Optional.of(ARTIFACT_STORE_DIR.value()).filter(CommonUtils::isNotBlank).map(Path::of);
+    }
+
+    private static final ConfigProperty<Integer> ARTIFACT_RETENTION_HOURS = loadPropertyAsInteger("artifact.retention.hours",
+            "ARTIFACT_RETENTION_HOURS", "24", false);
+
+    public static int getArtifactRetentionHours() {
+        return ARTIFACT_RETENTION_HOURS.value();
+    }
+
+    // -----------------------------------------------------
+    // Log Capture Config
+    private static final ConfigProperty<Integer> LOG_CAPTURE_MAX_BUFFERED_LINES = loadPropertyAsInteger(
+            "log.capture.max.buffered.lines", "LOG_CAPTURE_MAX_BUFFERED_LINES", "2000", false);
+
+    public static int getLogCaptureMaxBufferedLines() {
+        return LOG_CAPTURE_MAX_BUFFERED_LINES.value();
+    }
+
+    // -----------------------------------------------------
+    // A2A Task Store Config
+    private static final ConfigProperty<Integer> FINISHED_TASK_TTL_MINUTES = loadPropertyAsInteger(
+            "task.store.finished.task.ttl.minutes", "TASK_STORE_FINISHED_TASK_TTL_MINUTES", "60", false);
+
+    public static int getFinishedTaskTtlMinutes() {
+        return FINISHED_TASK_TTL_MINUTES.value();
+    }
+
+    private static final ConfigProperty<Integer> MAX_FINISHED_TASKS_IN_MEMORY = loadPropertyAsInteger(
+            "task.store.max.finished.tasks.in.memory", "TASK_STORE_MAX_FINISHED_TASKS_IN_MEMORY", "20", false);
+
+    public static int getMaxFinishedTasksInMemory() {
+        return MAX_FINISHED_TASKS_IN_MEMORY.value();
+    }
+
+    private static final ConfigProperty<String> TASK_STORE_PERSISTENCE_DIR = loadProperty("task.store.persistence.dir",
+            "TASK_STORE_PERSISTENCE_DIR", "", String::trim, false);
+
+    public static Optional<Path> getTaskStorePersistenceDir() {
+        return Optional.of(TASK_STORE_PERSISTENCE_DIR.value()).filter(CommonUtils::isNotBlank).map(Path::of);
+    }
+
     // -----------------------------------------------------
     // RAG Config
     public static RagDbProvider getVectorDbProvider() {
@@ -23,11 +23,20 @@ import io.a2a.server.events.EventQueue;
 import io.a2a.server.tasks.TaskUpdater;
 import io.a2a.spec.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.jetbrains.annotations.NotNull;
+import org.tarik.ta.core.AgentConfig;
+import org.tarik.ta.core.dto.PreconditionResult;
 import org.tarik.ta.core.dto.TestExecutionResult;
+import org.tarik.ta.core.dto.TestStepResult;
+import org.tarik.ta.core.model.TestExecutionContext;
+import org.tarik.ta.core.model.TestExecutionProgress;
+import org.tarik.ta.core.utils.CapturedLogs;
 import org.tarik.ta.core.utils.CommonUtils;
 
 import java.util.Collection;
@@ -36,12 +45,13 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 
 import static java.lang.Thread.currentThread;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor;
 import static java.util.stream.Collectors.joining;
 
 public abstract class AbstractAgentExecutor implements AgentExecutor {
@@ -50,7 +60,32 @@ public abstract class AbstractAgentExecutor implements AgentExecutor {
             .registerModule(new JavaTimeModule())
             .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
 
-    private final ExecutorService taskExecutor = newSingleThreadExecutor();
+    private final ExecutorService taskExecutor = newVirtualThreadPerTaskExecutor();
+    private final Semaphore executionSlots;
+    private final Semaphore admissionSlots;
+    private final int maxConcurrentExecutions;
+    private final int executionQueueCapacity;
+
+    protected AbstractAgentExecutor() {
+        this(AgentConfig.getMaxConcurrentExecutions(), AgentConfig.getExecutionQueueCapacity());
+    }
+
+    /**
+     * @param maxConcurrentExecutions - how many test cases may be executed in parallel by this executor
+     * @param executionQueueCapacity  - how many test cases may wait for a free execution slot before new requests are rejected
+     */
+    protected AbstractAgentExecutor(int maxConcurrentExecutions, int executionQueueCapacity) {
+        if (maxConcurrentExecutions < 1) {
+            throw new IllegalArgumentException("Max concurrent executions must be positive, got %d".formatted(maxConcurrentExecutions));
+        }
+        if (executionQueueCapacity < 0) {
+            throw new IllegalArgumentException("Execution queue capacity must not be negative, got %d".formatted(executionQueueCapacity));
+        }
+        this.maxConcurrentExecutions = maxConcurrentExecutions;
+        this.executionQueueCapacity = executionQueueCapacity;
+        this.executionSlots = new Semaphore(maxConcurrentExecutions, true);
+        this.admissionSlots = new Semaphore(maxConcurrentExecutions + executionQueueCapacity);
+    }
 
     @Override
     public void execute(RequestContext context, EventQueue eventQueue) throws JSONRPCError {
@@ -59,11 +94,19 @@ public abstract class AbstractAgentExecutor implements AgentExecutor {
             updater.submit();
         }
 
-        LOG.info("Received test case execution request. Submitting to the execution queue.");
+        var taskId = context.getTaskId();
+        if (!admissionSlots.tryAcquire()) {
+            var message = ("The agent is busy: %d test case(s) are being executed and %d more are waiting in the queue. " +
+                    "Please re-send the request later.").formatted(maxConcurrentExecutions, executionQueueCapacity);
+            LOG.warn("Rejecting task {} because the execution queue is full.", taskId);
+            failTask(updater, message);
+            return;
+        }
+
+        LOG.info("Received test case execution request. Submitting task {} to the execution queue.", taskId);
         try {
-            // Only a single execution may be running at a time
             taskExecutor.submit(() -> {
-                var taskId = context.getTaskId();
+                executionSlots.acquireUninterruptibly();
                 LOG.info("Starting task {} from the queue.", taskId);
                 try {
                     updater.startWork();
@@ -79,6 +122,8 @@ public abstract class AbstractAgentExecutor implements AgentExecutor {
                 } catch (Exception e) {
                     LOG.error("Error while processing test case execution request for task {}", taskId, e);
                     failTask(updater, "Couldn't start the task %s".formatted(taskId));
+                } finally {
+                    executionSlots.release();
                 }
             }).get();
         } catch (InterruptedException e) {
@@ -88,6 +133,8 @@ public abstract class AbstractAgentExecutor implements AgentExecutor {
         } catch (ExecutionException e) {
             LOG.error("Error during task execution.", e.getCause());
             failTask(updater, "Error during task execution: %s".formatted(e.getCause().getMessage()));
+        } finally {
+            admissionSlots.release();
         }
     }
 
@@ -106,25 +153,44 @@ public abstract class AbstractAgentExecutor implements AgentExecutor {
                         result.getTestCaseName(), e);
                 failTask(updater, "Got exception while preparing the task artifacts for the test case. " +
                         "Before re-sending please investigate the root cause based on the agent's logs.");
+            } finally {
+                extractLogs(result).ifPresent(CapturedLogs::discard);
             }
         });
     }
 
     private void addLogsArtifact(TestExecutionResult result, List<Part<?>> parts) {
-        extractLogs(result).ifPresent(logs -> {
-            String logsContent = String.join("\n", logs);
-            String base64Logs = Base64.getEncoder().encodeToString(logsContent.getBytes(StandardCharsets.UTF_8));
-            FileWithBytes logsFile = new FileWithBytes(
-                    "text/plain",
-                    "execution_logs_%s.log".formatted(result.getTestCaseName().replaceAll("\\s", "_").toLowerCase()),
-                    base64Logs);
-            parts.add(new FilePart(logsFile));
+        extractLogs(result).filter(logs -> !logs.isEmpty()).ifPresent(logs -> {
+            var fileName = "execution_logs_%s.log".formatted(result.getTestCaseName().replaceAll("\\s", "_").toLowerCase());
+            try {
+                parts.add(new FilePart(toFileContent(logs::writeTo, "text/plain", fileName)));
+            } catch (IOException e) {
+                LOG.error("Couldn't read the captured logs of the test case '{}'", result.getTestCaseName(), e);
+            }
         });
     }
 
+    /**
+     * Puts the content into the artifact store and references it, if the store is configured. Otherwise, the content is inlined as
+     * Base64, in which case it's streamed right into the encoder, so that it's never held in memory twice.
+     */
+    protected static FileContent toFileContent(ArtifactStore.ContentWriter contentWriter, String mimeType, String fileName)
+            throws IOException {
+        var artifactStore = ArtifactStore.getConfigured();
+        if (artifactStore.isPresent()) {
+            return artifactStore.get().store(contentWriter, mimeType, fileName);
+        }
+        var base64Content = new ByteArrayOutputStream();
+        try (var encodingStream = Base64.getEncoder().wrap(base64Content)) {
+            contentWriter.writeTo(encodingStream);
+        }
+        return new FileWithBytes(mimeType, fileName, base64Content.toString(StandardCharsets.US_ASCII));
+    }
+
     private Optional<TestExecutionResult> getTestExecutionResult(String message, TaskUpdater updater) {
         try {
-            TestExecutionResult result = executeTestCase(message);
+            TestExecutionResult result = TestExecutionProgress.callWithListener(new ProgressReporter(updater),
+                    () -> executeTestCase(message));
             return ofNullable(result);
         } catch (Exception e) {
             LOG.error("Got exception during the execution of the test case.", e);
@@ -138,7 +204,7 @@ public abstract class AbstractAgentExecutor implements AgentExecutor {
 
     protected abstract void addSpecificArtifacts(TestExecutionResult result, List<Part<?>> parts);
 
-    protected abstract Optional<List<String>> extractLogs(TestExecutionResult result);
+    protected abstract Optional<CapturedLogs> extractLogs(TestExecutionResult result);
 
     protected void failTask(TaskUpdater updater, String message) {
         TextPart errorPart = new TextPart(message, null);
@@ -174,4 +240,38 @@ public abstract class AbstractAgentExecutor implements AgentExecutor {
                 .trim();
         return result.isBlank() ? empty() : of(result);
     }
+
+    /**
+     * Publishes a task status update together with a partial artifact containing the serialized result each time a precondition or a
+     * test step has been executed, so that streaming clients can follow the execution without waiting for its end.
+     */
+    private record ProgressReporter(TaskUpdater updater) implements TestExecutionProgress.Listener {
+        @Override
+        public void onPreconditionResult(@NotNull TestExecutionContext context, @NotNull PreconditionResult result) {
+            int preconditionNumber = context.getPreconditionExecutionHistory().size();
+            var statusText = "Precondition %d of %d ('%s') %s".formatted(preconditionNumber,
+                    ofNullable(context.getTestCase().preconditions()).map(List::size).orElse(0), result.getPrecondition(),
+                    result.isSuccess() ? "is fulfilled" : "failed");
+            publishProgress(statusText, result, "precondition_result_%d".formatted(preconditionNumber));
+        }
+
+        @Override
+        public void onStepResult(@NotNull TestExecutionContext context, @NotNull TestStepResult result) {
+            int stepNumber = context.getTestStepExecutionHistory().size();
+            var statusText = "Test step %d of %d ('%s') finished with status %s".formatted(stepNumber,
+                    ofNullable(context.getTestCase().testSteps()).map(List::size).orElse(0),
+                    result.getTestStep().stepDescription(), result.getExecutionStatus());
+            publishProgress(statusText, result, "test_step_result_%d".formatted(stepNumber));
+        }
+
+        private void publishProgress(String statusText, Object result, String artifactName) {
+            try {
+                List<Part<?>> parts = List.of(new TextPart(OBJECT_MAPPER.writeValueAsString(result), null));
+                updater.addArtifact(parts, artifactName, artifactName, null);
+                updater.updateStatus(TaskState.WORKING, updater.newAgentMessage(List.of(new TextPart(statusText, null)), null));
+            } catch (Exception e) {
+                LOG.warn("Couldn't publish the execution progress: {}", statusText, e);
+            }
+        }
+    }
 }
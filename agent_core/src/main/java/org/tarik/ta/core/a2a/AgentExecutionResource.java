@@ -15,81 +15,226 @@
  */
 package org.tarik.ta.core.a2a;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.a2a.server.ServerCallContext;
 import io.a2a.server.auth.UnauthenticatedUser;
 import io.a2a.server.events.InMemoryQueueManager;
 import io.a2a.server.requesthandlers.DefaultRequestHandler;
 import io.a2a.server.tasks.BasePushNotificationSender;
 import io.a2a.server.tasks.InMemoryPushNotificationConfigStore;
-import io.a2a.server.tasks.InMemoryTaskStore;
 import io.a2a.server.tasks.PushNotificationConfigStore;
 import io.a2a.spec.*;
 import io.a2a.spec.InternalError;
 import io.a2a.transport.jsonrpc.handler.JSONRPCHandler;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
 
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor;
 
 public class AgentExecutionResource {
     private static final Logger LOG = LoggerFactory.getLogger(AgentExecutionResource.class);
+    private static final String SERVER_SENT_EVENTS_CONTENT_TYPE = "text/event-stream";
+    private static final String METHOD_FIELD_NAME = "method";
+    private static final byte[] EVENT_PREFIX = "data: ".getBytes(UTF_8);
+    private static final byte[] EVENT_SUFFIX = "\n\n".getBytes(UTF_8);
     private static final PushNotificationConfigStore pushNotificationConfigStore = new InMemoryPushNotificationConfigStore();
     private final JSONRPCHandler jsonRpcHandler;
-    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final JsonFactory jsonFactory;
+    private final ObjectReader getTaskRequestReader;
+    private final ObjectReader cancelTaskRequestReader;
+    private final ObjectReader sendMessageRequestReader;
+    private final ObjectReader sendStreamingMessageRequestReader;
+    private final ObjectReader taskResubscriptionRequestReader;
+    private final ObjectWriter responseWriter;
 
     public AgentExecutionResource(AgentExecutor agentExecutor, AgentCard agentCard) {
-        var executor = newSingleThreadExecutor();
-        var taskStore = new InMemoryTaskStore();
+        // The concurrency of test case executions is limited by the agent executor itself, the request handler must not serialize them
+        this.executor = newVirtualThreadPerTaskExecutor();
+        var taskStore = EvictingTaskStore.fromConfig();
         var queueManager = new InMemoryQueueManager(taskStore);
         DefaultRequestHandler httpRequestHandler = DefaultRequestHandler.create(agentExecutor,
                 taskStore, queueManager, pushNotificationConfigStore,
                 new BasePushNotificationSender(pushNotificationConfigStore), executor);
         this.jsonRpcHandler = new JSONRPCHandler(agentCard, httpRequestHandler, executor);
-        this.objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        // Readers and writers are immutable and thread-safe, creating them once spares the type resolution on each request
+        var objectMapper = new ObjectMapper().findAndRegisterModules();
+        this.jsonFactory = objectMapper.getFactory();
+        this.getTaskRequestReader = objectMapper.readerFor(GetTaskRequest.class);
+        this.cancelTaskRequestReader = objectMapper.readerFor(CancelTaskRequest.class);
+        this.sendMessageRequestReader = objectMapper.readerFor(SendMessageRequest.class);
+        this.sendStreamingMessageRequestReader = objectMapper.readerFor(SendStreamingMessageRequest.class);
+        this.taskResubscriptionRequestReader = objectMapper.readerFor(TaskResubscriptionRequest.class);
+        this.responseWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     /**
-     * Handles incoming non-streaming requests to the main A2A endpoint.
-     *
-     * @return the JSON-RPC response which may be an error response
+     * Handles all incoming requests to the main A2A endpoint. Streaming requests get the task events as Server-Sent Events until the
+     * task reaches its final state, all other requests get a single JSON-RPC response. Because a request might be blocked until the test
+     * case execution is finished, it's processed asynchronously on a virtual thread instead of occupying a server request thread.
      */
-    public String handleNonStreamingRequests(@NotNull Context context) {
+    public void handleRequest(@NotNull Context context) {
+        context.future(() -> runAsync(() -> processRequest(context), executor));
+    }
+
+    public void getAgentCard(@NotNull Context context) {
+        context.json(jsonRpcHandler.getAgentCard());
+    }
+
+    private void processRequest(@NotNull Context context) {
         try {
-            var body = context.body();
-            var request = objectMapper.readValue(body, java.util.Map.class);
-            var method = (String) request.get("method");
-            ServerCallContext serverCallContext = new ServerCallContext(UnauthenticatedUser.INSTANCE, new HashMap<>(),
-                    Set.of());
-            JSONRPCResponse<?> response = switch (method) {
+            // The request is deserialized only once, directly from the raw bytes into the type matching its method
+            byte[] body = context.bodyAsBytes();
+            ServerCallContext serverCallContext = createServerCallContext();
+            switch (readMethod(jsonFactory, body)) {
+                case SendStreamingMessageRequest.METHOD -> streamEvents(context,
+                        jsonRpcHandler.onMessageSendStream(sendStreamingMessageRequestReader.readValue(body), serverCallContext));
+                case TaskResubscriptionRequest.METHOD -> streamEvents(context,
+                        jsonRpcHandler.onResubscribeToTask(taskResubscriptionRequestReader.readValue(body), serverCallContext));
                 case GetTaskRequest.METHOD ->
-                    jsonRpcHandler.onGetTask(objectMapper.readValue(body, GetTaskRequest.class), serverCallContext);
+                    writeResponse(context, jsonRpcHandler.onGetTask(getTaskRequestReader.readValue(body), serverCallContext));
                 case CancelTaskRequest.METHOD ->
-                    jsonRpcHandler.onCancelTask(objectMapper.readValue(body, CancelTaskRequest.class),
-                            serverCallContext);
+                    writeResponse(context, jsonRpcHandler.onCancelTask(cancelTaskRequestReader.readValue(body), serverCallContext));
                 case SendMessageRequest.METHOD ->
-                    jsonRpcHandler.onMessageSend(objectMapper.readValue(body, SendMessageRequest.class),
-                            serverCallContext);
-                default -> new JSONRPCErrorResponse(null, new UnsupportedOperationError());
-            };
-            return objectMapper.writeValueAsString(response);
+                    writeResponse(context, jsonRpcHandler.onMessageSend(sendMessageRequestReader.readValue(body), serverCallContext));
+                default -> writeResponse(context, new JSONRPCErrorResponse(null, new UnsupportedOperationError()));
+            }
         } catch (Exception e) {
+            LOG.error("Got error while processing agent task request", e);
             try {
-                LOG.error("Got error while processing agent task request", e);
-                return objectMapper
-                        .writeValueAsString(new JSONRPCErrorResponse(null, new InternalError(e.getMessage())));
-            } catch (Exception ex) {
-                return "{}";
+                writeResponse(context, new JSONRPCErrorResponse(null, new InternalError(e.getMessage())));
+            } catch (IOException ex) {
+                LOG.debug("Couldn't send the error response to the client", ex);
             }
         }
     }
 
-    public void getAgentCard(@NotNull Context context) {
-        context.json(jsonRpcHandler.getAgentCard());
+    /**
+     * Reads only the top-level "method" field of the JSON-RPC request, skipping the contents of all other fields without
+     * materializing them, so that the potentially large request parameters are parsed only once by the typed reader.
+     *
+     * @return the method name or an empty string if the request contains none
+     */
+    static String readMethod(JsonFactory jsonFactory, byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return "";
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var fieldName = parser.currentName();
+                var valueToken = parser.nextToken();
+                if (METHOD_FIELD_NAME.equals(fieldName)) {
+                    return valueToken == JsonToken.VALUE_STRING ? parser.getText() : "";
+                }
+                parser.skipChildren();
+            }
+            return "";
+        }
+    }
+
+    private void writeResponse(@NotNull Context context, JSONRPCResponse<?> response) throws IOException {
+        context.contentType(ContentType.APPLICATION_JSON);
+        responseWriter.writeValue(context.res().getOutputStream(), response);
+    }
+
+    private void streamEvents(@NotNull Context context, Flow.Publisher<SendStreamingMessageResponse> publisher) throws IOException {
+        context.contentType(SERVER_SENT_EVENTS_CONTENT_TYPE);
+        context.header("Cache-Control", "no-cache");
+        context.header("X-Accel-Buffering", "no");
+        var subscriber = new ServerSentEventsSubscriber(context.res().getOutputStream());
+        publisher.subscribe(subscriber);
+        subscriber.awaitCompletion();
+    }
+
+    private static ServerCallContext createServerCallContext() {
+        return new ServerCallContext(UnauthenticatedUser.INSTANCE, new HashMap<>(), Set.of());
+    }
+
+    /**
+     * Writes each task event as a separate Server-Sent Event and requests the next one only after the previous one has been flushed,
+     * so that a slow client can't make the events pile up in memory.
+     */
+    private class ServerSentEventsSubscriber implements Flow.Subscriber<SendStreamingMessageResponse> {
+        private final OutputStream outputStream;
+        private final CountDownLatch completion = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+
+        private ServerSentEventsSubscriber(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(SendStreamingMessageResponse event) {
+            try {
+                writeEvent(event);
+                subscription.request(1);
+            } catch (IOException e) {
+                LOG.info("The client has closed the event stream, stopping sending the events: {}", e.getMessage());
+                subscription.cancel();
+                completion.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            LOG.error("Got error while streaming the agent task events", throwable);
+            try {
+                writeEvent(new JSONRPCErrorResponse(null, new InternalError(throwable.getMessage())));
+            } catch (IOException e) {
+                LOG.debug("Couldn't send the error event to the client", e);
+            } finally {
+                completion.countDown();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            completion.countDown();
+        }
+
+        private void writeEvent(JSONRPCResponse<?> event) throws IOException {
+            // Compact JSON contains no line breaks, so it's a valid single-line event data
+            outputStream.write(EVENT_PREFIX);
+            responseWriter.writeValue(outputStream, event);
+            outputStream.write(EVENT_SUFFIX);
+            outputStream.flush();
+        }
+
+        private void awaitCompletion() {
+            try {
+                completion.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.a2a;
+
+import io.a2a.spec.FileWithUri;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.core.AgentConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.time.Instant.now;
+
+/**
+ * Content-addressed file store for the task artifacts. Each artifact is saved under the SHA-256 hash of its content, so that identical
+ * artifacts are stored only once, and is referenced in the task using a {@link FileWithUri} pointing to the agent's server which serves
+ * the store directory under {@link #ARTIFACTS_PATH}. This keeps the size of the task responses independent of the artifacts' size.
+ * <p>
+ * Artifacts which haven't been stored again during the configured retention period are deleted. The artifacts being written are
+ * kept in a sibling folder of the store directory, so that the incomplete files are never served.
+ */
+public final class ArtifactStore {
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactStore.class);
+    public static final String ARTIFACTS_PATH = "/artifacts";
+    private static final String INCOMING_FOLDER_SUFFIX = ".incoming";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(10);
+    private static final Optional<ArtifactStore> CONFIGURED_INSTANCE = AgentConfig.getArtifactStoreDir()
+            .map(ArtifactStore::createConfiguredInstance);
+
+    private final Path directory;
+    private final Path incomingDirectory;
+    private final String baseUri;
+    private final Duration retention;
+    private final AtomicReference<Instant> lastCleanup = new AtomicReference<>(Instant.EPOCH);
+
+    ArtifactStore(@NotNull Path directory, @NotNull String externalUrl, @NotNull Duration retention) {
+        this.directory = directory.toAbsolutePath().normalize();
+        if (this.directory.getParent() == null) {
+            throw new IllegalArgumentException("The artifact store directory can't be the root directory");
+        }
+        this.incomingDirectory = this.directory.resolveSibling(this.directory.getFileName() + INCOMING_FOLDER_SUFFIX);
+        this.baseUri = externalUrl.replaceAll("/+$", "") + ARTIFACTS_PATH;
+        this.retention = retention;
+        try {
+            Files.createDirectories(incomingDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't create the artifact store directory %s".formatted(directory), e);
+        }
+    }
+
+    private static ArtifactStore createConfiguredInstance(Path directory) {
+        // The artifact URIs are resolved by the clients, so the fallback URL pointing to the localhost would make them unusable
+        if (!AgentConfig.isExternalUrlConfigured()) {
+            throw new IllegalStateException(("The artifact store directory '%s' is configured, but the external URL of the agent " +
+                    "isn't. Please set the 'external.url' property or the 'EXTERNAL_URL' environment variable.").formatted(directory));
+        }
+        return new ArtifactStore(directory, AgentConfig.getExternalUrl(),
+                Duration.ofHours(AgentConfig.getArtifactRetentionHours()));
+    }
+
+    /**
+     * @return the artifact store if the store directory is configured, otherwise the artifacts need to be inlined into the tasks
+     */
+    public static Optional<ArtifactStore> getConfigured() {
+        return CONFIGURED_INSTANCE;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public FileWithUri store(byte @NotNull [] content, @NotNull String mimeType, @NotNull String fileName) throws IOException {
+        return store(outputStream -> outputStream.write(content), mimeType, fileName);
+    }
+
+    public FileWithUri store(@NotNull Path file, @NotNull String mimeType, @NotNull String fileName) throws IOException {
+        return store(outputStream -> Files.copy(file, outputStream), mimeType, fileName);
+    }
+
+    /**
+     * Stores the content produced by the writer. The content is hashed while it's being written, so it's never held in memory.
+     */
+    public FileWithUri store(@NotNull ContentWriter contentWriter, @NotNull String mimeType, @NotNull String fileName)
+            throws IOException {
+        deleteExpiredArtifactsIfNeeded();
+        var incomingFile = Files.createTempFile(incomingDirectory, "artifact_", ".tmp");
+        try {
+            var digest = createDigest();
+            try (var outputStream = new DigestOutputStream(Files.newOutputStream(incomingFile), digest)) {
+                contentWriter.writeTo(outputStream);
+            }
+            var storedFileName = HexFormat.of().formatHex(digest.digest()) + getExtension(fileName);
+            var storedFile = directory.resolve(storedFileName);
+            if (Files.exists(storedFile)) {
+                // The same content has already been stored, it only needs to be retained longer
+                Files.setLastModifiedTime(storedFile, FileTime.from(now()));
+            } else {
+                Files.move(incomingFile, storedFile, ATOMIC_MOVE);
+            }
+            return new FileWithUri(mimeType, fileName, "%s/%s".formatted(baseUri, storedFileName));
+        } finally {
+            Files.deleteIfExists(incomingFile);
+        }
+    }
+
+    private void deleteExpiredArtifactsIfNeeded() {
+        var lastCleanupTimestamp = lastCleanup.get();
+        var now = now();
+        if (lastCleanupTimestamp.plus(CLEANUP_INTERVAL).isAfter(now) || !lastCleanup.compareAndSet(lastCleanupTimestamp, now)) {
+            return;
+        }
+        var expirationThreshold = now.minus(retention);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isRegularFile)
+                    .filter(file -> isLastModifiedBefore(file, expirationThreshold))
+                    .forEach(ArtifactStore::deleteFile);
+        } catch (IOException e) {
+            LOG.warn("Couldn't clean up the expired artifacts in {}", directory, e);
+        }
+    }
+
+    private static boolean isLastModifiedBefore(Path file, Instant threshold) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(threshold);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("Couldn't delete the expired artifact {}", file, e);
+        }
+    }
+
+    private static String getExtension(String fileName) {
+        var extensionStart = fileName.lastIndexOf('.');
+        if (extensionStart < 0) {
+            return "";
+        }
+        var extension = fileName.substring(extensionStart);
+        // Only a plain extension may become a part of the served file name
+        return extension.matches("\\.[A-Za-z0-9]{1,10}") ? extension.toLowerCase() : "";
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+}
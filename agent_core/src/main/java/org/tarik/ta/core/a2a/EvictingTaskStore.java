@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.a2a;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.a2a.server.tasks.InMemoryTaskStore;
+import io.a2a.spec.Task;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.core.AgentConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.InstantSource;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Task store which keeps the active tasks in memory like {@link InMemoryTaskStore} does, but doesn't retain the finished ones (and their
+ * potentially large artifacts) for the life of the JVM: a finished task is evicted as soon as it's older than the configured TTL or as
+ * soon as there are more finished tasks than allowed.
+ * <p>
+ * If a persistence directory is provided, each finished task is additionally written to this directory and is kept in memory only for
+ * a short grace period, after which it's read from the disk on request. Persisted tasks survive the agent restarts and are deleted
+ * after the same TTL.
+ */
+public class EvictingTaskStore extends InMemoryTaskStore {
+    private static final Logger LOG = LoggerFactory.getLogger(EvictingTaskStore.class);
+    private static final Duration PERSISTED_TASK_MEMORY_GRACE_PERIOD = Duration.ofMinutes(1);
+    private static final Pattern PERSISTABLE_TASK_ID = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final String TASK_FILE_EXTENSION = ".json";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    private final Duration finishedTaskTtl;
+    private final Duration memoryRetention;
+    private final int maxFinishedTasksInMemory;
+    private final @Nullable Path persistenceDir;
+    private final InstantSource clock;
+    // Insertion-ordered, so that the oldest finished tasks are always at the head
+    private final Map<String, Instant> finishedTaskTimestamps = new LinkedHashMap<>();
+
+    public EvictingTaskStore(@NotNull Duration finishedTaskTtl, int maxFinishedTasksInMemory, @Nullable Path persistenceDir) {
+        this(finishedTaskTtl, maxFinishedTasksInMemory, persistenceDir, InstantSource.system());
+    }
+
+    EvictingTaskStore(@NotNull Duration finishedTaskTtl, int maxFinishedTasksInMemory, @Nullable Path persistenceDir,
+                      @NotNull InstantSource clock) {
+        if (finishedTaskTtl.isNegative() || finishedTaskTtl.isZero()) {
+            throw new IllegalArgumentException("Finished task TTL must be positive, got %s".formatted(finishedTaskTtl));
+        }
+        if (maxFinishedTasksInMemory < 0) {
+            throw new IllegalArgumentException("Max amount of finished tasks in memory must not be negative, got %d"
+                    .formatted(maxFinishedTasksInMemory));
+        }
+        this.finishedTaskTtl = finishedTaskTtl;
+        this.maxFinishedTasksInMemory = maxFinishedTasksInMemory;
+        this.persistenceDir = persistenceDir;
+        this.clock = clock;
+        this.memoryRetention = persistenceDir == null || finishedTaskTtl.compareTo(PERSISTED_TASK_MEMORY_GRACE_PERIOD) < 0
+                ? finishedTaskTtl
+                : PERSISTED_TASK_MEMORY_GRACE_PERIOD;
+        if (persistenceDir != null) {
+            try {
+                Files.createDirectories(persistenceDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't create the task persistence directory %s".formatted(persistenceDir), e);
+            }
+            deleteExpiredPersistedTasks();
+        }
+    }
+
+    public static EvictingTaskStore fromConfig() {
+        return new EvictingTaskStore(Duration.ofMinutes(AgentConfig.getFinishedTaskTtlMinutes()),
+                AgentConfig.getMaxFinishedTasksInMemory(), AgentConfig.getTaskStorePersistenceDir().orElse(null));
+    }
+
+    @Override
+    public void save(Task task) {
+        super.save(task);
+        if (task.getStatus() != null && task.getStatus().state().isFinal()) {
+            if (persistenceDir != null) {
+                persist(task, persistenceDir);
+                deleteExpiredPersistedTasks();
+            }
+            synchronized (finishedTaskTimestamps) {
+                // Re-inserting moves the task to the tail, so that the insertion order stays the finishing order
+                finishedTaskTimestamps.remove(task.getId());
+                finishedTaskTimestamps.put(task.getId(), clock.instant());
+            }
+        }
+        evictFinishedTasks();
+    }
+
+    @Override
+    public Task get(String taskId) {
+        evictFinishedTasks();
+        var task = super.get(taskId);
+        if (task == null && persistenceDir != null) {
+            return loadPersisted(taskId, persistenceDir);
+        }
+        return task;
+    }
+
+    @Override
+    public void delete(String taskId) {
+        super.delete(taskId);
+        synchronized (finishedTaskTimestamps) {
+            finishedTaskTimestamps.remove(taskId);
+        }
+        if (persistenceDir != null) {
+            getTaskFile(taskId, persistenceDir).ifPresent(EvictingTaskStore::deleteFile);
+        }
+    }
+
+    private void evictFinishedTasks() {
+        var evictionThreshold = clock.instant().minus(memoryRetention);
+        synchronized (finishedTaskTimestamps) {
+            Iterator<Map.Entry<String, Instant>> iterator = finishedTaskTimestamps.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                if (finishedTaskTimestamps.size() <= maxFinishedTasksInMemory && entry.getValue().isAfter(evictionThreshold)) {
+                    break;
+                }
+                iterator.remove();
+                super.delete(entry.getKey());
+                LOG.debug("Evicted finished task {} from memory", entry.getKey());
+            }
+        }
+    }
+
+    private void persist(@NotNull Task task, @NotNull Path directory) {
+        getTaskFile(task.getId(), directory).ifPresentOrElse(taskFile -> {
+            try {
+                // Writing into a temporary file first makes sure that a crash never leaves a partially written task behind
+                var tempFile = Files.createTempFile(directory, task.getId(), ".tmp");
+                OBJECT_MAPPER.writeValue(tempFile.toFile(), task);
+                Files.move(tempFile, taskFile, REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (IOException e) {
+                LOG.error("Couldn't persist the task {}, it will be available only in memory", task.getId(), e);
+            }
+        }, () -> LOG.warn("Task ID '{}' can't be used as a file name, the task won't be persisted", task.getId()));
+    }
+
+    private @Nullable Task loadPersisted(String taskId, @NotNull Path directory) {
+        var taskFile = getTaskFile(taskId, directory).filter(Files::isRegularFile).orElse(null);
+        if (taskFile == null) {
+            return null;
+        }
+        try {
+            if (isExpired(taskFile)) {
+                deleteFile(taskFile);
+                return null;
+            }
+            return OBJECT_MAPPER.readValue(taskFile.toFile(), Task.class);
+        } catch (IOException e) {
+            LOG.error("Couldn't read the persisted task {}", taskId, e);
+            return null;
+        }
+    }
+
+    private void deleteExpiredPersistedTasks() {
+        if (persistenceDir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(persistenceDir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(TASK_FILE_EXTENSION))
+                    .filter(file -> {
+                        try {
+                            return isExpired(file);
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    })
+                    .forEach(EvictingTaskStore::deleteFile);
+        } catch (IOException e) {
+            LOG.warn("Couldn't clean up the expired tasks in {}", persistenceDir, e);
+        }
+    }
+
+    private boolean isExpired(@NotNull Path taskFile) throws IOException {
+        var lastModified = Files.getLastModifiedTime(taskFile).toInstant();
+        return lastModified.plus(finishedTaskTtl).isBefore(clock.instant());
+    }
+
+    private static Optional<Path> getTaskFile(String taskId, @NotNull Path directory) {
+        if (taskId == null || !PERSISTABLE_TASK_ID.matcher(taskId).matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(directory.resolve(taskId + TASK_FILE_EXTENSION));
+    }
+
+    private static void deleteFile(@NotNull Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("Couldn't delete the persisted task file {}", file, e);
+        }
+    }
+}
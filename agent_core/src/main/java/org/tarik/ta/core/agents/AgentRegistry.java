@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.agents;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.core.AgentConfig.ModelProvider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of agents which have no per-execution state (no chat memory, no retry state and no tools bound to the execution
+ * context), so that such agents are built once and then shared by all test case executions. Agents which depend on the state of
+ * a specific execution must still be built for each execution.
+ */
+public final class AgentRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(AgentRegistry.class);
+    private static final Map<AgentKey, Object> AGENTS = new ConcurrentHashMap<>();
+
+    private record AgentKey(Class<?> agentClass, String modelName, ModelProvider modelProvider, String promptVersion) {
+    }
+
+    private AgentRegistry() {
+    }
+
+    /**
+     * Returns the agent registered for the given agent class, model and prompt version or builds and registers a new one using the
+     * provided factory.
+     */
+    public static <T> T getOrCreate(Class<T> agentClass, String modelName, ModelProvider modelProvider, String promptVersion,
+                                    Supplier<T> agentFactory) {
+        var key = new AgentKey(agentClass, modelName, modelProvider, promptVersion);
+        return agentClass.cast(AGENTS.computeIfAbsent(key, _ -> {
+            LOG.debug("Building shared agent {} with model '{}' of provider {} and prompt version '{}'",
+                    agentClass.getSimpleName(), modelName, modelProvider, promptVersion);
+            return agentFactory.get();
+        }));
+    }
+
+    /**
+     * Removes all registered agents, so that they will be built again on the next request.
+     */
+    public static void clear() {
+        AGENTS.clear();
+    }
+}
@@ -18,6 +18,7 @@ package org.tarik.ta.core.dto;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.tarik.ta.core.utils.CapturedLogs;
 
 import java.time.Instant;
 import java.util.List;
@@ -36,7 +37,7 @@ public class TestExecutionResult {
     private final @Nullable String generalErrorMessage;
     private final @Nullable SystemInfo systemInfo;
     @JsonIgnore
-    private final @Nullable List<String> logs;
+    private final @Nullable CapturedLogs logs;
 
     public TestExecutionResult(
             @NotNull String testCaseName,
@@ -47,7 +48,7 @@ public class TestExecutionResult {
             @Nullable Instant executionEndTimestamp,
             @Nullable String generalErrorMessage,
             @Nullable SystemInfo systemInfo,
-            @Nullable List<String> logs) {
+            @Nullable CapturedLogs logs) {
         this.testCaseName = testCaseName;
         this.testExecutionStatus = testExecutionStatus;
         this.preconditionResults = preconditionResults;
@@ -91,7 +92,7 @@ public class TestExecutionResult {
         return systemInfo;
     }
 
-    public @Nullable List<String> getLogs() {
+    public @Nullable CapturedLogs getLogs() {
         return logs;
     }
 
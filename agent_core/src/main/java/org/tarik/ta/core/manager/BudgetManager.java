@@ -20,93 +20,98 @@ import org.slf4j.LoggerFactory;
 import org.tarik.ta.core.AgentConfig;
 
 import java.time.Duration;
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 import static java.time.Instant.now;
 
+/**
+ * Checks and accounts the budgets of the current test case execution. Each execution gets its own {@link BudgetScope} which is bound
+ * to the executing thread using a {@link ScopedValue}, so that parallel executions within the same JVM don't affect each other's
+ * budgets. Code running outside any execution scope (e.g. tests or tools invoked directly) uses a shared fallback scope.
+ */
 public class BudgetManager {
     private static final Logger LOG = LoggerFactory.getLogger(BudgetManager.class);
     public static final int TIME_BUDGET_SECONDS = AgentConfig.getAgentExecutionTimeBudgetSeconds();
     private static final int TOKEN_BUDGET = AgentConfig.getAgentTokenBudget();
     private static final int TOOL_CALLS_BUDGET = AgentConfig.getAgentToolCallsBudget();
-    private static final AtomicInteger toolCallUsage = new AtomicInteger(0);
-    private static final AtomicReference<Instant> startTime = new AtomicReference<>(null);
-    private static final Map<String, ModelUsage> tokenUsagePerModel = new ConcurrentHashMap<>();
+    private static final ScopedValue<BudgetScope> CURRENT_SCOPE = ScopedValue.newInstance();
+    private static final BudgetScope FALLBACK_SCOPE = new BudgetScope(null);
 
-    public record ModelUsage(AtomicInteger input, AtomicInteger output, AtomicInteger cached, AtomicInteger total) {
-        public ModelUsage() {
-            this(new AtomicInteger(0), new AtomicInteger(0), new AtomicInteger(0), new AtomicInteger(0));
-        }
+    /**
+     * Executes the operation within a new budget scope which is visible to all budget checks and consumption calls made by the
+     * current thread until the operation completes.
+     */
+    public static <T> T callWithinNewScope(Supplier<T> operation) {
+        return ScopedValue.where(CURRENT_SCOPE, new BudgetScope()).call(operation::get);
+    }
+
+    /**
+     * Wraps the task so that it uses the budget scope of the calling thread when executed by another thread, e.g. by an executor.
+     */
+    public static <T> Callable<T> bindToCurrentScope(Callable<T> task) {
+        var scope = getCurrentScope();
+        return () -> ScopedValue.where(CURRENT_SCOPE, scope).call(task::call);
+    }
+
+    public static BudgetScope getCurrentScope() {
+        return CURRENT_SCOPE.isBound() ? CURRENT_SCOPE.get() : FALLBACK_SCOPE;
     }
 
     public static void reset() {
-        toolCallUsage.set(0);
-        startTime.set(now());
-        tokenUsagePerModel.clear();
+        getCurrentScope().restart();
         LOG.debug("Budget counters reset.");
     }
 
     public static void resetToolCallUsage() {
-        toolCallUsage.set(0);
+        getCurrentScope().resetToolCallUsage();
         LOG.debug("Tool call usage reset.");
     }
 
     public static void consumeTokens(String modelName, int input, int output, int cached) {
-        ModelUsage usage = tokenUsagePerModel.computeIfAbsent(modelName, _ -> new ModelUsage());
-        usage.input.addAndGet(input);
-        usage.output.addAndGet(output);
-        usage.cached.addAndGet(cached);
-        usage.total.addAndGet(input + output + cached);
+        getCurrentScope().consumeTokens(modelName, input, output, cached);
     }
 
-    public static int getAccumulatedInputTokens() {
-        return tokenUsagePerModel.values().stream().mapToInt(u -> u.input.get()).sum();
+    public static long getAccumulatedInputTokens() {
+        return getCurrentScope().getAccumulatedInputTokens();
     }
 
-    public static int getAccumulatedOutputTokens() {
-        return tokenUsagePerModel.values().stream().mapToInt(u -> u.output.get()).sum();
+    public static long getAccumulatedOutputTokens() {
+        return getCurrentScope().getAccumulatedOutputTokens();
     }
 
-    public static int getAccumulatedCachedTokens() {
-        return tokenUsagePerModel.values().stream().mapToInt(u -> u.cached.get()).sum();
+    public static long getAccumulatedCachedTokens() {
+        return getCurrentScope().getAccumulatedCachedTokens();
     }
 
-    public static int getAccumulatedTotalTokens() {
-        return getAccumulatedInputTokens() + getAccumulatedOutputTokens() + getAccumulatedCachedTokens();
+    public static long getAccumulatedTotalTokens() {
+        return getCurrentScope().getAccumulatedTotalTokens();
     }
 
-    public static int getAccumulatedInputTokens(String modelName) {
-        ModelUsage usage = tokenUsagePerModel.get(modelName);
-        return usage != null ? usage.input.get() : 0;
+    public static long getAccumulatedInputTokens(String modelName) {
+        return getCurrentScope().getAccumulatedInputTokens(modelName);
     }
 
-    public static int getAccumulatedOutputTokens(String modelName) {
-        ModelUsage usage = tokenUsagePerModel.get(modelName);
-        return usage != null ? usage.output.get() : 0;
+    public static long getAccumulatedOutputTokens(String modelName) {
+        return getCurrentScope().getAccumulatedOutputTokens(modelName);
     }
 
-    public static int getAccumulatedCachedTokens(String modelName) {
-        ModelUsage usage = tokenUsagePerModel.get(modelName);
-        return usage != null ? usage.cached.get() : 0;
+    public static long getAccumulatedCachedTokens(String modelName) {
+        return getCurrentScope().getAccumulatedCachedTokens(modelName);
     }
 
-    public static int getAccumulatedTotalTokens(String modelName) {
-        return getAccumulatedInputTokens(modelName) + getAccumulatedOutputTokens(modelName)
-                + getAccumulatedCachedTokens(modelName);
+    public static long getAccumulatedTotalTokens(String modelName) {
+        return getCurrentScope().getAccumulatedTotalTokens(modelName);
     }
 
     public static void consumeToolCalls(int count) {
-        toolCallUsage.addAndGet(count);
+        getCurrentScope().consumeToolCalls(count);
     }
 
     public static void checkTimeBudget() {
-        var start = startTime.get();
+        var start = getCurrentScope().getStartTime();
         if (start == null) {
-            // Time budget not yet activated (reset() has not been called)
+            // Time budget not yet activated (neither a new scope was opened nor reset() was called)
             return;
         }
         long elapsedSeconds = Duration.between(start, now()).getSeconds();
@@ -117,14 +122,14 @@ public class BudgetManager {
     }
 
     public static void checkTokenBudget() {
-        int current = getAccumulatedTotalTokens();
+        long current = getAccumulatedTotalTokens();
         if (TOKEN_BUDGET > 0 && current > TOKEN_BUDGET) {
             throw new RuntimeException("Token budget exceeded: " + current + " > " + TOKEN_BUDGET);
         }
     }
 
     public static void checkToolCallBudget() {
-        int current = toolCallUsage.get();
+        long current = getCurrentScope().getToolCallUsage();
         if (TOOL_CALLS_BUDGET > 0 && current > TOOL_CALLS_BUDGET) {
             throw new RuntimeException("Tool call budget exceeded: " + current + " > " + TOOL_CALLS_BUDGET);
         }
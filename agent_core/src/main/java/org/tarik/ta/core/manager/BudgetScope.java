@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.manager;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.time.Instant.now;
+
+/**
+ * Holds the budget usage counters of a single test case execution. Counters are lock-free and may be updated concurrently by all
+ * threads which work on behalf of the same execution.
+ */
+public final class BudgetScope {
+    private volatile Instant startTime;
+    private final LongAdder toolCallUsage = new LongAdder();
+    private final Map<String, ModelUsage> tokenUsagePerModel = new ConcurrentHashMap<>();
+
+    public record ModelUsage(LongAdder input, LongAdder output, LongAdder cached) {
+        public ModelUsage() {
+            this(new LongAdder(), new LongAdder(), new LongAdder());
+        }
+
+        public long total() {
+            return input.sum() + output.sum() + cached.sum();
+        }
+    }
+
+    /**
+     * Creates a scope whose time budget starts right now.
+     */
+    public BudgetScope() {
+        this(now());
+    }
+
+    /**
+     * @param startTime - the start of the time budget, if null, the time budget is not tracked until {@link #restart()} is called
+     */
+    BudgetScope(@Nullable Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * Clears all counters and restarts the time budget.
+     */
+    public void restart() {
+        toolCallUsage.reset();
+        tokenUsagePerModel.clear();
+        startTime = now();
+    }
+
+    @Nullable
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void consumeTokens(String modelName, int input, int output, int cached) {
+        ModelUsage usage = tokenUsagePerModel.computeIfAbsent(modelName, _ -> new ModelUsage());
+        usage.input().add(input);
+        usage.output().add(output);
+        usage.cached().add(cached);
+    }
+
+    public void consumeToolCalls(int count) {
+        toolCallUsage.add(count);
+    }
+
+    public void resetToolCallUsage() {
+        toolCallUsage.reset();
+    }
+
+    public long getToolCallUsage() {
+        return toolCallUsage.sum();
+    }
+
+    public long getAccumulatedInputTokens() {
+        return tokenUsagePerModel.values().stream().mapToLong(u -> u.input().sum()).sum();
+    }
+
+    public long getAccumulatedOutputTokens() {
+        return tokenUsagePerModel.values().stream().mapToLong(u -> u.output().sum()).sum();
+    }
+
+    public long getAccumulatedCachedTokens() {
+        return tokenUsagePerModel.values().stream().mapToLong(u -> u.cached().sum()).sum();
+    }
+
+    public long getAccumulatedTotalTokens() {
+        return tokenUsagePerModel.values().stream().mapToLong(ModelUsage::total).sum();
+    }
+
+    public long getAccumulatedInputTokens(String modelName) {
+        ModelUsage usage = tokenUsagePerModel.get(modelName);
+        return usage != null ? usage.input().sum() : 0;
+    }
+
+    public long getAccumulatedOutputTokens(String modelName) {
+        ModelUsage usage = tokenUsagePerModel.get(modelName);
+        return usage != null ? usage.output().sum() : 0;
+    }
+
+    public long getAccumulatedCachedTokens(String modelName) {
+        ModelUsage usage = tokenUsagePerModel.get(modelName);
+        return usage != null ? usage.cached().sum() : 0;
+    }
+
+    public long getAccumulatedTotalTokens(String modelName) {
+        ModelUsage usage = tokenUsagePerModel.get(modelName);
+        return usage != null ? usage.total() : 0;
+    }
+}
@@ -28,7 +28,6 @@ import java.util.Map;
 
 import static java.util.Optional.ofNullable;
 import static org.tarik.ta.core.manager.BudgetManager.*;
-import static org.tarik.ta.core.manager.BudgetManager.getAccumulatedTotalTokens;
 import static org.tarik.ta.core.utils.CommonUtils.isBlank;
 import static org.tarik.ta.core.utils.CommonUtils.isNotBlank;
 
@@ -28,6 +28,9 @@ import dev.langchain4j.model.anthropic.AnthropicChatModel;
 import dev.langchain4j.model.vertexai.anthropic.VertexAiAnthropicChatModel;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.tarik.ta.core.AgentConfig.*;
 
 public class ModelFactory {
@@ -38,12 +41,42 @@ public class ModelFactory {
     private static final boolean LOG_MODEL_OUTPUTS = isModelLoggingEnabled();
     private static final boolean OUTPUT_THOUGHTS = isThinkingOutputEnabled();
     private static final int GEMINI_THINKING_BUDGET = getGeminiThinkingBudget();
+    private static final Map<ModelKey, GenAiModel> MODELS = new ConcurrentHashMap<>();
+
+    private record ModelKey(String modelName, ModelProvider modelProvider, String apiProvider, int maxRetries) {
+    }
 
     public static GenAiModel getModel(String modelName, ModelProvider modelProvider) {
         return getModel(modelName, modelProvider, MAX_RETRIES);
     }
 
+    /**
+     * Returns the model client for the given parameters. Model clients are thread-safe, so each of them is created only once and then
+     * shared by all agents in order to reuse the underlying HTTP connections. That's why the returned model must not be closed by
+     * the caller.
+     */
     public static GenAiModel getModel(String modelName, ModelProvider modelProvider, int maxRetries) {
+        var key = new ModelKey(modelName, modelProvider, getApiProviderName(modelProvider), maxRetries);
+        return MODELS.computeIfAbsent(key, _ -> createModel(modelName, modelProvider, maxRetries));
+    }
+
+    /**
+     * Closes and removes all cached model clients.
+     */
+    public static void clearCache() {
+        MODELS.values().forEach(GenAiModel::close);
+        MODELS.clear();
+    }
+
+    private static String getApiProviderName(ModelProvider modelProvider) {
+        return switch (modelProvider) {
+            case GOOGLE -> getGoogleApiProvider().name();
+            case ANTHROPIC -> getAnthropicApiProvider().name();
+            case OPENAI, GROQ -> "";
+        };
+    }
+
+    private static GenAiModel createModel(String modelName, ModelProvider modelProvider, int maxRetries) {
         return switch (modelProvider) {
             case GOOGLE -> new GenAiModel(getGeminiModel(modelName, maxRetries));
             case OPENAI -> new GenAiModel(getOpenAiModel(modelName, maxRetries));
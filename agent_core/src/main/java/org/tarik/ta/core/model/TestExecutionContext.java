@@ -15,29 +15,37 @@
  */
 package org.tarik.ta.core.model;
 
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.tarik.ta.core.dto.PreconditionResult;
 import org.tarik.ta.core.dto.TestStepResult;
 import org.tarik.ta.core.dto.TestCase;
+import org.tarik.ta.core.model.TestExecutionProgress.Listener;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Holds the context and state of the current test execution.
  */
 public class TestExecutionContext {
+    private static final Logger LOG = LoggerFactory.getLogger(TestExecutionContext.class);
     private final TestCase testCase;
     private final List<TestStepResult> testStepExecutionHistory;
     private final List<PreconditionResult> preconditionExecutionHistory;
     private final Map<String, Object> sharedData;
+    private final @Nullable Listener progressListener;
 
     public TestExecutionContext(TestCase testCase) {
         this.testCase = testCase;
         this.testStepExecutionHistory = new ArrayList<>();
         this.preconditionExecutionHistory = new ArrayList<>();
         this.sharedData = new HashMap<>();
+        this.progressListener = TestExecutionProgress.getCurrentListener().orElse(null);
     }
 
     public synchronized TestCase getTestCase() {
@@ -56,15 +64,32 @@ public class TestExecutionContext {
         return sharedData;
     }
 
-    public synchronized void addStepResult(TestStepResult result) {
-        this.testStepExecutionHistory.add(result);
+    public void addStepResult(TestStepResult result) {
+        synchronized (this) {
+            this.testStepExecutionHistory.add(result);
+        }
+        notifyProgressListener(listener -> listener.onStepResult(this, result));
     }
 
-    public synchronized void addPreconditionResult(PreconditionResult result) {
-        this.preconditionExecutionHistory.add(result);
+    public void addPreconditionResult(PreconditionResult result) {
+        synchronized (this) {
+            this.preconditionExecutionHistory.add(result);
+        }
+        notifyProgressListener(listener -> listener.onPreconditionResult(this, result));
     }
 
     public synchronized void addSharedData(String key, Object value) {
         this.sharedData.put(key, value);
     }
-}
\ No newline at end of file
+
+    private void notifyProgressListener(Consumer<Listener> notification) {
+        if (progressListener != null) {
+            try {
+                notification.accept(progressListener);
+            } catch (Exception e) {
+                // Progress reporting must never affect the execution itself
+                LOG.warn("Couldn't report the test execution progress", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.model;
+
+import org.jetbrains.annotations.NotNull;
+import org.tarik.ta.core.dto.PreconditionResult;
+import org.tarik.ta.core.dto.TestStepResult;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Allows observing the progress of a test case execution without coupling the agents to the way the progress is reported. The
+ * listener is bound to the executing thread using a {@link ScopedValue} and picked up by each {@link TestExecutionContext} created
+ * within this scope.
+ */
+public final class TestExecutionProgress {
+    private static final ScopedValue<Listener> CURRENT_LISTENER = ScopedValue.newInstance();
+
+    private TestExecutionProgress() {
+    }
+
+    /**
+     * Executes the operation so that all test execution contexts created by the current thread until the operation completes report
+     * their progress to the provided listener.
+     */
+    public static <T> T callWithListener(@NotNull Listener listener, Supplier<T> operation) {
+        return ScopedValue.where(CURRENT_LISTENER, listener).call(operation::get);
+    }
+
+    public static Optional<Listener> getCurrentListener() {
+        return CURRENT_LISTENER.isBound() ? Optional.of(CURRENT_LISTENER.get()) : Optional.empty();
+    }
+
+    public interface Listener {
+        void onPreconditionResult(@NotNull TestExecutionContext context, @NotNull PreconditionResult result);
+
+        void onStepResult(@NotNull TestExecutionContext context, @NotNull TestStepResult result);
+    }
+}
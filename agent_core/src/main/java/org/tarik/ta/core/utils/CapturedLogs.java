@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Formatted log lines captured during a test case execution. The older lines might have been spilled into a gzip-compressed file, so
+ * that the logs of a long execution don't need to be held in memory. The logs are meant to be streamed using
+ * {@link #writeTo(OutputStream)} and discarded afterward.
+ */
+public final class CapturedLogs {
+    private static final Logger LOG = LoggerFactory.getLogger(CapturedLogs.class);
+    private static final byte[] LINE_SEPARATOR = "\n".getBytes(UTF_8);
+    private static final CapturedLogs EMPTY = new CapturedLogs(null, List.of());
+
+    private final @Nullable Path spilledLinesFile;
+    private final List<String> bufferedLines;
+
+    CapturedLogs(@Nullable Path spilledLinesFile, @NotNull List<String> bufferedLines) {
+        this.spilledLinesFile = spilledLinesFile;
+        this.bufferedLines = List.copyOf(bufferedLines);
+    }
+
+    public static CapturedLogs empty() {
+        return EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return spilledLinesFile == null && bufferedLines.isEmpty();
+    }
+
+    /**
+     * Writes all captured lines in their original order to the provided stream, each line terminated by a line break.
+     */
+    public void writeTo(@NotNull OutputStream outputStream) throws IOException {
+        if (spilledLinesFile != null) {
+            try (var spilledLines = new GZIPInputStream(Files.newInputStream(spilledLinesFile))) {
+                spilledLines.transferTo(outputStream);
+            }
+        }
+        for (String line : bufferedLines) {
+            outputStream.write(line.getBytes(UTF_8));
+            outputStream.write(LINE_SEPARATOR);
+        }
+    }
+
+    /**
+     * Reads all captured lines into memory. Should be used only if the amount of logs is known to be small.
+     */
+    public List<String> readLines() {
+        List<String> lines = new ArrayList<>();
+        if (spilledLinesFile != null) {
+            try (var reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(spilledLinesFile)),
+                    UTF_8))) {
+                reader.lines().forEach(lines::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't read the spilled log lines from %s".formatted(spilledLinesFile), e);
+            }
+        }
+        lines.addAll(bufferedLines);
+        return lines;
+    }
+
+    /**
+     * Deletes the file with spilled lines, if any. The logs can't be read afterward.
+     */
+    public void discard() {
+        if (spilledLinesFile != null) {
+            try {
+                Files.deleteIfExists(spilledLinesFile);
+            } catch (IOException e) {
+                LOG.warn("Couldn't delete the spilled log lines file {}", spilledLinesFile, e);
+            }
+        }
+    }
+}
@@ -111,8 +111,9 @@ public class CommonUtils {
     }
 
     public static void waitUntil(Instant deadline) {
-        while (now().isBefore(deadline)) {
-            sleepMillis(100);
+        long remainingMillis = Duration.between(now(), deadline).toMillis();
+        if (remainingMillis > 0) {
+            sleepMillis(remainingMillis);
         }
     }
 
@@ -17,47 +17,158 @@ package org.tarik.ta.core.utils;
 
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.AppenderBase;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.tarik.ta.core.AgentConfig;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
-public class LogCapture {
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Captures the logs of a single test case execution. The log events are attributed to the execution using the execution ID which is
+ * put into the MDC of the thread calling {@link #start()}. The tasks executed by helper threads on behalf of the execution must be
+ * wrapped using one of the {@code bindToCurrentExecution} methods, so that they log with the same execution ID. Events without any
+ * execution ID are captured only if no other execution is being captured at the same time, so that the logs of concurrent executions
+ * don't get mixed.
+ * <p>
+ * The events are formatted right away, at most the configured amount of lines is held in memory, the older lines are spilled into a
+ * gzip-compressed temporary file.
+ */
+public class LogCapture implements AutoCloseable {
+    public static final String EXECUTION_ID_MDC_KEY = "executionId";
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
             .withZone(ZoneId.systemDefault());
+    private static final AtomicInteger ACTIVE_CAPTURES = new AtomicInteger();
 
-    private ListAppender<ILoggingEvent> listAppender;
+    private final String executionId = UUID.randomUUID().toString();
+    private final int maxBufferedLines;
     private final Logger rootLogger;
+    private CaptureAppender appender;
+    private boolean logsRetrieved;
 
     public LogCapture() {
+        this(AgentConfig.getLogCaptureMaxBufferedLines());
+    }
+
+    LogCapture(int maxBufferedLines) {
+        this.maxBufferedLines = Math.max(1, maxBufferedLines);
         this.rootLogger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
     }
 
     public void start() {
-        listAppender = new ListAppender<>();
-        listAppender.start();
-        rootLogger.addAppender(listAppender);
+        MDC.put(EXECUTION_ID_MDC_KEY, executionId);
+        appender = new CaptureAppender();
+        appender.setContext(rootLogger.getLoggerContext());
+        appender.setName("log-capture-%s".formatted(executionId));
+        appender.start();
+        ACTIVE_CAPTURES.incrementAndGet();
+        rootLogger.addAppender(appender);
     }
 
     public void stop() {
-        if (listAppender != null) {
-            rootLogger.detachAppender(listAppender);
-            listAppender.stop();
+        if (appender != null && appender.isStarted()) {
+            rootLogger.detachAppender(appender);
+            appender.stop();
+            appender.finishSpilling();
+            ACTIVE_CAPTURES.decrementAndGet();
+            MDC.remove(EXECUTION_ID_MDC_KEY);
         }
     }
 
-    public List<String> getLogs() {
-        if (listAppender == null) {
-            return new ArrayList<>();
+    /**
+     * Stops the capture and returns all lines captured so far. The caller becomes responsible for discarding the returned logs.
+     */
+    public CapturedLogs getLogs() {
+        if (appender == null) {
+            return CapturedLogs.empty();
+        }
+        stop();
+        logsRetrieved = true;
+        return appender.toCapturedLogs();
+    }
+
+    /**
+     * Stops the capture and discards the captured lines if they haven't been retrieved using {@link #getLogs()}, so that no spilled
+     * lines are left on disk if the execution ends without a result.
+     */
+    @Override
+    public void close() {
+        stop();
+        if (appender != null && !logsRetrieved) {
+            appender.toCapturedLogs().discard();
+        }
+    }
+
+    /**
+     * Wraps the task so that the events it logs are attributed to the execution captured by the calling thread when it's executed
+     * by another thread, e.g. by an executor.
+     */
+    public static <T> Callable<T> bindToCurrentExecution(Callable<T> task) {
+        var executionId = MDC.get(EXECUTION_ID_MDC_KEY);
+        return () -> {
+            var previousExecutionId = MDC.get(EXECUTION_ID_MDC_KEY);
+            setExecutionId(executionId);
+            try {
+                return task.call();
+            } finally {
+                setExecutionId(previousExecutionId);
+            }
+        };
+    }
+
+    /**
+     * Same as {@link #bindToCurrentExecution(Callable)}, but for a task without any result.
+     */
+    public static Runnable bindToCurrentExecution(Runnable task) {
+        var executionId = MDC.get(EXECUTION_ID_MDC_KEY);
+        return () -> {
+            var previousExecutionId = MDC.get(EXECUTION_ID_MDC_KEY);
+            setExecutionId(executionId);
+            try {
+                task.run();
+            } finally {
+                setExecutionId(previousExecutionId);
+            }
+        };
+    }
+
+    /**
+     * Returns the executor which binds each task to the execution captured by the thread submitting it, see
+     * {@link #bindToCurrentExecution(Runnable)}.
+     */
+    public static Executor bindToCurrentExecution(Executor executor) {
+        return task -> executor.execute(bindToCurrentExecution(task));
+    }
+
+    @Nullable
+    Path getSpilledLinesFile() {
+        return appender == null ? null : appender.spilledLinesFile;
+    }
+
+    private static void setExecutionId(@Nullable String executionId) {
+        if (executionId == null) {
+            MDC.remove(EXECUTION_ID_MDC_KEY);
+        } else {
+            MDC.put(EXECUTION_ID_MDC_KEY, executionId);
         }
-        return listAppender.list.stream()
-                .map(this::formatLogEvent)
-                .collect(Collectors.toList());
     }
 
     private String formatLogEvent(ILoggingEvent event) {
@@ -74,4 +185,70 @@ public class LogCapture {
         int lastDotIndex = loggerName.lastIndexOf('.');
         return lastDotIndex >= 0 ? loggerName.substring(lastDotIndex + 1) : loggerName;
     }
+
+    private class CaptureAppender extends AppenderBase<ILoggingEvent> {
+        private final Deque<String> bufferedLines = new ArrayDeque<>();
+        private @Nullable Path spilledLinesFile;
+        private @Nullable Writer spilledLinesWriter;
+        private long droppedLines;
+
+        // AppenderBase synchronizes the appending, so no additional locking is needed here
+        @Override
+        protected void append(ILoggingEvent event) {
+            if (!belongsToExecution(event)) {
+                return;
+            }
+            if (bufferedLines.size() >= maxBufferedLines) {
+                spillBufferedLines();
+            }
+            bufferedLines.addLast(formatLogEvent(event));
+        }
+
+        private boolean belongsToExecution(ILoggingEvent event) {
+            var eventExecutionId = event.getMDCPropertyMap().get(EXECUTION_ID_MDC_KEY);
+            return eventExecutionId == null ? ACTIVE_CAPTURES.get() == 1 : executionId.equals(eventExecutionId);
+        }
+
+        private void spillBufferedLines() {
+            try {
+                if (spilledLinesWriter == null) {
+                    spilledLinesFile = Files.createTempFile("execution_logs_", ".log.gz");
+                    spilledLinesFile.toFile().deleteOnExit();
+                    spilledLinesWriter = new BufferedWriter(new OutputStreamWriter(
+                            new GZIPOutputStream(Files.newOutputStream(spilledLinesFile)), UTF_8));
+                }
+                for (String line : bufferedLines) {
+                    spilledLinesWriter.write(line);
+                    spilledLinesWriter.write('\n');
+                }
+                bufferedLines.clear();
+            } catch (IOException e) {
+                // Can't log here without recursion, so the status manager of Logback gets the error. Dropping the oldest line keeps
+                // the memory bounded even if the disk isn't available.
+                addError("Couldn't spill the captured log lines to %s".formatted(spilledLinesFile), e);
+                bufferedLines.pollFirst();
+                droppedLines++;
+            }
+        }
+
+        private synchronized void finishSpilling() {
+            if (spilledLinesWriter != null) {
+                try {
+                    spilledLinesWriter.close();
+                } catch (IOException e) {
+                    addError("Couldn't finish writing the spilled log lines to %s".formatted(spilledLinesFile), e);
+                }
+                spilledLinesWriter = null;
+            }
+        }
+
+        private synchronized CapturedLogs toCapturedLogs() {
+            if (droppedLines > 0) {
+                bufferedLines.addFirst("... %d older log lines have been dropped because they couldn't be spilled to disk"
+                        .formatted(droppedLines));
+                droppedLines = 0;
+            }
+            return new CapturedLogs(spilledLinesFile, bufferedLines.stream().toList());
+        }
+    }
 }
@@ -23,13 +23,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class PromptUtils {
     private static final Logger LOG = LoggerFactory.getLogger(PromptUtils.class);
+    private static final Map<String, String> PROMPTS = new ConcurrentHashMap<>();
 
     public static String loadSystemPrompt(String agentPath, String version, String fileName) {
         String path = "prompt_templates/system/agents/" + agentPath + "/" + version + "/" + fileName;
+        // Prompt files are classpath resources which can't change at runtime, so each one needs to be read only once
+        return PROMPTS.computeIfAbsent(path, PromptUtils::readPrompt);
+    }
+
+    private static String readPrompt(String path) {
         LOG.info("Loading system prompt from: {}", path);
         try (InputStream inputStream = PromptUtils.class.getClassLoader().getResourceAsStream(path)) {
             if (inputStream == null) {
@@ -17,6 +17,7 @@ package org.tarik.ta.core.utils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tarik.ta.core.agents.AgentRegistry;
 import org.tarik.ta.core.agents.TestCaseExtractionAgent;
 import org.tarik.ta.core.dto.TestCase;
 import org.tarik.ta.core.dto.VerificationExecutionResult;
@@ -75,18 +76,23 @@ public final class TestCaseExtractor {
     }
 
     /**
-     * Creates and configures a TestCaseExtractionAgent instance.
+     * Returns the shared TestCaseExtractionAgent instance, creating and configuring it on the first call.
      *
      * @return the configured TestCaseExtractionAgent
      */
     static TestCaseExtractionAgent getTestCaseExtractionAgent() {
-        var model = getModel(getTestCaseExtractionAgentModelName(), getTestCaseExtractionAgentModelProvider());
-        var prompt = loadSystemPrompt("test_case_extractor", getTestCaseExtractionAgentPromptVersion(), "test_case_extraction_prompt.txt");
-        return builder(TestCaseExtractionAgent.class)
-                .chatModel(model.chatModel())
-                .systemMessageProvider(_ -> prompt)
-                .toolProvider(new InheritanceAwareToolProvider<>(List.of(), TestCase.class))
-                .build();
+        var modelName = getTestCaseExtractionAgentModelName();
+        var modelProvider = getTestCaseExtractionAgentModelProvider();
+        var promptVersion = getTestCaseExtractionAgentPromptVersion();
+        return AgentRegistry.getOrCreate(TestCaseExtractionAgent.class, modelName, modelProvider, promptVersion, () -> {
+            var model = getModel(modelName, modelProvider);
+            var prompt = loadSystemPrompt("test_case_extractor", promptVersion, "test_case_extraction_prompt.txt");
+            return builder(TestCaseExtractionAgent.class)
+                    .chatModel(model.chatModel())
+                    .systemMessageProvider(_ -> prompt)
+                    .toolProvider(new InheritanceAwareToolProvider<>(List.of(), TestCase.class))
+                    .build();
+        });
     }
 
     /**
@@ -16,18 +16,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockedConstruction;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.tarik.ta.core.dto.TestCase;
 import org.tarik.ta.core.dto.TestExecutionResult;
 import org.tarik.ta.core.dto.TestExecutionResult.TestExecutionStatus;
+import org.tarik.ta.core.dto.TestStep;
+import org.tarik.ta.core.dto.TestStepResult;
+import org.tarik.ta.core.dto.TestStepResult.TestStepResultStatus;
+import org.tarik.ta.core.model.TestExecutionContext;
+import org.tarik.ta.core.utils.CapturedLogs;
 
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -152,6 +160,34 @@ class AbstractAgentExecutorTest {
         }
     }
 
+    @Test
+    void execute_shouldPublishProgress_whenStepResultIsAdded() {
+        when(requestContext.getTask()).thenReturn(task);
+        when(requestContext.getTaskId()).thenReturn("task-123");
+        when(requestContext.getMessage()).thenReturn(new Message(Message.Role.USER, List.of(new TextPart("run test", null)), "msg-1",
+                null, null, null, null, null));
+        executor.setResultToReturn(new TestExecutionResult("test-case", TestExecutionStatus.PASSED, Collections.emptyList(),
+                Collections.emptyList(), Instant.now(), Instant.now(), null, null, null));
+        var step = new TestStep("Open the page", List.of(), "The page is opened");
+        executor.setBeforeExecution(() -> {
+            var executionContext = new TestExecutionContext(new TestCase("test-case", List.of(), List.of(step)));
+            executionContext.addStepResult(new TestStepResult(step, TestStepResultStatus.SUCCESS, null, "Opened", Instant.now(),
+                    Instant.now()));
+        });
+
+        try (MockedConstruction<TaskUpdater> mockedUpdater = mockConstruction(TaskUpdater.class,
+                (mock, context) -> {
+                    when(mock.newAgentMessage(anyList(), any())).thenReturn(new Message(Message.Role.USER, List.of(new TextPart("dummy", null)), "id", null, null, null, null, null));
+                })) {
+            executor.execute(requestContext, eventQueue);
+
+            TaskUpdater updater = mockedUpdater.constructed().get(0);
+            verify(updater).addArtifact(anyList(), eq("test_step_result_1"), eq("test_step_result_1"), any());
+            verify(updater).updateStatus(eq(TaskState.WORKING), any(Message.class));
+            verify(updater).complete(any(Message.class));
+        }
+    }
+
     @Test
     void cancel_shouldCancel_whenStateIsValid() {
         when(requestContext.getTask()).thenReturn(task);
@@ -165,10 +201,101 @@ class AbstractAgentExecutorTest {
         }
     }
 
+    @Test
+    void execute_shouldFailTaskWithoutStartingIt_whenExecutionQueueIsFull() throws Exception {
+        executor = new TestAgentExecutor(1, 0);
+        when(requestContext.getTaskId()).thenReturn("task-123");
+        when(requestContext.getMessage()).thenReturn(new Message(Message.Role.USER, List.of(new TextPart("run test", null)), "msg-1",
+                null, null, null, null, null));
+        executor.setResultToReturn(new TestExecutionResult("test-case", TestExecutionStatus.PASSED, Collections.emptyList(),
+                Collections.emptyList(), Instant.now(), Instant.now(), null, null, null));
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        executor.setBeforeExecution(() -> {
+            started.countDown();
+            awaitLatch(release);
+        });
+
+        var runningExecution = Thread.ofVirtual().start(() -> executeWithMockedUpdater());
+        assertThat(started.await(5, SECONDS)).isTrue();
+
+        try (MockedConstruction<TaskUpdater> mockedUpdater = mockConstruction(TaskUpdater.class)) {
+            executor.execute(requestContext, eventQueue);
+
+            TaskUpdater updater = mockedUpdater.constructed().get(0);
+            verify(updater, never()).startWork();
+            verify(updater).fail(any());
+        } finally {
+            release.countDown();
+            runningExecution.join();
+        }
+    }
+
+    @Test
+    void execute_shouldRunTasksInParallel_whenMultipleExecutionsAllowed() throws Exception {
+        executor = new TestAgentExecutor(2, 0);
+        when(requestContext.getTaskId()).thenReturn("task-123");
+        when(requestContext.getMessage()).thenReturn(new Message(Message.Role.USER, List.of(new TextPart("run test", null)), "msg-1",
+                null, null, null, null, null));
+        executor.setResultToReturn(new TestExecutionResult("test-case", TestExecutionStatus.PASSED, Collections.emptyList(),
+                Collections.emptyList(), Instant.now(), Instant.now(), null, null, null));
+        var bothStarted = new CountDownLatch(2);
+        executor.setBeforeExecution(() -> {
+            bothStarted.countDown();
+            awaitLatch(bothStarted);
+        });
+
+        var firstExecution = Thread.ofVirtual().start(() -> executeWithMockedUpdater());
+        var secondExecution = Thread.ofVirtual().start(() -> executeWithMockedUpdater());
+        try {
+            assertThat(bothStarted.await(5, SECONDS)).isTrue();
+        } finally {
+            firstExecution.join();
+            secondExecution.join();
+        }
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidConcurrencySettings() {
+        assertThatThrownBy(() -> new TestAgentExecutor(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TestAgentExecutor(1, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void executeWithMockedUpdater() {
+        // Mocked constructions are thread-local, so each execution thread needs its own one
+        try (MockedConstruction<TaskUpdater> _ = mockConstruction(TaskUpdater.class, (mock, _) ->
+                when(mock.newAgentMessage(anyList(), any())).thenReturn(new Message(Message.Role.USER,
+                        List.of(new TextPart("dummy", null)), "id", null, null, null, null, null)))) {
+            executor.execute(requestContext, eventQueue);
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     // Implementation stub
     static class TestAgentExecutor extends AbstractAgentExecutor {
         private TestExecutionResult resultToReturn;
         private boolean throwException = false;
+        private Runnable beforeExecution = () -> {
+        };
+
+        TestAgentExecutor() {
+            super();
+        }
+
+        TestAgentExecutor(int maxConcurrentExecutions, int executionQueueCapacity) {
+            super(maxConcurrentExecutions, executionQueueCapacity);
+        }
+
+        public void setBeforeExecution(Runnable beforeExecution) {
+            this.beforeExecution = beforeExecution;
+        }
 
         public void setResultToReturn(TestExecutionResult result) {
             this.resultToReturn = result;
@@ -180,6 +307,7 @@ class AbstractAgentExecutorTest {
 
         @Override
         protected TestExecutionResult executeTestCase(String message) {
+            beforeExecution.run();
             if (throwException) {
                 throw new RuntimeException("Simulated error");
             }
@@ -192,7 +320,7 @@ class AbstractAgentExecutorTest {
         }
 
         @Override
-        protected Optional<List<String>> extractLogs(TestExecutionResult result) {
+        protected Optional<CapturedLogs> extractLogs(TestExecutionResult result) {
             // No logs in tests
             return Optional.empty();
         }
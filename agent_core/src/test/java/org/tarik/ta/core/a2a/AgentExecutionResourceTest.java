@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.a2a;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AgentExecutionResourceTest {
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    void readMethod_shouldReturnMethod_whenItFollowsLargeParams() throws Exception {
+        var testData = "x".repeat(1_000_000);
+        var body = """
+                {"jsonrpc":"2.0","id":"1","params":{"message":{"parts":[{"kind":"text","text":"%s"}],"nested":[[{"method":"wrong"}]]}},
+                "method":"message/send"}""".formatted(testData);
+
+        assertThat(AgentExecutionResource.readMethod(jsonFactory, body.getBytes(UTF_8))).isEqualTo("message/send");
+    }
+
+    @Test
+    void readMethod_shouldIgnoreNestedMethodFields() throws Exception {
+        var body = """
+                {"params":{"method":"tasks/get"},"method":"message/stream"}""";
+
+        assertThat(AgentExecutionResource.readMethod(jsonFactory, body.getBytes(UTF_8))).isEqualTo("message/stream");
+    }
+
+    @Test
+    void readMethod_shouldReturnEmptyString_whenMethodIsMissingOrInvalid() throws Exception {
+        assertThat(AgentExecutionResource.readMethod(jsonFactory, "{\"id\":1}".getBytes(UTF_8))).isEmpty();
+        assertThat(AgentExecutionResource.readMethod(jsonFactory, "{\"method\":42}".getBytes(UTF_8))).isEmpty();
+        assertThat(AgentExecutionResource.readMethod(jsonFactory, "[]".getBytes(UTF_8))).isEmpty();
+    }
+
+    @Test
+    void readMethod_shouldFail_whenBodyIsNotJson() {
+        assertThatThrownBy(() -> AgentExecutionResource.readMethod(jsonFactory, "not json".getBytes(UTF_8)))
+                .isInstanceOf(JsonParseException.class);
+    }
+}
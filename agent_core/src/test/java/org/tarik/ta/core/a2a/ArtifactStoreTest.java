@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.a2a;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactStoreTest {
+    @TempDir
+    Path tempDir;
+    private Path storeDir;
+
+    @BeforeEach
+    void setUp() {
+        storeDir = tempDir.resolve("artifacts");
+    }
+
+    @Test
+    void store_shouldSaveContentUnderItsHashAndReferenceIt() throws Exception {
+        var artifactStore = new ArtifactStore(storeDir, "http://agent:8005/", Duration.ofHours(1));
+
+        var file = artifactStore.store("logs".getBytes(UTF_8), "text/plain", "execution_logs.log");
+
+        var expectedFileName = "98f38f12db221a8cf8ca7aadfdcd759b01d52eb4ebb3eedbb2d97e92805c6960.log";
+        assertThat(file.mimeType()).isEqualTo("text/plain");
+        assertThat(file.name()).isEqualTo("execution_logs.log");
+        assertThat(file.uri()).isEqualTo("http://agent:8005/artifacts/" + expectedFileName);
+        assertThat(storeDir.resolve(expectedFileName)).hasContent("logs");
+    }
+
+    @Test
+    void store_shouldStoreIdenticalContentOnlyOnce() throws Exception {
+        var artifactStore = new ArtifactStore(storeDir, "http://agent:8005", Duration.ofHours(1));
+        var sourceFile = Files.writeString(Files.createTempFile("screenshot", ".png"), "screenshot");
+
+        var first = artifactStore.store("screenshot".getBytes(UTF_8), "image/png", "first.png");
+        var second = artifactStore.store(sourceFile, "image/png", "second.png");
+        Files.delete(sourceFile);
+
+        assertThat(first.uri()).isEqualTo(second.uri());
+        try (var files = Files.list(storeDir)) {
+            assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+        }
+        try (var incomingFiles = Files.list(tempDir.resolve("artifacts.incoming"))) {
+            assertThat(incomingFiles).isEmpty();
+        }
+    }
+
+    @Test
+    void constructor_shouldKeepIncomingFilesOutsideOfServedDirectory() throws Exception {
+        var artifactStore = new ArtifactStore(storeDir, "http://agent:8005", Duration.ofHours(1));
+
+        artifactStore.store("logs".getBytes(UTF_8), "text/plain", "execution_logs.log");
+
+        assertThat(tempDir.resolve("artifacts.incoming")).isDirectory();
+        try (var servedFiles = Files.list(storeDir)) {
+            assertThat(servedFiles).allMatch(Files::isRegularFile);
+        }
+    }
+
+    @Test
+    void store_shouldNotUseSuspiciousExtensions() throws Exception {
+        var artifactStore = new ArtifactStore(storeDir, "http://agent:8005", Duration.ofHours(1));
+
+        var file = artifactStore.store("data".getBytes(UTF_8), "application/octet-stream", "clip.t/s");
+
+        assertThat(file.uri()).matches("http://agent:8005/artifacts/[0-9a-f]{64}");
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.a2a;
+
+import io.a2a.spec.Task;
+import io.a2a.spec.TaskState;
+import io.a2a.spec.TaskStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EvictingTaskStoreTest {
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2025-01-01T10:00:00Z"));
+
+    @Test
+    void get_shouldEvictFinishedTask_whenTtlIsExceeded() {
+        var store = new EvictingTaskStore(Duration.ofMinutes(10), 10, null, now::get);
+        store.save(task("finished", TaskState.COMPLETED));
+        store.save(task("active", TaskState.WORKING));
+
+        now.set(now.get().plus(Duration.ofMinutes(11)));
+
+        assertThat(store.get("finished")).isNull();
+        assertThat(store.get("active")).isNotNull();
+    }
+
+    @Test
+    void save_shouldEvictOldestFinishedTasks_whenMaxAmountIsExceeded() {
+        var store = new EvictingTaskStore(Duration.ofMinutes(10), 2, null, now::get);
+        store.save(task("first", TaskState.COMPLETED));
+        store.save(task("second", TaskState.FAILED));
+        store.save(task("active", TaskState.WORKING));
+        store.save(task("third", TaskState.CANCELED));
+
+        assertThat(store.get("first")).isNull();
+        assertThat(store.get("second")).isNotNull();
+        assertThat(store.get("third")).isNotNull();
+        assertThat(store.get("active")).isNotNull();
+    }
+
+    @Test
+    void get_shouldLoadPersistedTask_whenItIsNoLongerInMemory(@TempDir Path persistenceDir) {
+        var store = new EvictingTaskStore(Duration.ofMinutes(10), 0, persistenceDir, now::get);
+        store.save(task("finished", TaskState.COMPLETED));
+
+        var restoredTask = new EvictingTaskStore(Duration.ofMinutes(10), 0, persistenceDir, now::get).get("finished");
+
+        assertThat(restoredTask).isNotNull();
+        assertThat(restoredTask.getId()).isEqualTo("finished");
+        assertThat(restoredTask.getStatus().state()).isEqualTo(TaskState.COMPLETED);
+    }
+
+    @Test
+    void get_shouldNotReturnPersistedTask_whenTtlIsExceeded(@TempDir Path persistenceDir) throws Exception {
+        var store = new EvictingTaskStore(Duration.ofMinutes(10), 0, persistenceDir, now::get);
+        store.save(task("finished", TaskState.COMPLETED));
+        var taskFile = persistenceDir.resolve("finished.json");
+        Files.setLastModifiedTime(taskFile, FileTime.from(now.get()));
+
+        now.set(now.get().plus(Duration.ofMinutes(11)));
+
+        assertThat(store.get("finished")).isNull();
+        assertThat(taskFile).doesNotExist();
+    }
+
+    @Test
+    void save_shouldNotPersistActiveTasks(@TempDir Path persistenceDir) {
+        var store = new EvictingTaskStore(Duration.ofMinutes(10), 0, persistenceDir, now::get);
+        store.save(task("active", TaskState.WORKING));
+
+        assertThat(persistenceDir.resolve("active.json")).doesNotExist();
+        assertThat(store.get("active")).isNotNull();
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> new EvictingTaskStore(Duration.ZERO, 1, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new EvictingTaskStore(Duration.ofMinutes(1), -1, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Task task(String id, TaskState state) {
+        return new Task.Builder()
+                .id(id)
+                .contextId("context")
+                .status(new TaskStatus(state, null, null))
+                .build();
+    }
+}
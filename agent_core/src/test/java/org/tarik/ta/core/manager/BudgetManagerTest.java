@@ -23,10 +23,13 @@ import org.tarik.ta.core.AgentConfig;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.when;
 
@@ -197,4 +200,40 @@ class BudgetManagerTest {
                     .isInstanceOf(RuntimeException.class);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void callWithinNewScope_shouldIsolateUsageFromOtherScopes() throws Exception {
+        BudgetManager.consumeTokens("test-model", 10, 0, 0);
+
+        try (var executor = newVirtualThreadPerTaskExecutor()) {
+            Callable<Long> execution = () -> BudgetManager.callWithinNewScope(() -> {
+                BudgetManager.consumeTokens("test-model", 50, 30, 20);
+                return BudgetManager.getAccumulatedTotalTokens();
+            });
+            Future<Long> first = executor.submit(execution);
+            Future<Long> second = executor.submit(execution);
+
+            assertThat(first.get()).isEqualTo(100);
+            assertThat(second.get()).isEqualTo(100);
+        }
+        assertThat(BudgetManager.getAccumulatedTotalTokens()).isEqualTo(10);
+    }
+
+    @Test
+    void bindToCurrentScope_shouldAccountUsageOfOtherThreadsInCallerScope() {
+        long accumulatedTokens = BudgetManager.callWithinNewScope(() -> {
+            try (var executor = newVirtualThreadPerTaskExecutor()) {
+                executor.submit(BudgetManager.bindToCurrentScope(() -> {
+                    BudgetManager.consumeTokens("test-model", 5, 5, 0);
+                    return null;
+                })).get();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            return BudgetManager.getAccumulatedTotalTokens("test-model");
+        });
+
+        assertThat(accumulatedTokens).isEqualTo(10);
+        assertThat(BudgetManager.getAccumulatedTotalTokens()).isZero();
+    }
+}
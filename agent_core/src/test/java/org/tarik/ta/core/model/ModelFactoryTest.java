@@ -1,5 +1,6 @@
 package org.tarik.ta.core.model;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.MockedStatic;
@@ -17,6 +18,11 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class ModelFactoryTest {
 
+    @BeforeEach
+    void setUp() {
+        ModelFactory.clearCache();
+    }
+
     @Test
     void getModel_shouldReturnGoogleStudioAiModel() {
         try (MockedStatic<AgentConfig> config = mockStatic(AgentConfig.class)) {
@@ -130,4 +136,18 @@ class ModelFactoryTest {
                     .hasMessageContaining("Anthropic API Key is missing");
         }
     }
+
+    @Test
+    void getModel_shouldReuseModel_whenRequestedWithSameParameters() {
+        try (MockedStatic<AgentConfig> config = mockStatic(AgentConfig.class)) {
+            config.when(AgentConfig::getGroqEndpoint).thenReturn("https://api.groq.com/openai/v1");
+            config.when(AgentConfig::getGroqApiKey).thenReturn("fake-groq-key");
+
+            GenAiModel model = ModelFactory.getModel("llama3-70b", ModelProvider.GROQ, 1);
+
+            assertThat(ModelFactory.getModel("llama3-70b", ModelProvider.GROQ, 1)).isSameAs(model);
+            assertThat(ModelFactory.getModel("llama3-70b", ModelProvider.GROQ, 2)).isNotSameAs(model);
+            assertThat(ModelFactory.getModel("llama3-8b", ModelProvider.GROQ, 1)).isNotSameAs(model);
+        }
+    }
 }
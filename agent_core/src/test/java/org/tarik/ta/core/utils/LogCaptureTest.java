@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.core.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogCaptureTest {
+    private static final Logger LOG = LoggerFactory.getLogger(LogCaptureTest.class);
+    private CapturedLogs capturedLogs;
+
+    @AfterEach
+    void tearDown() {
+        if (capturedLogs != null) {
+            capturedLogs.discard();
+        }
+    }
+
+    @Test
+    void getLogs_shouldReturnAllLinesInOrder_whenOlderLinesAreSpilledToDisk() throws Exception {
+        var logCapture = new LogCapture(3);
+        logCapture.start();
+        for (int i = 1; i <= 10; i++) {
+            LOG.info("Line {}", i);
+        }
+        capturedLogs = logCapture.getLogs();
+
+        var lines = capturedLogs.readLines();
+        assertThat(lines).hasSize(10);
+        assertThat(lines.getFirst()).endsWith("LogCaptureTest - Line 1");
+        assertThat(lines.getLast()).endsWith("LogCaptureTest - Line 10");
+
+        var streamedLogs = new ByteArrayOutputStream();
+        capturedLogs.writeTo(streamedLogs);
+        assertThat(streamedLogs.toString(UTF_8).lines().toList()).isEqualTo(lines);
+    }
+
+    @Test
+    void getLogs_shouldIgnoreEventsOfOtherExecutions() {
+        var logCapture = new LogCapture(100);
+        logCapture.start();
+        LOG.info("Own event");
+        var ownExecutionId = MDC.get(LogCapture.EXECUTION_ID_MDC_KEY);
+        MDC.put(LogCapture.EXECUTION_ID_MDC_KEY, "another-execution");
+        LOG.info("Foreign event");
+        MDC.put(LogCapture.EXECUTION_ID_MDC_KEY, ownExecutionId);
+        capturedLogs = logCapture.getLogs();
+
+        assertThat(capturedLogs.readLines()).singleElement().asString().endsWith("Own event");
+    }
+
+    @Test
+    void getLogs_shouldNotCaptureEvents_afterBeingStopped() {
+        var logCapture = new LogCapture(100);
+        logCapture.start();
+        LOG.info("Captured event");
+        logCapture.stop();
+        LOG.info("Not captured event");
+        capturedLogs = logCapture.getLogs();
+
+        assertThat(capturedLogs.readLines()).singleElement().asString().endsWith("Captured event");
+        assertThat(MDC.get(LogCapture.EXECUTION_ID_MDC_KEY)).isNull();
+    }
+
+    @Test
+    void getLogs_shouldCaptureEventsOfHelperThreads_whenOtherExecutionsAreCaptured() throws Exception {
+        var otherLogCapture = new LogCapture(100);
+        otherLogCapture.start();
+        MDC.remove(LogCapture.EXECUTION_ID_MDC_KEY);
+        var logCapture = new LogCapture(100);
+        logCapture.start();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(LogCapture.bindToCurrentExecution(() -> LOG.info("Bound runnable event"))).get();
+            executor.submit(LogCapture.bindToCurrentExecution(() -> {
+                LOG.info("Bound callable event");
+                return true;
+            })).get();
+            LogCapture.bindToCurrentExecution(executor).execute(() -> LOG.info("Bound executor event"));
+            executor.submit(() -> LOG.info("Unbound event")).get();
+        }
+        capturedLogs = logCapture.getLogs();
+        var otherCapturedLogs = otherLogCapture.getLogs();
+
+        assertThat(capturedLogs.readLines()).hasSize(3)
+                .anySatisfy(line -> assertThat(line).endsWith("Bound runnable event"))
+                .anySatisfy(line -> assertThat(line).endsWith("Bound callable event"))
+                .anySatisfy(line -> assertThat(line).endsWith("Bound executor event"));
+        assertThat(otherCapturedLogs.isEmpty()).isTrue();
+    }
+
+    @Test
+    void close_shouldDiscardSpilledLines_whenLogsWereNotRetrieved() {
+        var logCapture = new LogCapture(3);
+        logCapture.start();
+        for (int i = 1; i <= 10; i++) {
+            LOG.info("Line {}", i);
+        }
+        var spilledLinesFile = logCapture.getSpilledLinesFile();
+        logCapture.close();
+
+        assertThat(spilledLinesFile).isNotNull();
+        assertThat(Files.exists(spilledLinesFile)).isFalse();
+    }
+
+    @Test
+    void close_shouldKeepSpilledLines_whenLogsWereRetrieved() {
+        var logCapture = new LogCapture(3);
+        logCapture.start();
+        for (int i = 1; i <= 10; i++) {
+            LOG.info("Line {}", i);
+        }
+        capturedLogs = logCapture.getLogs();
+        logCapture.close();
+
+        assertThat(capturedLogs.readLines()).hasSize(10);
+    }
+
+    @Test
+    void getLogs_shouldReturnEmptyLogs_whenNotStarted() {
+        assertThat(new LogCapture(100).getLogs().isEmpty()).isTrue();
+    }
+}
@@ -13,6 +13,12 @@ class PromptUtilsTest {
                            .contains("It has multiple lines.");
     }
 
+    @Test
+    void loadSystemPrompt_ShouldReturnCachedContent_WhenLoadedRepeatedly() {
+        String content = PromptUtils.loadSystemPrompt("test-agent", "v1.0.0", "test-prompt.txt");
+        assertThat(PromptUtils.loadSystemPrompt("test-agent", "v1.0.0", "test-prompt.txt")).isSameAs(content);
+    }
+
     @Test
     void loadSystemPrompt_ShouldThrowException_WhenFileDoesNotExist() {
         assertThatThrownBy(() -> PromptUtils.loadSystemPrompt("non-existent", "v1.0.0", "prompt.txt"))
@@ -17,12 +17,14 @@ package org.tarik.ta.core.utils;
 
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.service.AiServices;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.tarik.ta.core.AgentConfig;
+import org.tarik.ta.core.agents.AgentRegistry;
 import org.tarik.ta.core.agents.TestCaseExtractionAgent;
 import org.tarik.ta.core.dto.OperationExecutionResult;
 import org.tarik.ta.core.dto.TestCase;
@@ -50,6 +52,11 @@ class TestCaseExtractorTest {
     @Mock
     private ChatModel mockChatModel;
 
+    @BeforeEach
+    void setUp() {
+        AgentRegistry.clear();
+    }
+
     @Test
     void extractTestCase_shouldReturnTestCase_whenAgentSucceeds() {
         String message = "run test";
@@ -29,12 +29,12 @@ import org.tarik.ta.core.dto.TestStepResult;
 import org.tarik.ta.core.dto.TestStepResult.TestStepResultStatus;
 import org.tarik.ta.core.dto.VerificationExecutionResult;
 import org.tarik.ta.core.error.RetryState;
-import org.tarik.ta.core.manager.BudgetManager;
 import org.tarik.ta.core.model.DefaultToolErrorHandler;
 import org.tarik.ta.core.model.TestExecutionContext;
 import org.tarik.ta.tools.ApiAssertionTools;
 import org.tarik.ta.core.tools.TestContextDataTools;
 import org.tarik.ta.tools.ApiRequestTools;
+import org.tarik.ta.core.utils.CapturedLogs;
 import org.tarik.ta.core.utils.LogCapture;
 import org.tarik.ta.core.tools.InheritanceAwareToolProvider;
 
@@ -49,6 +49,7 @@ import static org.tarik.ta.core.dto.TestExecutionResult.TestExecutionStatus.ERRO
 import static org.tarik.ta.core.dto.TestExecutionResult.TestExecutionStatus.FAILED;
 import static org.tarik.ta.core.dto.TestExecutionResult.TestExecutionStatus.PASSED;
 import static org.tarik.ta.core.dto.TestStepResult.TestStepResultStatus.*;
+import static org.tarik.ta.core.manager.BudgetManager.callWithinNewScope;
 import static org.tarik.ta.core.manager.BudgetManager.resetToolCallUsage;
 import static org.tarik.ta.core.model.ModelFactory.getModel;
 import static org.tarik.ta.core.utils.CommonUtils.isNotBlank;
@@ -59,7 +60,10 @@ public class ApiTestAgent {
     private static final Logger LOG = LoggerFactory.getLogger(ApiTestAgent.class);
 
     public static TestExecutionResult executeTestCase(String receivedMessage) {
-        BudgetManager.reset();
+        return callWithinNewScope(() -> executeTestCaseWithinBudgetScope(receivedMessage));
+    }
+
+    private static TestExecutionResult executeTestCaseWithinBudgetScope(String receivedMessage) {
         LogCapture logCapture = new LogCapture();
         TestCase testCase = extractTestCase(receivedMessage).orElse(null);
         if (testCase == null) {
@@ -102,7 +106,7 @@ public class ApiTestAgent {
             }
         } finally {
             LOG.info("Finished execution of the test case '{}'", testCase.name());
-            logCapture.stop();
+            logCapture.close();
         }
     }
 
@@ -213,7 +217,7 @@ public class ApiTestAgent {
 
     @NotNull
     private static TestExecutionResult getFailedTestExecutionResult(TestExecutionContext context,
-                                                                    Instant testExecutionStartTimestamp, String errorMessage, List<String> logs) {
+                                                                    Instant testExecutionStartTimestamp, String errorMessage, CapturedLogs logs) {
         LOG.error(errorMessage);
         return new TestExecutionResult(context.getTestCase().name(), FAILED, context.getPreconditionExecutionHistory(),
                 context.getTestStepExecutionHistory(), testExecutionStartTimestamp, now(), errorMessage, null, logs);
@@ -221,7 +225,7 @@ public class ApiTestAgent {
 
     @NotNull
     private static TestExecutionResult getTestExecutionResultWithError(TestExecutionContext context,
-                                                                       Instant testExecutionStartTimestamp, String errorMessage, List<String> logs) {
+                                                                       Instant testExecutionStartTimestamp, String errorMessage, CapturedLogs logs) {
         LOG.error(errorMessage);
         return new TestExecutionResult(context.getTestCase().name(), ERROR, context.getPreconditionExecutionHistory(),
                 context.getTestStepExecutionHistory(), testExecutionStartTimestamp, now(), errorMessage, null, logs);
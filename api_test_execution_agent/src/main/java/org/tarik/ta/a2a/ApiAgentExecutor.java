@@ -19,6 +19,7 @@ import io.a2a.spec.Part;
 import org.tarik.ta.ApiTestAgent;
 import org.tarik.ta.core.a2a.AbstractAgentExecutor;
 import org.tarik.ta.core.dto.TestExecutionResult;
+import org.tarik.ta.core.utils.CapturedLogs;
 
 import java.util.List;
 import java.util.Optional;
@@ -36,7 +37,7 @@ public class ApiAgentExecutor extends AbstractAgentExecutor {
     }
 
     @Override
-    protected Optional<List<String>> extractLogs(TestExecutionResult result) {
+    protected Optional<CapturedLogs> extractLogs(TestExecutionResult result) {
         return Optional.ofNullable(result.getLogs());
     }
 }
\ No newline at end of file
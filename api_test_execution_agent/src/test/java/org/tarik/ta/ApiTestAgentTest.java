@@ -2,6 +2,7 @@ package org.tarik.ta;
 
 import dev.langchain4j.service.AiServices;
 import dev.langchain4j.model.chat.ChatModel;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -10,6 +11,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.tarik.ta.agents.ApiTestStepActionAgent;
 import org.tarik.ta.context.ApiContext;
 import org.tarik.ta.core.AgentConfig;
+import org.tarik.ta.core.agents.AgentRegistry;
 import org.tarik.ta.core.agents.TestCaseExtractionAgent;
 import org.tarik.ta.core.dto.*;
 import org.tarik.ta.core.model.GenAiModel;
@@ -43,6 +45,11 @@ class ApiTestAgentTest {
         @Mock
         private ApiContext mockApiContext;
 
+        @BeforeEach
+        void setUp() {
+                AgentRegistry.clear();
+        }
+
         @Test
         void extractTestCase_shouldReturnTestCase_whenAgentSucceeds() {
                 String message = "run test";
@@ -19,13 +19,20 @@ import io.a2a.spec.AgentCard;
 import org.tarik.ta.a2a.UiAgentExecutor;
 import org.tarik.ta.core.AbstractServer;
 import org.tarik.ta.core.a2a.AgentExecutor;
+import org.tarik.ta.rag.RetrieverFactory;
 
 import static org.tarik.ta.UiTestAgentConfig.getExecutionMode;
+import static org.tarik.ta.UiTestAgentConfig.isRetrieverHybridSearchEnabled;
+import static org.tarik.ta.UiTestAgentConfig.isRetrieverLocalIndexEnabled;
 import static org.tarik.ta.a2a.AgentCardProducer.agentCard;
 
 public class Server extends AbstractServer {
 
     static void main() {
+        if (isRetrieverLocalIndexEnabled() || isRetrieverHybridSearchEnabled()) {
+            // Loading the local indexes in advance keeps the element lookups of the first test case fast
+            Thread.ofVirtual().start(RetrieverFactory::getUiElementRetriever);
+        }
         new Server().start();
     }
 
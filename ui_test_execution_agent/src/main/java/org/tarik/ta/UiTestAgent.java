@@ -19,6 +19,7 @@ import dev.langchain4j.model.input.PromptTemplate;
 import dev.langchain4j.service.tool.ToolErrorContext;
 import dev.langchain4j.service.tool.ToolErrorHandlerResult;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,26 +34,30 @@ import org.tarik.ta.dto.UiPreconditionResult;
 import org.tarik.ta.dto.UiTestStepResult;
 import org.tarik.ta.dto.UiTestExecutionResult;
 import org.tarik.ta.core.dto.SystemInfo;
+import org.tarik.ta.core.utils.CapturedLogs;
 import org.tarik.ta.core.utils.LogCapture;
 import org.tarik.ta.core.dto.TestStepResult.TestStepResultStatus;
 import org.tarik.ta.core.error.ErrorCategory;
 import org.tarik.ta.core.error.RetryPolicy;
 import org.tarik.ta.core.error.RetryState;
 import org.tarik.ta.core.exceptions.ToolExecutionException;
-import org.tarik.ta.core.manager.BudgetManager;
 import org.tarik.ta.core.model.TestExecutionContext;
 import org.tarik.ta.model.UiTestExecutionContext;
 import org.tarik.ta.model.VisualState;
+import org.tarik.ta.rag.UiElementPrefetcher;
 import org.tarik.ta.exceptions.ElementLocationException;
 import org.tarik.ta.tools.*;
 import org.tarik.ta.user_dialogs.TestStepSelectionPopup;
+import org.tarik.ta.utils.CompressedScreenshot;
 import org.tarik.ta.utils.ScreenRecorder;
+import org.tarik.ta.utils.UiCommonUtils;
 
 import java.awt.image.BufferedImage;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static dev.langchain4j.service.AiServices.builder;
 import static java.lang.String.join;
@@ -64,6 +69,7 @@ import static org.tarik.ta.core.dto.TestExecutionResult.TestExecutionStatus.*;
 import static org.tarik.ta.core.dto.TestStepResult.TestStepResultStatus.FAILURE;
 import static org.tarik.ta.core.dto.TestStepResult.TestStepResultStatus.SUCCESS;
 import static org.tarik.ta.core.error.ErrorCategory.*;
+import static org.tarik.ta.core.manager.BudgetManager.callWithinNewScope;
 import static org.tarik.ta.core.manager.BudgetManager.resetToolCallUsage;
 import static org.tarik.ta.core.model.ModelFactory.getModel;
 import static org.tarik.ta.core.utils.CommonUtils.*;
@@ -71,6 +77,8 @@ import static org.tarik.ta.rag.RetrieverFactory.getUiElementRetriever;
 import static org.tarik.ta.core.utils.PromptUtils.loadSystemPrompt;
 import static org.tarik.ta.utils.UiCommonUtils.captureScreen;
 import static org.tarik.ta.utils.ImageUtils.singleImageContent;
+import static org.tarik.ta.utils.ScreenChangeDetector.awaitScreenChange;
+import static org.tarik.ta.utils.ScreenChangeDetector.awaitVisualStability;
 
 public class UiTestAgent {
     private static final Logger LOG = LoggerFactory.getLogger(UiTestAgent.class);
@@ -81,29 +89,35 @@ public class UiTestAgent {
     }
 
     public static TestExecutionResult executeTestCase(String receivedMessage) {
+        return callWithinNewScope(() -> executeTestCaseWithinBudgetScope(receivedMessage));
+    }
+
+    private static TestExecutionResult executeTestCaseWithinBudgetScope(String receivedMessage) {
         var testExecutionStartTimestamp = now();
         ScreenRecorder screenRecorder = new ScreenRecorder();
         LogCapture logCapture = new LogCapture();
         SystemInfo systemInfo = null;
 
         try {
-            BudgetManager.reset();
             var extractedTestCase = TestCaseExtractor.extractTestCase(receivedMessage);
             if (extractedTestCase.isEmpty()) {
                 var errorMessage = "Failed to extract a valid test case from the provided message. " +
                         "Please ensure the message contains all required information (test case name, test steps with descriptions).";
                 LOG.error(errorMessage);
                 systemInfo = getSystemInfo();
-                return new UiTestExecutionResult("Unknown Test Case", ERROR, List.of(), List.of(), captureScreen(),
-                        systemInfo, null, List.of(), testExecutionStartTimestamp, now(), errorMessage);
+                return new UiTestExecutionResult("Unknown Test Case", ERROR, List.of(), List.of(), captureCompressedScreen(),
+                        systemInfo, null, CapturedLogs.empty(), testExecutionStartTimestamp, now(), errorMessage);
             }
 
             TestCase testCase = extractedTestCase.get();
             LOG.info("Starting execution of the test case '{}'", testCase.name());
-            screenRecorder.beginScreenCapture();
+            // The capture is started first, so that the logs of the screen recorder threads are attributed to this execution
             logCapture.start();
+            screenRecorder.beginScreenCapture();
             systemInfo = getSystemInfo();
 
+            var prefetcher = isElementLocationPrefetchingEnabled() ?
+                    new UiElementPrefetcher(getUiElementRetriever(), getRetrieverTopN(), getElementRetrievalMinGeneralScore()) : null;
             try {
                 var context = new UiTestExecutionContext(testCase, new VisualState(captureScreen()));
                 var imageVerificationAgent = getImageVerificationAgent(new RetryState());
@@ -127,18 +141,20 @@ public class UiTestAgent {
 
                 if (startingStepIndex == 0 && testCase.preconditions() != null && !testCase.preconditions().isEmpty()) {
                     var preconditionActionAgent =
-                            getPreconditionActionAgent(preconditionCommonTools, userInteractionTools, new RetryState());
+                            getPreconditionActionAgent(context, preconditionCommonTools, userInteractionTools, new RetryState());
                     executePreconditions(context, preconditionActionAgent);
                     if (hasPreconditionFailures(context)) {
                         var failedPrecondition = context.getPreconditionExecutionHistory().getLast();
                         return getTestExecutionResultWithError(context, testExecutionStartTimestamp,
-                                failedPrecondition.getErrorMessage(), context.getVisualState().screenshot(),
+                                failedPrecondition.getErrorMessage(), context.getVisualState().compressedScreenshot(),
                                 systemInfo, screenRecorder.getCurrentRecordingPath(), logCapture.getLogs());
                     }
                 }
 
-                var testStepActionAgent = getTestStepActionAgent(testStepCommonTools, userInteractionTools, new RetryState());
-                executeTestSteps(context, testStepActionAgent, verificationTools, userInteractionTools, startingStepIndex);
+                var testStepActionAgent =
+                        getTestStepActionAgent(context, testStepCommonTools, userInteractionTools, prefetcher, new RetryState());
+                executeTestSteps(context, testStepActionAgent, verificationTools, userInteractionTools, prefetcher,
+                        startingStepIndex);
                 if (hasStepFailures(context)) {
                     var lastStep = context.getTestStepExecutionHistory().getLast();
                     if (lastStep.getExecutionStatus() == FAILURE) {
@@ -154,6 +170,9 @@ public class UiTestAgent {
                             logCapture.getLogs(), testExecutionStartTimestamp, now(), null);
                 }
             } finally {
+                if (prefetcher != null) {
+                    prefetcher.close();
+                }
                 LOG.info("Finished execution of the test case '{}'", testCase.name());
             }
         } catch (Exception e) {
@@ -161,12 +180,12 @@ public class UiTestAgent {
             if (systemInfo == null) {
                 systemInfo = getSystemInfo();
             }
-            return new UiTestExecutionResult("Unknown Test Case", ERROR, List.of(), List.of(), captureScreen(),
+            return new UiTestExecutionResult("Unknown Test Case", ERROR, List.of(), List.of(), captureCompressedScreen(),
                     systemInfo, screenRecorder.getCurrentRecordingPath(), logCapture.getLogs(), testExecutionStartTimestamp, now(),
                     "Unexpected error during test case execution: " + e.getMessage());
         } finally {
             screenRecorder.endScreenCapture();
-            logCapture.stop();
+            logCapture.close();
         }
     }
 
@@ -186,15 +205,21 @@ public class UiTestAgent {
                 if (!preconditionExecutionResult.isSuccess()) {
                     var errorMessage = "Failure while executing precondition '%s'. Root cause: %s"
                             .formatted(precondition, preconditionExecutionResult.getMessage());
-                    context.addPreconditionResult(new UiPreconditionResult(precondition, false, errorMessage, captureScreen(),
-                            executionStartTimestamp, now()));
+                    context.addPreconditionResult(new UiPreconditionResult(precondition, false, errorMessage,
+                            captureCompressedScreen(), executionStartTimestamp, now()));
                     return;
                 }
                 LOG.info("Precondition execution complete.");
 
                 LOG.info("Verifying if precondition was successfully executed.");
+                // On retries the screen is verified as soon as it changes, or as it is once the retry delay is over, because
+                // small changes might not be detected
+                AtomicReference<BufferedImage> lastVerifiedScreenshot = new AtomicReference<>();
                 var verificationExecutionResult = preconditionVerificationAgent.executeWithRetry(() -> {
-                    var screenshot = captureScreen();
+                    var previousScreenshot = lastVerifiedScreenshot.get();
+                    var screenshot = previousScreenshot == null ? captureScreen() :
+                            awaitScreenChange(previousScreenshot, RETRY_POLICY.delayMillis()).orElseGet(UiCommonUtils::captureScreen);
+                    lastVerifiedScreenshot.set(screenshot);
                     context.setVisualState(new VisualState(screenshot));
                     return preconditionVerificationAgent.verify(precondition, context.getSharedData().toString(),
                             singleImageContent(screenshot));
@@ -205,7 +230,7 @@ public class UiTestAgent {
                     var errorMessage = "Error while verifying precondition '%s'. Root cause: %s"
                             .formatted(precondition, verificationExecutionResult.getMessage());
                     context.addPreconditionResult(new UiPreconditionResult(precondition, false, errorMessage,
-                            context.getVisualState().screenshot(), executionStartTimestamp, now()));
+                            context.getVisualState().compressedScreenshot(), executionStartTimestamp, now()));
                     return;
                 }
 
@@ -213,13 +238,13 @@ public class UiTestAgent {
                 if (verificationResult == null) {
                     var errorMessage = "Precondition verification failed. Got no verification result from the model.";
                     context.addPreconditionResult(new UiPreconditionResult(precondition, false, errorMessage,
-                            context.getVisualState().screenshot(), executionStartTimestamp, now()));
+                            context.getVisualState().compressedScreenshot(), executionStartTimestamp, now()));
                     return;
                 }
                 if (!verificationResult.success()) {
                     var errorMessage = "Precondition verification failed. %s".formatted(verificationResult.message());
                     context.addPreconditionResult(new UiPreconditionResult(precondition, false, errorMessage,
-                            context.getVisualState().screenshot(), executionStartTimestamp, now()));
+                            context.getVisualState().compressedScreenshot(), executionStartTimestamp, now()));
                     return;
                 }
                 context.addPreconditionResult(
@@ -232,11 +257,19 @@ public class UiTestAgent {
 
     private static void executeTestSteps(UiTestExecutionContext context, UiTestStepActionAgent uiTestStepActionAgent,
                                          VerificationTools verificationTools,
-                                         CommonUserInteractionTools userInteractionTools, int startingStepIndex) {
+                                         CommonUserInteractionTools userInteractionTools,
+                                         @Nullable UiElementPrefetcher prefetcher, int startingStepIndex) {
         var testStepVerificationAgent = getTestStepVerificationAgent(verificationTools, userInteractionTools, new RetryState());
         var testSteps = context.getTestCase().testSteps();
         for (int i = startingStepIndex; i < testSteps.size(); i++) {
             TestStep testStep = testSteps.get(i);
+            if (prefetcher != null) {
+                // The next step's elements are being fetched while the current step is executed
+                prefetcher.prefetch(testStep);
+                if (i + 1 < testSteps.size()) {
+                    prefetcher.prefetch(testSteps.get(i + 1));
+                }
+            }
             var actionInstruction = testStep.stepDescription();
             var testData = ofNullable(testStep.testData()).map(Object::toString).orElse("");
             try {
@@ -251,7 +284,7 @@ public class UiTestAgent {
                     var message = "There was an error while executing test step action '%s'. Please see agent logs for details"
                             .formatted(actionInstruction);
                     addFailedTestStep(context, testStep, message, null, executionStartTimestamp, now(),
-                            captureScreen(), TestStepResultStatus.ERROR);
+                            captureCompressedScreen(), TestStepResultStatus.ERROR);
                     return;
                 }
                 LOG.info("Action execution complete.");
@@ -260,7 +293,7 @@ public class UiTestAgent {
                 if (isNotBlank(verificationInstruction)) {
                     LOG.info("Verifying that '{}'", verificationInstruction);
                     String testDataString = testStep.testData() == null ? null : join(", ", testStep.testData());
-                    sleepMillis(ACTION_VERIFICATION_DELAY_MILLIS);
+                    awaitVisualStability(ACTION_VERIFICATION_DELAY_MILLIS);
                     var agentResult =
                             (UiOperationExecutionResult<VerificationExecutionResult>) testStepVerificationAgent.executeAndGetResult(() ->
                                     testStepVerificationAgent.verify(verificationInstruction, actionInstruction, testDataString,
@@ -271,7 +304,7 @@ public class UiTestAgent {
                         var message = "There was an error while verifying that '%s'. Please see agent logs for details"
                                 .formatted(verificationInstruction);
                         addFailedTestStep(context, testStep, message, null, executionStartTimestamp, now(),
-                                captureScreen(), TestStepResultStatus.ERROR);
+                                captureCompressedScreen(), TestStepResultStatus.ERROR);
                         return;
                     }
 
@@ -285,7 +318,7 @@ public class UiTestAgent {
                         var generalMessage = "Verification failed. %s".formatted(verificationResult.message());
                         LOG.warn("Interrupting test case execution because the verification failed. {}", verificationResult.message());
                         addFailedTestStep(context, testStep, generalMessage, verificationResult.message(), executionStartTimestamp, now(),
-                                context.getVisualState().screenshot(), FAILURE);
+                                context.getVisualState().compressedScreenshot(), FAILURE);
                         return;
                     } else {
                         LOG.info("Verification succeeded.");
@@ -298,7 +331,7 @@ public class UiTestAgent {
                 }
             } catch (Exception e) {
                 LOG.error("Unexpected error while executing the test step: '{}'", testStep.stepDescription(), e);
-                addFailedTestStep(context, testStep, e.getMessage(), null, now(), now(), captureScreen(), TestStepResultStatus.ERROR);
+                addFailedTestStep(context, testStep, e.getMessage(), null, now(), now(), captureCompressedScreen(), TestStepResultStatus.ERROR);
                 return;
             }
         }
@@ -370,8 +403,10 @@ public class UiTestAgent {
         return loadSystemPrompt("test_step/verifier", getTestStepVerificationAgentPromptVersion(), fileName);
     }
 
-    private static UiTestStepActionAgent getTestStepActionAgent(CommonTools commonTools,
+    private static UiTestStepActionAgent getTestStepActionAgent(UiTestExecutionContext context,
+                                                                CommonTools commonTools,
                                                                 CommonUserInteractionTools userInteractionTools,
+                                                                @Nullable UiElementPrefetcher prefetcher,
                                                                 RetryState retryState) {
         var testStepActionAgentModel = getModel(getTestStepActionAgentModelName(),
                 getTestStepActionAgentModelProvider());
@@ -388,7 +423,8 @@ public class UiTestAgent {
                 .toolExecutionErrorHandler(new UiToolErrorHandler(UiTestStepActionAgent.RETRY_POLICY, retryState))
                 .maxSequentialToolsInvocations(getEffectiveToolCallsBudget());
 
-        List<Object> tools = new ArrayList<>(List.of(new MouseTools(), new KeyboardTools(), new ElementLocatorTools(), commonTools));
+        List<Object> tools = new ArrayList<>(List.of(new MouseTools(), new KeyboardTools(),
+                new ElementLocatorTools(context, prefetcher), commonTools));
         if (userInteractionTools != null) {
             tools.add(userInteractionTools);
         }
@@ -420,7 +456,8 @@ public class UiTestAgent {
                 .build();
     }
 
-    private static UiPreconditionActionAgent getPreconditionActionAgent(CommonTools commonTools,
+    private static UiPreconditionActionAgent getPreconditionActionAgent(UiTestExecutionContext context,
+                                                                        CommonTools commonTools,
                                                                         CommonUserInteractionTools userInteractionTools,
                                                                         RetryState retryState) {
         var preconditionAgentModel = getModel(getPreconditionActionAgentModelName(),
@@ -432,7 +469,8 @@ public class UiTestAgent {
                 .systemMessageProvider(_ -> preconditionAgentPrompt)
                 .toolExecutionErrorHandler(new UiToolErrorHandler(PreconditionActionAgent.RETRY_POLICY, retryState));
 
-        List<Object> tools = new ArrayList<>(List.of(new MouseTools(), new KeyboardTools(), new ElementLocatorTools(), commonTools));
+        List<Object> tools = new ArrayList<>(List.of(new MouseTools(), new KeyboardTools(),
+                new ElementLocatorTools(context, null), commonTools));
         if (userInteractionTools != null) {
             tools.add(userInteractionTools);
         }
@@ -464,7 +502,7 @@ public class UiTestAgent {
     private static TestExecutionResult getFailedTestExecutionResult(TestExecutionContext context,
                                                                     Instant testExecutionStartTimestamp, String errorMessage,
                                                                     SystemInfo systemInfo, String videoPath,
-                                                                    List<String> logs) {
+                                                                    CapturedLogs logs) {
         LOG.error(errorMessage);
         return new UiTestExecutionResult(context.getTestCase().name(), FAILED, context.getPreconditionExecutionHistory(),
                 context.getTestStepExecutionHistory(), null, systemInfo, videoPath, logs, testExecutionStartTimestamp, now(),
@@ -474,8 +512,8 @@ public class UiTestAgent {
     @NotNull
     private static TestExecutionResult getTestExecutionResultWithError(TestExecutionContext context,
                                                                        Instant testExecutionStartTimestamp, String errorMessage,
-                                                                       BufferedImage screenshot, SystemInfo systemInfo, String videoPath,
-                                                                       List<String> logs) {
+                                                                       CompressedScreenshot screenshot, SystemInfo systemInfo, String videoPath,
+                                                                       CapturedLogs logs) {
         LOG.error(errorMessage);
         return new UiTestExecutionResult(context.getTestCase().name(), ERROR, context.getPreconditionExecutionHistory(),
                 context.getTestStepExecutionHistory(), screenshot, systemInfo, videoPath, logs, testExecutionStartTimestamp, now(),
@@ -489,12 +527,16 @@ public class UiTestAgent {
             String actualResult,
             Instant executionStartTimestamp,
             Instant executionEndTimestamp,
-            BufferedImage screenshot,
+            CompressedScreenshot screenshot,
             TestStepResultStatus status) {
         context.addStepResult(new UiTestStepResult(testStep, status, errorMessage, actualResult, screenshot, executionStartTimestamp,
                 executionEndTimestamp));
     }
 
+    private static @Nullable CompressedScreenshot captureCompressedScreen() {
+        return CompressedScreenshot.of(captureScreen());
+    }
+
     private static class UiToolErrorHandler extends DefaultToolErrorHandler {
         private static final List<ErrorCategory> terminalErrors = List.of(NON_RETRYABLE_ERROR, TIMEOUT, TERMINATION_BY_USER);
 
@@ -17,6 +17,12 @@
 package org.tarik.ta;
 
 import org.tarik.ta.core.AgentConfig;
+import org.tarik.ta.core.utils.CommonUtils;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 
 public class UiTestAgentConfig extends AgentConfig {
 
@@ -95,6 +101,10 @@ public class UiTestAgentConfig extends AgentConfig {
             "SCREEN_RECORDING_FORMAT", "mp4", s -> s, false);
     private static final ConfigProperty<Integer> SCREEN_RECORDING_FRAME_RATE = loadPropertyAsInteger("recording.fps",
             "SCREEN_RECORDING_FRAME_RATE", "10", false);
+    private static final ConfigProperty<Integer> RECORDING_ENCODING_QUEUE_CAPACITY = loadPropertyAsInteger(
+            "recording.encoding.queue.capacity", "RECORDING_ENCODING_QUEUE_CAPACITY", "10", false);
+    private static final ConfigProperty<Integer> RECORDING_SEGMENT_DURATION_SECONDS = loadPropertyAsInteger(
+            "recording.segment.duration.seconds", "RECORDING_SEGMENT_DURATION_SECONDS", "0", false);
 
     public static boolean getScreenRecordingEnabled() {
         return SCREEN_RECORDING_ENABLED.value();
@@ -119,6 +129,175 @@ public class UiTestAgentConfig extends AgentConfig {
         return SCREEN_RECORDING_FRAME_RATE.value();
     }
 
+    public static int getRecordingEncodingQueueCapacity() {
+        if (RECORDING_ENCODING_QUEUE_CAPACITY.value() < 1) {
+            throw new IllegalArgumentException("Video recording encoding queue capacity must be a positive integer.");
+        }
+        return RECORDING_ENCODING_QUEUE_CAPACITY.value();
+    }
+
+    /**
+     * Returns the duration of a single video segment, 0 means the recording isn't segmented.
+     */
+    public static int getRecordingSegmentDurationSeconds() {
+        return Math.max(0, RECORDING_SEGMENT_DURATION_SECONDS.value());
+    }
+
+    // -----------------------------------------------------
+    // Screen Change Detection
+    private static final ConfigProperty<Integer> SCREEN_CHANGE_POLL_INTERVAL_MILLIS = loadPropertyAsInteger(
+            "screen.change.poll.interval.millis", "SCREEN_CHANGE_POLL_INTERVAL_MILLIS", "200", false);
+    private static final ConfigProperty<Integer> SCREEN_CHANGE_TILE_TOLERANCE = loadPropertyAsInteger(
+            "screen.change.tile.tolerance", "SCREEN_CHANGE_TILE_TOLERANCE", "12", false);
+
+    public static int getScreenChangePollIntervalMillis() {
+        return SCREEN_CHANGE_POLL_INTERVAL_MILLIS.value();
+    }
+
+    public static int getScreenChangeTileTolerance() {
+        return SCREEN_CHANGE_TILE_TOLERANCE.value();
+    }
+
+    private static final ConfigProperty<Integer> UI_SETTLE_SAMPLE_INTERVAL_MILLIS = loadPropertyAsInteger(
+            "ui.settle.sample.interval.millis", "UI_SETTLE_SAMPLE_INTERVAL_MILLIS", "100", false);
+    private static final ConfigProperty<Integer> UI_SETTLE_STABLE_FRAMES = loadPropertyAsInteger(
+            "ui.settle.stable.frames", "UI_SETTLE_STABLE_FRAMES", "3", false);
+    private static final ConfigProperty<Integer> UI_SETTLE_MAX_REACTION_WAIT_MILLIS = loadPropertyAsInteger(
+            "ui.settle.max.reaction.wait.millis", "UI_SETTLE_MAX_REACTION_WAIT_MILLIS", "300", false);
+    private static final ConfigProperty<Integer> UI_SETTLE_MAX_ACTION_WAIT_MILLIS = loadPropertyAsInteger(
+            "ui.settle.max.action.wait.millis", "UI_SETTLE_MAX_ACTION_WAIT_MILLIS", "1000", false);
+    private static final ConfigProperty<Integer> UI_SETTLE_MAX_BROWSER_OPEN_WAIT_MILLIS = loadPropertyAsInteger(
+            "ui.settle.max.browser.open.wait.millis", "UI_SETTLE_MAX_BROWSER_OPEN_WAIT_MILLIS", "10000", false);
+
+    public static int getUiSettleSampleIntervalMillis() {
+        return UI_SETTLE_SAMPLE_INTERVAL_MILLIS.value();
+    }
+
+    public static int getUiSettleStableFrames() {
+        if (UI_SETTLE_STABLE_FRAMES.value() < 2) {
+            throw new IllegalArgumentException("The amount of stable frames for UI settling must be at least 2.");
+        }
+        return UI_SETTLE_STABLE_FRAMES.value();
+    }
+
+    public static int getUiSettleMaxReactionWaitMillis() {
+        return UI_SETTLE_MAX_REACTION_WAIT_MILLIS.value();
+    }
+
+    public static int getUiSettleMaxActionWaitMillis() {
+        return UI_SETTLE_MAX_ACTION_WAIT_MILLIS.value();
+    }
+
+    public static int getUiSettleMaxBrowserOpenWaitMillis() {
+        return UI_SETTLE_MAX_BROWSER_OPEN_WAIT_MILLIS.value();
+    }
+
+    // -----------------------------------------------------
+    // RAG
+    private static final ConfigProperty<Integer> QUERY_EMBEDDING_CACHE_SIZE = loadPropertyAsInteger(
+            "retriever.query.embedding.cache.size", "QUERY_EMBEDDING_CACHE_SIZE", "500", false);
+
+    public static int getQueryEmbeddingCacheSize() {
+        return QUERY_EMBEDDING_CACHE_SIZE.value();
+    }
+
+    private static final ConfigProperty<Boolean> RETRIEVER_LOCAL_INDEX_ENABLED = loadProperty(
+            "retriever.local.index.enabled", "RETRIEVER_LOCAL_INDEX_ENABLED", "false", Boolean::parseBoolean, false);
+    private static final ConfigProperty<Integer> RETRIEVER_LOCAL_INDEX_MAX_ELEMENTS = loadPropertyAsInteger(
+            "retriever.local.index.max.elements", "RETRIEVER_LOCAL_INDEX_MAX_ELEMENTS", "50000", false);
+    private static final ConfigProperty<Integer> RETRIEVER_LOCAL_INDEX_RESYNC_INTERVAL_SECONDS = loadPropertyAsInteger(
+            "retriever.local.index.resync.interval.seconds", "RETRIEVER_LOCAL_INDEX_RESYNC_INTERVAL_SECONDS", "300", false);
+
+    public static boolean isRetrieverLocalIndexEnabled() {
+        return RETRIEVER_LOCAL_INDEX_ENABLED.value();
+    }
+
+    public static int getRetrieverLocalIndexMaxElements() {
+        return RETRIEVER_LOCAL_INDEX_MAX_ELEMENTS.value();
+    }
+
+    public static int getRetrieverLocalIndexResyncIntervalSeconds() {
+        return RETRIEVER_LOCAL_INDEX_RESYNC_INTERVAL_SECONDS.value();
+    }
+
+    private static final ConfigProperty<Boolean> RETRIEVER_HYBRID_SEARCH_ENABLED = loadProperty(
+            "retriever.hybrid.search.enabled", "RETRIEVER_HYBRID_SEARCH_ENABLED", "false", Boolean::parseBoolean, false);
+    private static final ConfigProperty<Integer> RETRIEVER_HYBRID_SEARCH_RANK_CONSTANT = loadPropertyAsInteger(
+            "retriever.hybrid.search.rank.constant", "RETRIEVER_HYBRID_SEARCH_RANK_CONSTANT", "60", false);
+    private static final ConfigProperty<Integer> RETRIEVER_HYBRID_SEARCH_MAX_ELEMENTS = loadPropertyAsInteger(
+            "retriever.hybrid.search.max.elements", "RETRIEVER_HYBRID_SEARCH_MAX_ELEMENTS", "50000", false);
+
+    public static boolean isRetrieverHybridSearchEnabled() {
+        return RETRIEVER_HYBRID_SEARCH_ENABLED.value();
+    }
+
+    public static int getRetrieverHybridSearchRankConstant() {
+        return RETRIEVER_HYBRID_SEARCH_RANK_CONSTANT.value();
+    }
+
+    public static int getRetrieverHybridSearchMaxElements() {
+        return RETRIEVER_HYBRID_SEARCH_MAX_ELEMENTS.value();
+    }
+
+    private static final ConfigProperty<String> ELEMENT_SCREENSHOT_STORE_DIR = loadProperty("element.screenshot.store.dir",
+            "ELEMENT_SCREENSHOT_STORE_DIR", "", String::trim, false);
+
+    public static Optional<Path> getElementScreenshotStoreDir() {
+        return Optional.ofNullable(ELEMENT_SCREENSHOT_STORE_DIR.value()).filter(CommonUtils::isNotBlank).map(Path::of);
+    }
+
+    private static final ConfigProperty<Integer> ELEMENT_MEMORY_TRANSFER_BATCH_SIZE = loadPropertyAsInteger(
+            "element.memory.transfer.batch.size", "ELEMENT_MEMORY_TRANSFER_BATCH_SIZE", "128", false);
+    private static final ConfigProperty<Integer> ELEMENT_MEMORY_TRANSFER_PARALLELISM = loadPropertyAsInteger(
+            "element.memory.transfer.parallelism", "ELEMENT_MEMORY_TRANSFER_PARALLELISM", "4", false);
+    private static final ConfigProperty<Integer> ELEMENT_MEMORY_EXPORT_MAX_ELEMENTS = loadPropertyAsInteger(
+            "element.memory.export.max.elements", "ELEMENT_MEMORY_EXPORT_MAX_ELEMENTS", "100000", false);
+
+    public static int getElementMemoryTransferBatchSize() {
+        return ELEMENT_MEMORY_TRANSFER_BATCH_SIZE.value();
+    }
+
+    public static int getElementMemoryTransferParallelism() {
+        return ELEMENT_MEMORY_TRANSFER_PARALLELISM.value();
+    }
+
+    public static int getElementMemoryExportMaxElements() {
+        return ELEMENT_MEMORY_EXPORT_MAX_ELEMENTS.value();
+    }
+
+    // -----------------------------------------------------
+    // Screen Capture
+    private static final ConfigProperty<Integer> SCREEN_FRAME_BUFFER_SIZE = loadPropertyAsInteger(
+            "screen.frame.buffer.size", "SCREEN_FRAME_BUFFER_SIZE", "3", false);
+    private static final ConfigProperty<Integer> SCREEN_FRAME_MAX_AGE_MILLIS = loadPropertyAsInteger(
+            "screen.frame.max.age.millis", "SCREEN_FRAME_MAX_AGE_MILLIS", "100", false);
+
+    public static int getScreenFrameBufferSize() {
+        if (SCREEN_FRAME_BUFFER_SIZE.value() < 1) {
+            throw new IllegalArgumentException("The screen frame buffer size must be at least 1.");
+        }
+        return SCREEN_FRAME_BUFFER_SIZE.value();
+    }
+
+    public static int getScreenFrameMaxAgeMillis() {
+        return SCREEN_FRAME_MAX_AGE_MILLIS.value();
+    }
+
+    // -----------------------------------------------------
+    // Screenshot Encoding
+    private static final ConfigProperty<String> SCREENSHOT_ENCODING_FORMAT = loadProperty(
+            "screenshot.encoding.format", "SCREENSHOT_ENCODING_FORMAT", "png", s -> s, false);
+    private static final ConfigProperty<Double> SCREENSHOT_ENCODING_QUALITY = loadPropertyAsDouble(
+            "screenshot.encoding.quality", "SCREENSHOT_ENCODING_QUALITY", "0.85", false);
+
+    public static String getScreenshotEncodingFormat() {
+        return SCREENSHOT_ENCODING_FORMAT.value();
+    }
+
+    public static double getScreenshotEncodingQuality() {
+        return SCREENSHOT_ENCODING_QUALITY.value();
+    }
+
     // -----------------------------------------------------
     // Element Config
     private static final ConfigProperty<String> ELEMENT_BOUNDING_BOX_COLOR_NAME = getRequiredProperty(
@@ -240,6 +419,37 @@ public class UiTestAgentConfig extends AgentConfig {
         return ALGORITHMIC_SEARCH_ENABLED.value();
     }
 
+    private static final ConfigProperty<Integer> ELEMENT_FEATURE_CACHE_SIZE = loadPropertyAsInteger(
+            "element.locator.feature.cache.size", "ELEMENT_FEATURE_CACHE_SIZE", "200", false);
+
+    public static int getElementFeatureCacheSize() {
+        return ELEMENT_FEATURE_CACHE_SIZE.value();
+    }
+
+    private static final ConfigProperty<List<Double>> TEMPLATE_MATCHING_SCALES = loadProperty(
+            "element.locator.template.matching.scales", "TEMPLATE_MATCHING_SCALES", "1.0",
+            value -> Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).map(Double::parseDouble).toList(),
+            false);
+
+    public static List<Double> getTemplateMatchingScales() {
+        return TEMPLATE_MATCHING_SCALES.value();
+    }
+
+    private static final ConfigProperty<Boolean> TEMPLATE_MATCHING_PYRAMID_ENABLED = loadProperty(
+            "element.locator.template.matching.pyramid.enabled", "TEMPLATE_MATCHING_PYRAMID_ENABLED", "true",
+            Boolean::parseBoolean, false);
+
+    public static boolean isTemplateMatchingPyramidEnabled() {
+        return TEMPLATE_MATCHING_PYRAMID_ENABLED.value();
+    }
+
+    private static final ConfigProperty<Boolean> TEMPLATE_MATCHING_REGION_OF_INTEREST_ONLY = loadProperty(
+            "element.locator.template.matching.roi.only", "TEMPLATE_MATCHING_ROI_ONLY", "false", Boolean::parseBoolean, false);
+
+    public static boolean isTemplateMatchingRegionOfInterestOnly() {
+        return TEMPLATE_MATCHING_REGION_OF_INTEREST_ONLY.value();
+    }
+
     private static final ConfigProperty<Boolean> SKIP_UI_ELEMENT_SELECTION_FOR_VISION = loadProperty(
             "element.locator.skip.model.selection.vision.only", "SKIP_UI_ELEMENT_SELECTION_FOR_VISION", "false",
             Boolean::parseBoolean, false);
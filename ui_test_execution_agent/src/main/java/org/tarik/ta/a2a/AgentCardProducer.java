@@ -33,7 +33,7 @@ public class AgentCardProducer {
                 .preferredTransport(TransportProtocol.JSONRPC.name())
                 .version("1.0.0")
                 .capabilities(new AgentCapabilities.Builder()
-                        .streaming(false)
+                        .streaming(true)
                         .pushNotifications(false)
                         .stateTransitionHistory(false)
                         .build())
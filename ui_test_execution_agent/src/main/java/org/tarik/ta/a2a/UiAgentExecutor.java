@@ -15,23 +15,43 @@
  */
 package org.tarik.ta.a2a;
 
+import io.a2a.spec.FileContent;
 import io.a2a.spec.FilePart;
 import io.a2a.spec.FileWithBytes;
 import io.a2a.spec.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.tarik.ta.UiTestAgent;
 import org.tarik.ta.core.a2a.AbstractAgentExecutor;
+import org.tarik.ta.core.a2a.ArtifactStore;
 import org.tarik.ta.core.dto.TestExecutionResult;
+import org.tarik.ta.core.dto.TestStepResult;
+import org.tarik.ta.core.utils.CapturedLogs;
 import org.tarik.ta.dto.UiTestExecutionResult;
 import org.tarik.ta.dto.UiTestStepResult;
+import org.tarik.ta.utils.CompressedScreenshot;
+import org.tarik.ta.utils.RecordingSegmentIndex;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
 import static java.util.Optional.ofNullable;
-import static org.tarik.ta.utils.ImageUtils.convertImageToBase64;
+import static org.tarik.ta.core.AgentConfig.getExecutionQueueCapacity;
+import static org.tarik.ta.core.dto.TestStepResult.TestStepResultStatus.SUCCESS;
+import static org.tarik.ta.utils.RecordingSegmentIndex.SEGMENT_FILE_EXTENSION;
+import static org.tarik.ta.utils.RecordingSegmentIndex.SEGMENT_MIME_TYPE;
 
 public class UiAgentExecutor extends AbstractAgentExecutor {
-    public static final String SCREENSHOT_FORMAT = "png";
+    private static final Logger LOG = LoggerFactory.getLogger(UiAgentExecutor.class);
+
+    public UiAgentExecutor() {
+        // The screen, mouse and keyboard are shared, so only one UI test case may be executed at a time
+        super(1, getExecutionQueueCapacity());
+    }
 
     @Override
     protected TestExecutionResult executeTestCase(String message) {
@@ -44,26 +64,88 @@ public class UiAgentExecutor extends AbstractAgentExecutor {
                 .filter(UiTestStepResult.class::isInstance)
                 .map(UiTestStepResult.class::cast)
                 .filter(r -> r.getScreenshot() != null)
-                .map(r -> new FileWithBytes(
-                        "image/" + SCREENSHOT_FORMAT,
-                        "screenshot_for_the_test_step_%s.%s".formatted(
-                                r.getTestStep().stepDescription().replaceAll("\\s", "_").toLowerCase(), SCREENSHOT_FORMAT),
-                        convertImageToBase64(r.getScreenshot(), SCREENSHOT_FORMAT)))
+                .map(r -> toScreenshotFile(r.getScreenshot(), "screenshot_for_the_test_step_%s".formatted(
+                        r.getTestStep().stepDescription().replaceAll("\\s", "_").toLowerCase())))
                 .map(FilePart::new)
                 .forEach(parts::add);
 
         if (result instanceof UiTestExecutionResult uiResult) {
             ofNullable(uiResult.getScreenshot())
-                    .ifPresent(screenshot -> parts.add(new FilePart(new FileWithBytes(
-                            "image/" + SCREENSHOT_FORMAT,
-                            "general_screenshot_for_the_test_case_%s.%s".formatted(
-                                    result.getTestCaseName().replaceAll("\\s", "_").toLowerCase(), SCREENSHOT_FORMAT),
-                            convertImageToBase64(screenshot, SCREENSHOT_FORMAT)))));
+                    .ifPresent(screenshot -> parts.add(new FilePart(toScreenshotFile(screenshot,
+                            "general_screenshot_for_the_test_case_%s".formatted(
+                                    result.getTestCaseName().replaceAll("\\s", "_").toLowerCase())))));
+            ofNullable(uiResult.getVideoPath())
+                    .flatMap(videoPath -> RecordingSegmentIndex.load(Path.of(videoPath)))
+                    .ifPresent(segmentIndex -> addFailedStepClips(result.getStepResults(), segmentIndex, parts));
+            ofNullable(uiResult.getVideoPath())
+                    .map(Path::of)
+                    .filter(Files::isRegularFile)
+                    .ifPresent(videoFile -> addVideoArtifact(videoFile, parts));
+        }
+    }
+
+    private static void addVideoArtifact(Path videoFile, List<Part<?>> parts) {
+        // Whole recordings are usually too large to be inlined, so they're shared only using the artifact store
+        ArtifactStore.getConfigured().ifPresent(artifactStore -> {
+            try {
+                var fileName = videoFile.getFileName().toString();
+                parts.add(new FilePart(artifactStore.store(videoFile, getVideoMimeType(fileName), fileName)));
+            } catch (IOException e) {
+                LOG.error("Couldn't store the screen recording {} as an artifact", videoFile, e);
+            }
+        });
+    }
+
+    private static String getVideoMimeType(String fileName) {
+        var extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+        return switch (extension) {
+            case "mp4" -> "video/mp4";
+            case "webm" -> "video/webm";
+            case "mkv" -> "video/x-matroska";
+            case "avi" -> "video/x-msvideo";
+            case SEGMENT_FILE_EXTENSION -> SEGMENT_MIME_TYPE;
+            default -> "application/octet-stream";
+        };
+    }
+
+    private static void addFailedStepClips(List<TestStepResult> stepResults, RecordingSegmentIndex segmentIndex,
+                                           List<Part<?>> parts) {
+        for (int i = 0; i < stepResults.size(); i++) {
+            var stepResult = stepResults.get(i);
+            var start = stepResult.getExecutionStartTimestamp();
+            var end = stepResult.getExecutionEndTimestamp();
+            if (stepResult.getExecutionStatus() == SUCCESS || start == null || end == null) {
+                continue;
+            }
+            var clipName = "video_clip_for_the_test_step_%d".formatted(i + 1);
+            segmentIndex.extractClip(start, end, clipName).ifPresent(clip -> {
+                try {
+                    parts.add(new FilePart(toFileContent(outputStream -> Files.copy(clip, outputStream), SEGMENT_MIME_TYPE,
+                            "%s.%s".formatted(clipName, SEGMENT_FILE_EXTENSION))));
+                } catch (IOException e) {
+                    LOG.error("Couldn't read the video clip {}", clip, e);
+                }
+            });
+        }
+    }
+
+    private static FileContent toScreenshotFile(CompressedScreenshot screenshot, String fileNameWithoutExtension) {
+        // Screenshots are kept encoded since their creation, so the stored bytes are used as they are
+        var encoding = screenshot.encoding();
+        var fileName = "%s.%s".formatted(fileNameWithoutExtension, screenshot.codec().fileExtension());
+        var artifactStore = ArtifactStore.getConfigured();
+        if (artifactStore.isPresent()) {
+            try {
+                return artifactStore.get().store(Base64.getDecoder().decode(encoding.base64Data()), encoding.mimeType(), fileName);
+            } catch (IOException e) {
+                LOG.error("Couldn't store the screenshot {} as an artifact, inlining it instead", fileName, e);
+            }
         }
+        return new FileWithBytes(encoding.mimeType(), fileName, encoding.base64Data());
     }
 
     @Override
-    protected Optional<List<String>> extractLogs(TestExecutionResult result) {
+    protected Optional<CapturedLogs> extractLogs(TestExecutionResult result) {
         return ofNullable(result.getLogs());
     }
 }
\ No newline at end of file
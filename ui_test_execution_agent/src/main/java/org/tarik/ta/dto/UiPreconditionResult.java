@@ -19,22 +19,22 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.tarik.ta.core.dto.PreconditionResult;
+import org.tarik.ta.utils.CompressedScreenshot;
 
-import java.awt.image.BufferedImage;
 import java.time.Instant;
 import java.util.Objects;
 
 public class UiPreconditionResult extends PreconditionResult {
-    private final @Nullable @JsonIgnore BufferedImage screenshot;
+    private final @Nullable @JsonIgnore CompressedScreenshot screenshot;
 
     public UiPreconditionResult(@NotNull String precondition, boolean success, @Nullable String errorMessage,
-            @Nullable BufferedImage screenshot,
+            @Nullable CompressedScreenshot screenshot,
             @Nullable Instant executionStartTimestamp, @Nullable Instant executionEndTimestamp) {
         super(precondition, success, errorMessage, executionStartTimestamp, executionEndTimestamp);
         this.screenshot = screenshot;
     }
 
-    public @Nullable BufferedImage getScreenshot() {
+    public @Nullable CompressedScreenshot getScreenshot() {
         return screenshot;
     }
 
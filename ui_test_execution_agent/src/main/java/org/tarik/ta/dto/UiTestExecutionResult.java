@@ -22,14 +22,15 @@ import org.tarik.ta.core.dto.PreconditionResult;
 import org.tarik.ta.core.dto.SystemInfo;
 import org.tarik.ta.core.dto.TestExecutionResult;
 import org.tarik.ta.core.dto.TestStepResult;
+import org.tarik.ta.core.utils.CapturedLogs;
+import org.tarik.ta.utils.CompressedScreenshot;
 
-import java.awt.image.BufferedImage;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 
 public class UiTestExecutionResult extends TestExecutionResult {
-    private final @Nullable @JsonIgnore BufferedImage screenshot;
+    private final @Nullable @JsonIgnore CompressedScreenshot screenshot;
     private final @Nullable String videoPath;
 
     public UiTestExecutionResult(
@@ -37,10 +38,10 @@ public class UiTestExecutionResult extends TestExecutionResult {
             @NotNull TestExecutionStatus testExecutionStatus,
             @NotNull List<PreconditionResult> preconditionResults,
             @NotNull List<TestStepResult> stepResults,
-            @Nullable BufferedImage screenshot,
+            @Nullable CompressedScreenshot screenshot,
             @Nullable SystemInfo systemInfo,
             @Nullable String videoPath,
-            @Nullable List<String> logs,
+            @Nullable CapturedLogs logs,
             @Nullable Instant executionStartTimestamp,
             @Nullable Instant executionEndTimestamp,
             @Nullable String generalErrorMessage) {
@@ -51,7 +52,7 @@ public class UiTestExecutionResult extends TestExecutionResult {
     }
 
     @Nullable
-    public BufferedImage getScreenshot() {
+    public CompressedScreenshot getScreenshot() {
         return screenshot;
     }
 
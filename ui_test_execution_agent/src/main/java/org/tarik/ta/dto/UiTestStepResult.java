@@ -20,27 +20,27 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.tarik.ta.core.dto.TestStep;
 import org.tarik.ta.core.dto.TestStepResult;
+import org.tarik.ta.utils.CompressedScreenshot;
 
-import java.awt.image.BufferedImage;
 import java.time.Instant;
 import java.util.Objects;
 
 public class UiTestStepResult extends TestStepResult {
-    private final @Nullable @JsonIgnore BufferedImage screenshot;
+    private final @Nullable @JsonIgnore CompressedScreenshot screenshot;
 
     public UiTestStepResult(
             @NotNull TestStep testStep,
             TestStepResultStatus executionStatus,
             @Nullable String errorMessage,
             @Nullable String actualResult,
-            @Nullable BufferedImage screenshot,
+            @Nullable CompressedScreenshot screenshot,
             @Nullable Instant executionStartTimestamp,
             @Nullable Instant executionEndTimestamp) {
         super(testStep, executionStatus, errorMessage, actualResult, executionStartTimestamp, executionEndTimestamp);
         this.screenshot = screenshot;
     }
 
-    public @Nullable BufferedImage getScreenshot() {
+    public @Nullable CompressedScreenshot getScreenshot() {
         return screenshot;
     }
 
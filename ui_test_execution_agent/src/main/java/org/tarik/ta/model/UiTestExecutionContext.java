@@ -18,11 +18,19 @@ package org.tarik.ta.model;
 import org.tarik.ta.core.model.TestExecutionContext;
 import org.tarik.ta.core.dto.TestCase;
 
+import java.awt.Rectangle;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Holds the context and state of the current UI test execution, including visual state.
  */
 public class UiTestExecutionContext extends TestExecutionContext {
     private VisualState visualState;
+    // Template matching prefers the matches found close to the location where an element was found last time in this execution
+    private final Map<UUID, Rectangle> lastKnownElementLocations = new ConcurrentHashMap<>();
 
     public UiTestExecutionContext(TestCase testCase, VisualState visualState) {
         super(testCase);
@@ -36,4 +44,12 @@ public class UiTestExecutionContext extends TestExecutionContext {
     public synchronized void setVisualState(VisualState visualState) {
         this.visualState = visualState;
     }
+
+    public Optional<Rectangle> getLastKnownElementLocation(UUID elementId) {
+        return Optional.ofNullable(lastKnownElementLocations.get(elementId));
+    }
+
+    public void setLastKnownElementLocation(UUID elementId, Rectangle location) {
+        lastKnownElementLocations.put(elementId, new Rectangle(location));
+    }
 }
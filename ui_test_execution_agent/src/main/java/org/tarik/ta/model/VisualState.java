@@ -15,12 +15,26 @@
  */
 package org.tarik.ta.model;
 
+import org.jetbrains.annotations.Nullable;
+import org.tarik.ta.utils.CompressedScreenshot;
+
 import java.awt.image.BufferedImage;
 
 /**
- * Represents the visual state of the application at a specific point in time.
+ * Represents the visual state of the application at a specific point in time. The screenshot is kept compressed, because the state
+ * lives as long as the test case execution does.
  *
- * @param screenshot The screenshot of the application.
+ * @param compressedScreenshot The compressed screenshot of the application.
  */
-public record VisualState(BufferedImage screenshot) {
+public record VisualState(@Nullable CompressedScreenshot compressedScreenshot) {
+    public VisualState(@Nullable BufferedImage screenshot) {
+        this(CompressedScreenshot.of(screenshot));
+    }
+
+    /**
+     * Returns the decoded screenshot of the application, if available.
+     */
+    public @Nullable BufferedImage screenshot() {
+        return compressedScreenshot == null ? null : compressedScreenshot.toBufferedImage();
+    }
 }
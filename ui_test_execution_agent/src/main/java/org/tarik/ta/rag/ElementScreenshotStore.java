@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.UiTestAgentConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+/**
+ * Content-addressed store of the UI element screenshots. The vector DB keeps only the hash of the screenshot in the element
+ * metadata, so that the search results stay small, and the image itself is loaded from this store only when it's needed. The
+ * screenshots are never modified or deleted: an updated screenshot has a different hash and is stored as a new file.
+ */
+public final class ElementScreenshotStore {
+    private static final Logger LOG = LoggerFactory.getLogger(ElementScreenshotStore.class);
+    private static final String INCOMING_FOLDER_NAME = ".incoming";
+    private static final Optional<ElementScreenshotStore> CONFIGURED_INSTANCE = UiTestAgentConfig.getElementScreenshotStoreDir()
+            .map(ElementScreenshotStore::new);
+
+    private final Path directory;
+    private final Path incomingDirectory;
+
+    ElementScreenshotStore(@NotNull Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.incomingDirectory = this.directory.resolve(INCOMING_FOLDER_NAME);
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't create the element screenshot store directory %s".formatted(directory), e);
+        }
+    }
+
+    /**
+     * @return the screenshot store if its directory is configured, otherwise the screenshots are kept in the element metadata
+     */
+    public static Optional<ElementScreenshotStore> getConfigured() {
+        return CONFIGURED_INSTANCE;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Saves the screenshot content under the provided hash, unless a screenshot with the same hash is already stored.
+     */
+    public void save(@NotNull String contentHash, @NotNull String fileExtension, byte @NotNull [] content) throws IOException {
+        var file = resolve(contentHash, fileExtension);
+        if (Files.exists(file)) {
+            return;
+        }
+        Files.createDirectories(incomingDirectory);
+        var incomingFile = Files.createTempFile(incomingDirectory, "screenshot_", ".tmp");
+        try {
+            Files.write(incomingFile, content);
+            Files.move(incomingFile, file, ATOMIC_MOVE);
+            LOG.debug("Stored element screenshot {}", file.getFileName());
+        } finally {
+            Files.deleteIfExists(incomingFile);
+        }
+    }
+
+    /**
+     * @return the screenshot content or an empty optional if no screenshot with the provided hash is stored
+     */
+    public Optional<byte[]> load(@NotNull String contentHash, @NotNull String fileExtension) {
+        var file = resolve(contentHash, fileExtension);
+        try {
+            return Optional.of(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            LOG.warn("Element screenshot {} is missing in {}", file.getFileName(), directory);
+            return Optional.empty();
+        } catch (IOException e) {
+            LOG.error("Couldn't read the element screenshot {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private Path resolve(String contentHash, String fileExtension) {
+        // Both values come from the element metadata, so they must not be able to point outside the store
+        checkArgument(contentHash.matches("[0-9a-f]{64}"), "Invalid screenshot hash: %s", contentHash);
+        checkArgument(fileExtension.matches("[A-Za-z0-9]{1,10}"), "Invalid screenshot file extension: %s", fileExtension);
+        return directory.resolve("%s.%s".formatted(contentHash, fileExtension.toLowerCase()));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import org.jetbrains.annotations.NotNull;
+import org.tarik.ta.rag.model.UiElement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.lang.Math.log;
+
+/**
+ * In-process BM25 index over the textual information of the UI elements: name, description, anchors and parent element summary.
+ * Words are indexed together with their character trigrams, so that inflected forms and minor spelling differences still match.
+ * Name terms are weighted higher than the terms of the other fields, because the name is what the element queries refer to.
+ * <p>
+ * The index complements the vector search which relies on the name embedding only: if several stored elements have a similar
+ * name, the words of the query describing the element's location or parent usually decide which of them is meant.
+ */
+final class LexicalUiElementIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_TERM_WEIGHT = 3;
+    private static final int MIN_WORD_LENGTH_FOR_TRIGRAMS = 4;
+    // Trigrams have their own namespace, so that they never match a three-letter word
+    private static final String TRIGRAM_PREFIX = "#";
+
+    private final Map<UUID, IndexedElement> elements = new HashMap<>();
+    private final Map<String, Integer> documentFrequencies = new HashMap<>();
+    private long totalDocumentLength;
+
+    static LexicalUiElementIndex loadFrom(@NotNull Collection<UiElement> uiElements) {
+        var index = new LexicalUiElementIndex();
+        uiElements.forEach(index::add);
+        return index;
+    }
+
+    synchronized void add(@NotNull UiElement element) {
+        remove(element.uuid());
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        tokenize(element.name()).forEach(term -> termFrequencies.merge(term, NAME_TERM_WEIGHT, Integer::sum));
+        for (var text : List.of(element.description(), element.locationDetails(), element.parentElementSummary())) {
+            tokenize(text).forEach(term -> termFrequencies.merge(term, 1, Integer::sum));
+        }
+        int length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+        elements.put(element.uuid(), new IndexedElement(termFrequencies, length));
+        termFrequencies.keySet().forEach(term -> documentFrequencies.merge(term, 1, Integer::sum));
+        totalDocumentLength += length;
+    }
+
+    synchronized void remove(@NotNull UUID elementId) {
+        var removed = elements.remove(elementId);
+        if (removed != null) {
+            removed.termFrequencies().keySet().forEach(term -> documentFrequencies.computeIfPresent(term,
+                    (_, frequency) -> frequency > 1 ? frequency - 1 : null));
+            totalDocumentLength -= removed.length();
+        }
+    }
+
+    synchronized int size() {
+        return elements.size();
+    }
+
+    /**
+     * Returns the IDs of the candidate elements matching the query, the most relevant first. The candidates are scored using the
+     * term statistics of the whole index, so that a term which is common in the whole collection doesn't decide between them just
+     * because it's rare among the candidates. The candidates which don't match the query or which aren't indexed are omitted.
+     */
+    synchronized List<UUID> rank(@NotNull String query, @NotNull Collection<UUID> candidateIds) {
+        var queryTerms = tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty() || elements.isEmpty()) {
+            return List.of();
+        }
+        double averageLength = (double) totalDocumentLength / elements.size();
+        List<Map.Entry<UUID, Double>> scores = new ArrayList<>();
+        for (var candidateId : new LinkedHashSet<>(candidateIds)) {
+            var element = elements.get(candidateId);
+            double score = element == null ? 0 : score(queryTerms, element, averageLength);
+            if (score > 0) {
+                scores.add(Map.entry(candidateId, score));
+            }
+        }
+        return scores.stream()
+                .sorted(Map.Entry.<UUID, Double>comparingByValue(Comparator.reverseOrder()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private double score(List<String> queryTerms, IndexedElement element, double averageLength) {
+        double score = 0;
+        for (var term : queryTerms) {
+            int termFrequency = element.termFrequencies().getOrDefault(term, 0);
+            if (termFrequency == 0) {
+                continue;
+            }
+            int documentFrequency = documentFrequencies.getOrDefault(term, 0);
+            double inverseDocumentFrequency = log(1 + (elements.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            double lengthNormalization = K1 * (1 - B + B * element.length() / averageLength);
+            score += inverseDocumentFrequency * termFrequency * (K1 + 1) / (termFrequency + lengthNormalization);
+        }
+        return score;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (var word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            terms.add(word);
+            if (word.length() >= MIN_WORD_LENGTH_FOR_TRIGRAMS) {
+                for (int i = 0; i + 3 <= word.length(); i++) {
+                    terms.add(TRIGRAM_PREFIX + word.substring(i, i + 3));
+                }
+            }
+        }
+        return terms;
+    }
+
+    private record IndexedElement(Map<String, Integer> termFrequencies, int length) {
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static dev.langchain4j.store.embedding.RelevanceScore.fromCosineSimilarity;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * In-process mirror of the UI element collection which answers similarity searches without a round trip to the vector DB. The
+ * collection is small enough to be searched exhaustively: vectors are normalized once when they're added, so a search is a single
+ * dot product per element. Scores are relevance scores derived from the cosine similarity, the same way the remote stores report
+ * them, so the configured minimum scores keep their meaning.
+ * <p>
+ * The remote DB remains the source of truth: the index is bulk-loaded from it and is then updated only after the corresponding
+ * remote write has succeeded.
+ */
+final class LocalUiElementIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalUiElementIndex.class);
+
+    private final Map<String, IndexEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the provided search matches into a new index. The matches for which the store hasn't returned the embedding are
+     * embedded again using the provided model.
+     */
+    static LocalUiElementIndex loadFrom(@NotNull List<EmbeddingMatch<TextSegment>> matches,
+                                        @NotNull EmbeddingModel embeddingModel) {
+        long start = nanoTime();
+        Map<String, Embedding> embeddings = new LinkedHashMap<>();
+        Map<String, TextSegment> segmentsWithoutEmbedding = new LinkedHashMap<>();
+        for (var match : matches) {
+            if (match.embedding() != null) {
+                embeddings.put(match.embeddingId(), match.embedding());
+            } else {
+                segmentsWithoutEmbedding.put(match.embeddingId(), match.embedded());
+            }
+        }
+        if (!segmentsWithoutEmbedding.isEmpty()) {
+            var missingEmbeddings = embeddingModel.embedAll(new ArrayList<>(segmentsWithoutEmbedding.values())).content();
+            var ids = new ArrayList<>(segmentsWithoutEmbedding.keySet());
+            for (int i = 0; i < ids.size(); i++) {
+                embeddings.put(ids.get(i), missingEmbeddings.get(i));
+            }
+        }
+
+        var index = new LocalUiElementIndex();
+        for (var match : matches) {
+            index.add(match.embeddingId(), embeddings.get(match.embeddingId()), match.embedded());
+        }
+        LOG.info("Loaded {} UI elements into the local index in {} ms", index.size(), NANOSECONDS.toMillis(nanoTime() - start));
+        return index;
+    }
+
+    void add(@NotNull String id, @NotNull Embedding embedding, @NotNull TextSegment segment) {
+        entries.put(id, new IndexEntry(id, normalize(embedding.vector()), segment));
+    }
+
+    void addAll(@NotNull List<String> ids, @NotNull List<Embedding> embeddings, @NotNull List<TextSegment> segments) {
+        checkArgument(ids.size() == embeddings.size() && ids.size() == segments.size(),
+                "IDs, embeddings and segments must have the same size");
+        for (int i = 0; i < ids.size(); i++) {
+            add(ids.get(i), embeddings.get(i), segments.get(i));
+        }
+    }
+
+    void remove(@NotNull String id) {
+        entries.remove(id);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns at most {@code maxResults} elements whose relevance score is at least {@code minScore}, the most relevant first.
+     */
+    List<EmbeddingMatch<TextSegment>> search(@NotNull Embedding queryEmbedding, int maxResults, double minScore) {
+        if (maxResults <= 0) {
+            return List.of();
+        }
+        var query = normalize(queryEmbedding.vector());
+        // Min-heap which keeps the best matches found so far
+        var bestMatches = new PriorityQueue<ScoredEntry>(maxResults + 1, Comparator.comparingDouble(ScoredEntry::score));
+        for (var entry : entries.values()) {
+            if (entry.vector().length != query.length) {
+                continue;
+            }
+            double score = fromCosineSimilarity(dotProduct(query, entry.vector()));
+            if (score >= minScore) {
+                bestMatches.add(new ScoredEntry(entry, score));
+                if (bestMatches.size() > maxResults) {
+                    bestMatches.poll();
+                }
+            }
+        }
+        return bestMatches.stream()
+                .sorted(Comparator.comparingDouble(ScoredEntry::score).reversed())
+                .map(scored -> new EmbeddingMatch<>(scored.score(), scored.entry().id(),
+                        Embedding.from(scored.entry().vector()), scored.entry().segment()))
+                .toList();
+    }
+
+    private static double dotProduct(float[] first, float[] second) {
+        double result = 0;
+        for (int i = 0; i < first.length; i++) {
+            result += first[i] * second[i];
+        }
+        return result;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dotProduct(vector, vector));
+        var result = new float[vector.length];
+        if (norm == 0) {
+            return result;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = (float) (vector[i] / norm);
+        }
+        return result;
+    }
+
+    private record IndexEntry(String id, float[] vector, TextSegment segment) {
+    }
+
+    private record ScoredEntry(IndexEntry entry, double score) {
+    }
+}
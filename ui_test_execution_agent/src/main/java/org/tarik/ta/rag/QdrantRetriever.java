@@ -15,32 +15,121 @@
  */
 package org.tarik.ta.rag;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 import dev.langchain4j.store.embedding.qdrant.QdrantEmbeddingStore;
 import io.qdrant.client.QdrantClient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.qdrant.client.QdrantGrpcClient;
 import io.qdrant.client.grpc.Collections.Distance;
 import io.qdrant.client.grpc.Collections.VectorParams;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points.RetrievedPoint;
+import io.qdrant.client.grpc.Points.ScrollPoints;
+import org.tarik.ta.rag.model.UiElement;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.qdrant.client.WithPayloadSelectorFactory.enable;
 import static org.tarik.ta.core.utils.CommonUtils.isNotBlank;
 
 public class QdrantRetriever extends UiElementRetriever {
     private static final Logger LOG = LoggerFactory.getLogger(QdrantRetriever.class);
+    private static final String TEXT_SEGMENT_PAYLOAD_KEY = "text_segment";
+
+    private final QdrantClient client;
 
     public QdrantRetriever(String url, String apiKey) {
-        super(createEmbeddingStore(url, apiKey));
+        this(createClient(url, apiKey));
+    }
+
+    private QdrantRetriever(QdrantClient client) {
+        super(createEmbeddingStore(client));
+        this.client = client;
+    }
+
+    /**
+     * Scrolls through the whole collection, so that only one page of elements is held in memory at a time.
+     */
+    @Override
+    public int forEachStoredElementPage(int pageSize, int maxElements, @NotNull ElementPageConsumer consumer) throws IOException {
+        checkArgument(pageSize > 0, "Page size must be positive, got %s", pageSize);
+        int readElements = 0;
+        ScrollPoints.Builder request = ScrollPoints.newBuilder()
+                .setCollectionName(COLLECTION_NAME)
+                .setWithPayload(enable(true));
+        while (readElements < maxElements) {
+            var response = getResult(client.scrollAsync(request.setLimit(Math.min(pageSize, maxElements - readElements)).build()));
+            var page = response.getResultList().stream()
+                    .map(QdrantRetriever::toUiElement)
+                    .toList();
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+                readElements += page.size();
+            }
+            if (!response.hasNextPageOffset()) {
+                return readElements;
+            }
+            request.setOffset(response.getNextPageOffset());
+        }
+        LOG.warn("The vector DB contains more than {} UI elements, only this amount of elements has been read.", maxElements);
+        return readElements;
+    }
+
+    private static UiElement toUiElement(RetrievedPoint point) {
+        Map<String, Object> metadata = new HashMap<>();
+        point.getPayloadMap().forEach((key, value) -> {
+            var metadataValue = toMetadataValue(value);
+            if (!key.equals(TEXT_SEGMENT_PAYLOAD_KEY) && metadataValue != null) {
+                metadata.put(key, metadataValue);
+            }
+        });
+        var text = point.getPayloadMap().get(TEXT_SEGMENT_PAYLOAD_KEY).getStringValue();
+        return UiElement.fromTextSegment(TextSegment.from(text, Metadata.from(metadata)));
+    }
+
+    private static @Nullable Object toMetadataValue(JsonWithInt.Value value) {
+        // The element metadata contains only strings and UUIDs, the latter being stored as strings as well
+        return switch (value.getKindCase()) {
+            case STRING_VALUE -> value.getStringValue();
+            case INTEGER_VALUE -> value.getIntegerValue();
+            case DOUBLE_VALUE -> value.getDoubleValue();
+            default -> null;
+        };
+    }
+
+    private static <T> T getResult(ListenableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the UI elements from Qdrant", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Couldn't read the UI elements from Qdrant", e.getCause());
+        }
     }
 
-    private static EmbeddingStore<TextSegment> createEmbeddingStore(String urlStr, String apiKey) {
+    private static EmbeddingStore<TextSegment> createEmbeddingStore(QdrantClient client) {
+        return QdrantEmbeddingStore.builder()
+                .collectionName(COLLECTION_NAME)
+                .client(client)
+                .payloadTextKey(TEXT_SEGMENT_PAYLOAD_KEY)
+                .build();
+    }
+
+    private static QdrantClient createClient(String urlStr, String apiKey) {
         checkArgument(isNotBlank(urlStr));
         try {
             var fullUrl = urlStr.contains("://") ? urlStr : "http://" + urlStr;
@@ -55,11 +144,7 @@ public class QdrantRetriever extends UiElementRetriever {
             }
             var client = new QdrantClient(clientBuilder.build());
             ensureCollectionExists(client);
-
-            return QdrantEmbeddingStore.builder()
-                    .collectionName(COLLECTION_NAME)
-                    .client(client)
-                    .build();
+            return client;
         } catch (RuntimeException e) {
             String errorMessage = String.format("Failed to connect to QdrantDB at URL: %s. Root cause: ", urlStr);
             LOG.error(errorMessage, e);
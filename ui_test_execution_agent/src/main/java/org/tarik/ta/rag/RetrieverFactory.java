@@ -15,12 +15,22 @@
  */
 package org.tarik.ta.rag;
 
+import com.google.common.base.Supplier;
+
+import static com.google.common.base.Suppliers.memoize;
 import static org.tarik.ta.core.AgentConfig.getVectorDbToken;
 import static org.tarik.ta.core.AgentConfig.getVectorDbProvider;
 import static org.tarik.ta.core.AgentConfig.getVectorDbUrl;
 
 public class RetrieverFactory {
+    // The retriever is shared, so that the vector DB client and the local index (if enabled) are created only once
+    private static final Supplier<UiElementRetriever> RETRIEVER = memoize(RetrieverFactory::createUiElementRetriever);
+
     public static UiElementRetriever getUiElementRetriever() {
+        return RETRIEVER.get();
+    }
+
+    private static UiElementRetriever createUiElementRetriever() {
         return switch (getVectorDbProvider()) {
             case CHROMA -> createChromaRetriever();
             case QDRANT -> createQdrantRetriever();
@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.rag.model.UiElement.Screenshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.tarik.ta.UiTestAgentConfig.getElementMemoryExportMaxElements;
+import static org.tarik.ta.UiTestAgentConfig.getElementMemoryTransferBatchSize;
+import static org.tarik.ta.UiTestAgentConfig.getElementMemoryTransferParallelism;
+import static org.tarik.ta.core.utils.CommonUtils.isBlank;
+
+/**
+ * Exports the UI element memory into a folder and imports it from there, e.g. in order to seed a new environment or to migrate
+ * the elements to another vector DB provider. The folder contains {@value #ELEMENTS_FILE_NAME} with one element per line and the
+ * {@value #SCREENSHOTS_FOLDER_NAME} folder with the element screenshots named after the hash of their content. Both files are
+ * processed in a streaming manner: the export writes the elements page by page as they're read from the vector DB (see
+ * {@link UiElementRetriever#forEachStoredElementPage}), and the import reads them line by line.
+ * <p>
+ * During the import the elements are embedded and written in batches, several batches being processed in parallel. The element
+ * IDs are preserved and the elements already stored with the same IDs are replaced, so importing the same folder again doesn't
+ * duplicate them.
+ * <p>
+ * Usage: {@code java -cp <agent jar> org.tarik.ta.rag.UiElementMemoryTransfer export|import <folder>}. The vector DB is the one
+ * configured for the agent.
+ */
+public final class UiElementMemoryTransfer {
+    private static final Logger LOG = LoggerFactory.getLogger(UiElementMemoryTransfer.class);
+    static final String ELEMENTS_FILE_NAME = "elements.ndjson";
+    static final String SCREENSHOTS_FOLDER_NAME = "screenshots";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectWriter ELEMENT_WRITER = OBJECT_MAPPER.writerFor(ElementEntry.class);
+    private static final ObjectReader ELEMENT_READER = OBJECT_MAPPER.readerFor(ElementEntry.class);
+
+    private final UiElementRetriever retriever;
+    private final int batchSize;
+    private final int parallelism;
+
+    UiElementMemoryTransfer(@NotNull UiElementRetriever retriever, int batchSize, int parallelism) {
+        checkArgument(batchSize > 0, "Batch size must be positive, got %s", batchSize);
+        checkArgument(parallelism > 0, "Parallelism must be positive, got %s", parallelism);
+        this.retriever = retriever;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    static void main(String[] args) throws IOException, InterruptedException {
+        checkArgument(args.length == 2 && (args[0].equals("export") || args[0].equals("import")),
+                "Usage: UiElementMemoryTransfer export|import <folder>");
+        var transfer = new UiElementMemoryTransfer(RetrieverFactory.getUiElementRetriever(), getElementMemoryTransferBatchSize(),
+                getElementMemoryTransferParallelism());
+        var folder = Path.of(args[1]);
+        if (args[0].equals("export")) {
+            transfer.exportTo(folder, getElementMemoryExportMaxElements());
+        } else {
+            transfer.importFrom(folder);
+        }
+    }
+
+    /**
+     * Exports up to {@code maxElements} elements into the provided folder.
+     *
+     * @return the amount of exported elements
+     */
+    public int exportTo(@NotNull Path folder, int maxElements) throws IOException {
+        long start = nanoTime();
+        var screenshotStore = new ElementScreenshotStore(folder.resolve(SCREENSHOTS_FOLDER_NAME));
+        int exportedElements;
+        try (var writer = Files.newBufferedWriter(folder.resolve(ELEMENTS_FILE_NAME))) {
+            exportedElements = retriever.forEachStoredElementPage(batchSize, maxElements, page -> {
+                for (var element : page) {
+                    var screenshotReference = exportScreenshot(element, screenshotStore);
+                    writer.write(ELEMENT_WRITER.writeValueAsString(ElementEntry.from(element, screenshotReference)));
+                    writer.newLine();
+                }
+            });
+        }
+        LOG.info("Exported {} UI elements into {} in {} ms", exportedElements, folder, NANOSECONDS.toMillis(nanoTime() - start));
+        return exportedElements;
+    }
+
+    /**
+     * Imports all elements from the provided folder.
+     *
+     * @return the amount of imported elements
+     */
+    public int importFrom(@NotNull Path folder) throws IOException, InterruptedException {
+        long start = nanoTime();
+        var screenshotStore = new ElementScreenshotStore(folder.resolve(SCREENSHOTS_FOLDER_NAME));
+        // Bounds the amount of batches held in memory, as the file is usually read much faster than the batches are embedded
+        var freeBatchSlots = new Semaphore(parallelism);
+        var failure = new AtomicReference<RuntimeException>();
+        var importedElements = new AtomicInteger();
+        try (var reader = Files.newBufferedReader(folder.resolve(ELEMENTS_FILE_NAME));
+             var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<UiElement> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null && failure.get() == null) {
+                if (isBlank(line)) {
+                    continue;
+                }
+                ElementEntry entry = ELEMENT_READER.readValue(line);
+                batch.add(entry.toUiElement(importScreenshot(entry, screenshotStore)));
+                if (batch.size() == batchSize) {
+                    submitBatch(batch, executor, freeBatchSlots, failure, importedElements);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty() && failure.get() == null) {
+                submitBatch(batch, executor, freeBatchSlots, failure, importedElements);
+            }
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Import of UI elements from %s failed after %d imported elements"
+                    .formatted(folder, importedElements.get()), failure.get());
+        }
+        LOG.info("Imported {} UI elements from {} in {} ms", importedElements.get(), folder,
+                NANOSECONDS.toMillis(nanoTime() - start));
+        return importedElements.get();
+    }
+
+    private void submitBatch(List<UiElement> batch, ExecutorService executor, Semaphore freeBatchSlots,
+                             AtomicReference<RuntimeException> failure, AtomicInteger importedElements)
+            throws InterruptedException {
+        freeBatchSlots.acquire();
+        executor.submit(() -> {
+            try {
+                retriever.replaceElements(batch);
+                LOG.info("Imported {} UI elements so far", importedElements.addAndGet(batch.size()));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                freeBatchSlots.release();
+            }
+        });
+    }
+
+    private @Nullable ScreenshotReference exportScreenshot(UiElement element, ElementScreenshotStore screenshotStore)
+            throws IOException {
+        var screenshot = element.screenshot();
+        if (screenshot == null) {
+            return null;
+        }
+        var imageBytes = screenshot.loadImageBytes(retriever.getScreenshotStore());
+        if (imageBytes.isEmpty()) {
+            LOG.warn("The screenshot of the UI element '{}' isn't available, the element is exported without it", element.name());
+            return null;
+        }
+        screenshotStore.save(screenshot.contentHash(), screenshot.fileExtension(), imageBytes.get());
+        return new ScreenshotReference(screenshot.contentHash(), screenshot.fileExtension(), screenshot.mimeType());
+    }
+
+    private static @Nullable Screenshot importScreenshot(ElementEntry entry, ElementScreenshotStore screenshotStore) {
+        var reference = entry.screenshot();
+        if (reference == null) {
+            return null;
+        }
+        var imageBytes = screenshotStore.load(reference.hash(), reference.fileExtension());
+        if (imageBytes.isEmpty()) {
+            LOG.warn("The screenshot of the UI element '{}' is missing, the element is imported without it", entry.name());
+            return null;
+        }
+        return new Screenshot(reference.fileExtension(), reference.mimeType(), reference.hash(),
+                Base64.getEncoder().encodeToString(imageBytes.get()));
+    }
+
+    record ElementEntry(@NotNull UUID id, @NotNull String name, @NotNull String description, @NotNull String anchorsDescription,
+                        @NotNull String parentElementSummary, boolean dataDependent, @Nullable ScreenshotReference screenshot) {
+        static ElementEntry from(UiElement element, @Nullable ScreenshotReference screenshot) {
+            return new ElementEntry(element.uuid(), element.name(), element.description(), element.locationDetails(),
+                    element.parentElementSummary(), element.isDataDependent(), screenshot);
+        }
+
+        UiElement toUiElement(@Nullable Screenshot screenshot) {
+            return new UiElement(id, name, description, anchorsDescription, parentElementSummary, screenshot, dataDependent);
+        }
+    }
+
+    record ScreenshotReference(@NotNull String hash, @NotNull String fileExtension, @NotNull String mimeType) {
+    }
+}
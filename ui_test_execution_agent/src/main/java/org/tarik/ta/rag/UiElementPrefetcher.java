@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.core.dto.TestStep;
+import org.tarik.ta.rag.UiElementRetriever.RetrievedUiElementItem;
+import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.utils.UiElementFeatureCache;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+
+import static java.util.Optional.empty;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor;
+import static org.tarik.ta.core.utils.LogCapture.bindToCurrentExecution;
+import static org.tarik.ta.UiTestAgentConfig.isAlgorithmicSearchEnabled;
+import static org.tarik.ta.core.utils.CommonUtils.isNotBlank;
+
+/**
+ * Warms up the data needed for locating UI elements of the upcoming test steps while the current step is still being executed. For
+ * each test step the element mentions are extracted from its description, the matching UI elements are retrieved from the vector
+ * DB, their stored screenshots are decoded and, if the algorithmic search is enabled, their ORB features are extracted into
+ * {@link UiElementFeatureCache} in the background. {@link org.tarik.ta.tools.ElementLocatorTools} then uses the prefetched data
+ * instead of doing the same work on the critical path.
+ * <p>
+ * One instance is meant to be used for a single test case execution and must be closed afterward.
+ */
+public class UiElementPrefetcher implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(UiElementPrefetcher.class);
+    // Element names are usually quoted in the test step descriptions, e.g. Click the "Login" button
+    private static final Pattern QUOTED_ELEMENT_MENTION = Pattern.compile("[\"“]([^\"“”]{2,})[\"”]");
+
+    private final UiElementRetriever retriever;
+    private final int topN;
+    private final double minScore;
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    private final Map<String, CompletableFuture<List<RetrievedUiElementItem>>> retrievalResultsByQuery = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<BufferedImage>> screenshotsByElementId = new ConcurrentHashMap<>();
+
+    public UiElementPrefetcher(@NotNull UiElementRetriever retriever, int topN, double minScore) {
+        this.retriever = retriever;
+        this.topN = topN;
+        this.minScore = minScore;
+    }
+
+    /**
+     * Asynchronously prefetches the UI elements which are mentioned in the provided test step. The method returns immediately.
+     */
+    public void prefetch(@NotNull TestStep testStep) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        getElementQueries(testStep.stepDescription()).forEach(query -> retrievalResultsByQuery.computeIfAbsent(toKey(query), _ -> {
+            LOG.debug("Prefetching UI elements for the query '{}'", query);
+            return supplyAsync(() -> retriever.retrieveUiElements(query, topN, minScore), bindToCurrentExecution(executor))
+                    .whenComplete((items, error) -> {
+                        if (error != null) {
+                            LOG.warn("Couldn't prefetch UI elements for the query '{}'", query, error);
+                        } else {
+                            items.forEach(item -> prefetchScreenshot(item.element()));
+                        }
+                    });
+        }));
+    }
+
+    /**
+     * Returns the result of the prefetched retrieval for the same query (ignoring case and redundant whitespace), waiting for its
+     * completion if it's still in progress.
+     */
+    public Optional<List<RetrievedUiElementItem>> getRetrievalResult(@NotNull String query) {
+        return getResult(retrievalResultsByQuery.get(toKey(query)));
+    }
+
+    /**
+     * Returns the decoded screenshot of the provided element if it has been prefetched, waiting for the decoding if it's still in
+     * progress.
+     */
+    public Optional<BufferedImage> getScreenshot(@NotNull UiElement element) {
+        return getResult(screenshotsByElementId.get(element.uuid()));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        retrievalResultsByQuery.clear();
+        screenshotsByElementId.clear();
+    }
+
+    static Set<String> getElementQueries(String stepDescription) {
+        Set<String> queries = new LinkedHashSet<>();
+        if (isNotBlank(stepDescription)) {
+            var matcher = QUOTED_ELEMENT_MENTION.matcher(stepDescription);
+            while (matcher.find()) {
+                var mention = normalize(matcher.group(1));
+                if (isNotBlank(mention)) {
+                    queries.add(mention);
+                }
+            }
+        }
+        return queries;
+    }
+
+    private void prefetchScreenshot(UiElement element) {
+        if (element.screenshot() == null || executor.isShutdown()) {
+            return;
+        }
+        screenshotsByElementId.computeIfAbsent(element.uuid(), _ -> supplyAsync(() -> {
+            if (isAlgorithmicSearchEnabled() && !element.isDataDependent()) {
+                UiElementFeatureCache.prefetchFeatures(element, retriever.getScreenshotStore());
+            }
+            return UiElementFeatureCache.getScreenshot(element, retriever.getScreenshotStore()).orElse(null);
+        }, bindToCurrentExecution(executor)));
+    }
+
+    private static <T> Optional<T> getResult(CompletableFuture<T> future) {
+        if (future == null) {
+            return empty();
+        }
+        try {
+            return Optional.ofNullable(future.join());
+        } catch (Exception e) {
+            LOG.debug("Prefetching failed, the data will be fetched directly", e);
+            return empty();
+        }
+    }
+
+    // The same normalization as the one of the retriever's query embedding cache
+    private static String toKey(String query) {
+        return UiElementRetriever.normalizeQuery(query);
+    }
+
+    private static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ");
+    }
+}
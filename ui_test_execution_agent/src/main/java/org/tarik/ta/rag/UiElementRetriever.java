@@ -15,57 +15,386 @@
  */
 package org.tarik.ta.rag;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.embedding.onnx.bgesmallenv15.BgeSmallEnV15EmbeddingModel;
 import dev.langchain4j.store.embedding.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tarik.ta.UiTestAgentConfig;
 import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.utils.UiElementFeatureCache;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.util.Comparator.comparingDouble;
+import static java.util.Objects.requireNonNull;
 
 public abstract class UiElementRetriever {
     protected final Logger log = LoggerFactory.getLogger(getClass());
     protected static final String COLLECTION_NAME = "ui_elements";
     protected final EmbeddingStore<TextSegment> embeddingStore;
     protected static final EmbeddingModel embeddingModel = new BgeSmallEnV15EmbeddingModel();
+    // The same element descriptions are queried across test steps and test cases, so their embeddings are computed only once.
+    // Normalizing the query doesn't change its embedding, because the model's tokenizer is uncased.
+    private static final LoadingCache<String, Embedding> QUERY_EMBEDDINGS = CacheBuilder.newBuilder()
+            .maximumSize(UiTestAgentConfig.getQueryEmbeddingCacheSize())
+            .recordStats()
+            .build(CacheLoader.from(query -> embeddingModel.embed(query).content()));
+
+    private final boolean useLocalIndex;
+    private final boolean useHybridSearch;
+    private final Duration localIndexResyncInterval;
+    private final AtomicReference<Instant> lastLocalIndexResync = new AtomicReference<>(Instant.now());
+    private final Object localIndexLock = new Object();
+    private volatile LocalIndexes localIndexes;
+    // Guarded by localIndexLock. Not null while the local indexes are being reloaded, contains the changes which need to be
+    // applied to the reloaded indexes as well, because they could have been written to the vector DB after it had been read
+    private @Nullable List<Consumer<LocalIndexes>> localIndexChangesDuringResync;
+    private final @Nullable ElementScreenshotStore screenshotStore;
 
     protected UiElementRetriever(EmbeddingStore<TextSegment> embeddingStore) {
+        this(embeddingStore, UiTestAgentConfig.isRetrieverLocalIndexEnabled());
+    }
+
+    protected UiElementRetriever(EmbeddingStore<TextSegment> embeddingStore, boolean useLocalIndex) {
+        this(embeddingStore, useLocalIndex, UiTestAgentConfig.isRetrieverHybridSearchEnabled());
+    }
+
+    /**
+     * @param useLocalIndex   - if true, the whole collection is mirrored in memory and searched locally, the vector DB being
+     *                        still the source of truth to which all changes are written first
+     * @param useHybridSearch - if true, the vector search results are re-ranked by fusing them with the results of a lexical
+     *                        search over all textual element fields
+     */
+    protected UiElementRetriever(EmbeddingStore<TextSegment> embeddingStore, boolean useLocalIndex, boolean useHybridSearch) {
+        this(embeddingStore, useLocalIndex, useHybridSearch, ElementScreenshotStore.getConfigured().orElse(null));
+    }
+
+    /**
+     * @param screenshotStore - the store into which the element screenshots are saved, so that only their hashes are kept in the
+     *                        vector DB. If null, the screenshots are inlined into the element metadata
+     */
+    protected UiElementRetriever(EmbeddingStore<TextSegment> embeddingStore, boolean useLocalIndex, boolean useHybridSearch,
+                                 @Nullable ElementScreenshotStore screenshotStore) {
         this.embeddingStore = embeddingStore;
+        this.screenshotStore = screenshotStore;
+        this.useLocalIndex = useLocalIndex;
+        this.useHybridSearch = useHybridSearch;
+        this.localIndexResyncInterval = Duration.ofSeconds(UiTestAgentConfig.getRetrieverLocalIndexResyncIntervalSeconds());
+        this.localIndexes = loadLocalIndexes();
+    }
+
+    /**
+     * @return the store into which the element screenshots are saved and from which they must be loaded, null if the screenshots
+     * are inlined into the element metadata
+     */
+    public @Nullable ElementScreenshotStore getScreenshotStore() {
+        return screenshotStore;
     }
 
     public void storeElement(UiElement uiElement) {
-        var segment = uiElement.asTextSegment();
-        var embedding = embeddingModel.embed(segment).content();
-        embeddingStore.addAll(List.of(uiElement.uuid().toString()), List.of(embedding), List.of(segment));
-        log.info("Inserted UiElement '{}' into the vector DB", uiElement.name());
+        storeElements(List.of(uiElement));
+    }
+
+    /**
+     * Stores the provided elements, embedding all of them in a single model call and inserting them in one vector DB request.
+     */
+    public void storeElements(Collection<UiElement> uiElements) {
+        if (uiElements.isEmpty()) {
+            return;
+        }
+        if (screenshotStore != null) {
+            saveScreenshots(uiElements, screenshotStore);
+        }
+        var ids = uiElements.stream().map(uiElement -> uiElement.uuid().toString()).toList();
+        // Without the screenshot store the image has no other place to live in than the vector DB
+        var segments = uiElements.stream().map(uiElement -> uiElement.asTextSegment(screenshotStore == null)).toList();
+        var embeddings = embeddingModel.embedAll(segments).content();
+        embeddingStore.addAll(ids, embeddings, segments);
+        changeLocalIndexes(indexes -> indexes.add(ids, embeddings, segments, uiElements));
+        if (uiElements.size() == 1) {
+            log.info("Inserted UiElement '{}' into the vector DB", uiElements.iterator().next().name());
+        } else {
+            log.info("Inserted {} UiElements into the vector DB", uiElements.size());
+        }
+    }
+
+    /**
+     * Stores the provided elements, replacing the already stored elements with the same IDs. Some vector DBs (e.g. Chroma) ignore
+     * the elements whose IDs already exist instead of overwriting them, so those are removed first.
+     */
+    public void replaceElements(Collection<UiElement> uiElements) {
+        if (uiElements.isEmpty()) {
+            return;
+        }
+        embeddingStore.removeAll(uiElements.stream().map(uiElement -> uiElement.uuid().toString()).toList());
+        uiElements.forEach(uiElement -> UiElementFeatureCache.invalidate(uiElement.uuid()));
+        storeElements(uiElements);
     }
 
     public List<RetrievedUiElementItem> retrieveUiElements(String nameQuery, int topN, double minScore) {
-        var queryEmbedding = embeddingModel.embed(nameQuery).content();
-        var searchRequest = EmbeddingSearchRequest.builder()
-                .queryEmbedding(queryEmbedding)
-                .minScore(minScore)
-                .maxResults(topN)
-                .build();
-        var result = embeddingStore.search(searchRequest);
-        var resultingItems = result.matches().stream()
+        resyncLocalIndexesIfDue();
+        var queryEmbedding = getQueryEmbedding(nameQuery);
+        var vectorSearchItems = search(queryEmbedding, topN, minScore).stream()
                 .sorted(Comparator.<EmbeddingMatch<TextSegment>>comparingDouble(EmbeddingMatch::score).reversed())
                 .map(match -> {
                     var element = UiElement.fromTextSegment(match.embedded());
                     return new RetrievedUiElementItem(element, match.score());
                 })
-                .peek(item -> log.info("Retrieved UI element from DB: name='{}', mainScore={}",
-                        item.element().name(), item.mainScore()))
                 .distinct()
                 .toList();
+        var lexicalIndex = localIndexes.lexicalIndex();
+        var resultingItems = lexicalIndex == null
+                ? vectorSearchItems
+                : fuseWithLexicalSearch(lexicalIndex, nameQuery, vectorSearchItems);
+        resultingItems.forEach(item -> log.info("Retrieved UI element from DB: name='{}', mainScore={}, rankingScore={}",
+                item.element().name(), item.mainScore(), item.rankingScore()));
         log.info("Retrieved {} most matching results to the query '{}'", resultingItems.size(), nameQuery);
         return resultingItems;
     }
 
+    /**
+     * Re-ranks the vector search results using reciprocal rank fusion with their lexical ranks. The lexical rank of each
+     * candidate is its position among the candidates ordered by their BM25 score, which uses the statistics of the whole
+     * collection. Only the elements found by the vector search are returned, so that each of them has a similarity score which
+     * can be compared to the configured thresholds.
+     */
+    private List<RetrievedUiElementItem> fuseWithLexicalSearch(LexicalUiElementIndex lexicalIndex, String query,
+                                                               List<RetrievedUiElementItem> vectorSearchItems) {
+        var lexicalSearchIds = lexicalIndex.rank(query, vectorSearchItems.stream().map(item -> item.element().uuid()).toList());
+        int rankConstant = UiTestAgentConfig.getRetrieverHybridSearchRankConstant();
+        List<RetrievedUiElementItem> fusedItems = new ArrayList<>();
+        int vectorRank = 0;
+        for (int i = 0; i < vectorSearchItems.size(); i++) {
+            var item = vectorSearchItems.get(i);
+            // Elements with equal similarity (e.g. with the same name) share the rank, so that only the lexical search decides
+            if (i > 0 && item.mainScore() < vectorSearchItems.get(i - 1).mainScore()) {
+                vectorRank = i;
+            }
+            int lexicalRank = lexicalSearchIds.indexOf(item.element().uuid());
+            double fusedScore = 1.0 / (rankConstant + vectorRank + 1)
+                    + (lexicalRank < 0 ? 0 : 1.0 / (rankConstant + lexicalRank + 1));
+            fusedItems.add(new RetrievedUiElementItem(item.element(), item.mainScore(), fusedScore));
+        }
+        // The sort is stable, so the vector search order decides between equally ranked elements
+        fusedItems.sort(comparingDouble(RetrievedUiElementItem::rankingScore).reversed());
+        return List.copyOf(fusedItems);
+    }
+
+    /**
+     * Returns the hit statistics of the query embedding cache since the start of the agent.
+     */
+    public static CacheStats getQueryEmbeddingCacheStats() {
+        return QUERY_EMBEDDINGS.stats();
+    }
+
+    private static void saveScreenshots(Collection<UiElement> uiElements, ElementScreenshotStore screenshotStore) {
+        // Screenshots are saved before the elements referencing them, so that a stored element never points to a missing image
+        uiElements.stream()
+                .map(UiElement::screenshot)
+                .filter(screenshot -> screenshot != null && screenshot.base64EncodedImage() != null)
+                .forEach(screenshot -> {
+                    try {
+                        screenshotStore.save(screenshot.contentHash(), screenshot.fileExtension(),
+                                Base64.getDecoder().decode(screenshot.base64EncodedImage()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(
+                                "Couldn't save the element screenshot %s".formatted(screenshot.contentHash()), e);
+                    }
+                });
+    }
+
+    private List<EmbeddingMatch<TextSegment>> search(Embedding queryEmbedding, int topN, double minScore) {
+        var vectorIndex = localIndexes.vectorIndex();
+        if (vectorIndex != null) {
+            return vectorIndex.search(queryEmbedding, topN, minScore);
+        }
+        var searchRequest = EmbeddingSearchRequest.builder()
+                .queryEmbedding(queryEmbedding)
+                .minScore(minScore)
+                .maxResults(topN)
+                .build();
+        return embeddingStore.search(searchRequest).matches();
+    }
 
+    /**
+     * Passes up to {@code maxElements} elements stored in the vector DB to the consumer, at most {@code pageSize} elements at a
+     * time and in no particular order. The default implementation reads all elements using a single search, because the embedding
+     * stores have no API for listing the collection. The retrievers whose vector DB supports scrolling read the collection page by
+     * page instead, so that it never needs to be held in memory as a whole.
+     *
+     * @return the amount of elements passed to the consumer
+     */
+    public int forEachStoredElementPage(int pageSize, int maxElements, @NotNull ElementPageConsumer consumer) throws IOException {
+        checkArgument(pageSize > 0, "Page size must be positive, got %s", pageSize);
+        var elements = getAllElements(maxElements);
+        for (var page : Lists.partition(elements, pageSize)) {
+            consumer.accept(page);
+        }
+        return elements.size();
+    }
+
+    /**
+     * Returns up to {@code maxElements} elements stored in the vector DB, in no particular order.
+     */
+    public List<UiElement> getAllElements(int maxElements) {
+        return searchAll(maxElements).stream()
+                .map(match -> UiElement.fromTextSegment(match.embedded()))
+                .toList();
+    }
+
+    private List<EmbeddingMatch<TextSegment>> searchAll(int maxElements) {
+        // The embedding stores have no API for listing the whole collection, but a search accepting any score returns all of it
+        var searchRequest = EmbeddingSearchRequest.builder()
+                .queryEmbedding(embeddingModel.embed(COLLECTION_NAME).content())
+                .minScore(0.0)
+                .maxResults(maxElements)
+                .build();
+        var matches = embeddingStore.search(searchRequest).matches();
+        if (matches.size() >= maxElements) {
+            log.warn("The vector DB contains at least {} UI elements, only this amount of elements has been read.", maxElements);
+        }
+        return matches;
+    }
+
+    private LocalIndexes loadLocalIndexes() {
+        if (!useLocalIndex && !useHybridSearch) {
+            return LocalIndexes.NONE;
+        }
+        int localIndexMaxElements = useLocalIndex ? UiTestAgentConfig.getRetrieverLocalIndexMaxElements() : 0;
+        int lexicalIndexMaxElements = useHybridSearch ? UiTestAgentConfig.getRetrieverHybridSearchMaxElements() : 0;
+        // Both indexes are loaded from the same read, each of them getting at most its own amount of elements
+        var storedElements = readStoredElements(Math.max(localIndexMaxElements, lexicalIndexMaxElements));
+        if (storedElements == null) {
+            return LocalIndexes.NONE;
+        }
+        return new LocalIndexes(
+                useLocalIndex ? loadLocalIndex(limit(storedElements, localIndexMaxElements)) : null,
+                useHybridSearch ? loadLexicalIndex(limit(storedElements, lexicalIndexMaxElements)) : null);
+    }
+
+    private static <T> List<T> limit(List<T> list, int maxSize) {
+        return list.subList(0, Math.min(list.size(), maxSize));
+    }
+
+    private @Nullable List<EmbeddingMatch<TextSegment>> readStoredElements(int maxElements) {
+        try {
+            return searchAll(maxElements);
+        } catch (RuntimeException e) {
+            log.warn("Couldn't read the UI elements for the local indexes, only the vector DB will be searched", e);
+            return null;
+        }
+    }
+
+    private @Nullable LocalUiElementIndex loadLocalIndex(List<EmbeddingMatch<TextSegment>> storedElements) {
+        try {
+            return LocalUiElementIndex.loadFrom(storedElements, embeddingModel);
+        } catch (RuntimeException e) {
+            log.warn("Couldn't load the UI elements into the local index, the vector DB will be searched directly", e);
+            return null;
+        }
+    }
+
+    private @Nullable LexicalUiElementIndex loadLexicalIndex(List<EmbeddingMatch<TextSegment>> storedElements) {
+        try {
+            return LexicalUiElementIndex.loadFrom(storedElements.stream()
+                    .map(match -> UiElement.fromTextSegment(match.embedded()))
+                    .toList());
+        } catch (RuntimeException e) {
+            log.warn("Couldn't load the UI elements into the lexical index, the hybrid search is disabled", e);
+            return null;
+        }
+    }
+
+    private void changeLocalIndexes(Consumer<LocalIndexes> change) {
+        synchronized (localIndexLock) {
+            change.accept(localIndexes);
+            if (localIndexChangesDuringResync != null) {
+                localIndexChangesDuringResync.add(change);
+            }
+        }
+    }
+
+    private void resyncLocalIndexesIfDue() {
+        if ((!useLocalIndex && !useHybridSearch) || localIndexResyncInterval.isZero()) {
+            return;
+        }
+        var lastResync = lastLocalIndexResync.get();
+        var now = Instant.now();
+        if (lastResync.plus(localIndexResyncInterval).isAfter(now) || !lastLocalIndexResync.compareAndSet(lastResync, now)) {
+            return;
+        }
+        // The searches keep using the current indexes while the new ones are being loaded
+        Thread.ofVirtual().name("local-ui-element-index-resync").start(this::resyncLocalIndexes);
+    }
+
+    /**
+     * Reloads the local indexes from the vector DB, so that the changes made by other agent instances sharing the same DB become
+     * visible. The local changes made during the reload are applied to the reloaded indexes as well. An index which couldn't be
+     * reloaded is kept as it is.
+     */
+    void resyncLocalIndexes() {
+        synchronized (localIndexLock) {
+            localIndexChangesDuringResync = new ArrayList<>();
+        }
+        var reloadedIndexes = LocalIndexes.NONE;
+        try {
+            reloadedIndexes = loadLocalIndexes();
+        } finally {
+            synchronized (localIndexLock) {
+                var indexes = reloadedIndexes;
+                requireNonNull(localIndexChangesDuringResync).forEach(change -> change.accept(indexes));
+                var currentIndexes = localIndexes;
+                localIndexes = new LocalIndexes(
+                        indexes.vectorIndex() != null ? indexes.vectorIndex() : currentIndexes.vectorIndex(),
+                        indexes.lexicalIndex() != null ? indexes.lexicalIndex() : currentIndexes.lexicalIndex());
+                localIndexChangesDuringResync = null;
+            }
+        }
+    }
+
+    static String normalizeQuery(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private Embedding getQueryEmbedding(String query) {
+        try {
+            var embedding = QUERY_EMBEDDINGS.getUnchecked(normalizeQuery(query));
+            if (log.isDebugEnabled()) {
+                var stats = QUERY_EMBEDDINGS.stats();
+                log.debug("Query embedding cache: {} hits, {} misses, hit rate {}%", stats.hitCount(), stats.missCount(),
+                        "%.1f".formatted(stats.hitRate() * 100));
+            }
+            return embedding;
+        } catch (UncheckedExecutionException e) {
+            throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
 
     public void updateElement(UiElement originalUiElement, UiElement updatedUiElement) {
         removeElement(originalUiElement);
@@ -74,9 +403,50 @@ public abstract class UiElementRetriever {
 
     public void removeElement(UiElement uiElement) {
         embeddingStore.remove(uiElement.uuid().toString());
+        changeLocalIndexes(indexes -> indexes.remove(uiElement.uuid()));
+        UiElementFeatureCache.invalidate(uiElement.uuid());
         log.info("Removed UiElement '{}' from the vector DB", uiElement.name());
     }
 
-    public record RetrievedUiElementItem(UiElement element, double mainScore) {
+    /**
+     * The in-memory indexes mirroring the vector DB, each of them being null if it's disabled or couldn't be loaded.
+     */
+    private record LocalIndexes(@Nullable LocalUiElementIndex vectorIndex, @Nullable LexicalUiElementIndex lexicalIndex) {
+        private static final LocalIndexes NONE = new LocalIndexes(null, null);
+
+        void add(List<String> ids, List<Embedding> embeddings, List<TextSegment> segments, Collection<UiElement> elements) {
+            if (vectorIndex != null) {
+                vectorIndex.addAll(ids, embeddings, segments);
+            }
+            if (lexicalIndex != null) {
+                elements.forEach(lexicalIndex::add);
+            }
+        }
+
+        void remove(UUID elementId) {
+            if (vectorIndex != null) {
+                vectorIndex.remove(elementId.toString());
+            }
+            if (lexicalIndex != null) {
+                lexicalIndex.remove(elementId);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface ElementPageConsumer {
+        void accept(List<UiElement> page) throws IOException;
+    }
+
+    /**
+     * @param element      the retrieved element
+     * @param mainScore    the similarity score of the element name and the query
+     * @param rankingScore the score by which the retrieved elements are ordered, equal to {@code mainScore} unless the hybrid
+     *                     search is enabled
+     */
+    public record RetrievedUiElementItem(UiElement element, double mainScore, double rankingScore) {
+        public RetrievedUiElementItem(UiElement element, double mainScore) {
+            this(element, mainScore, mainScore);
+        }
     }
 }
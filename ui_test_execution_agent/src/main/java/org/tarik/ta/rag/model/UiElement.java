@@ -15,21 +15,36 @@
  */
 package org.tarik.ta.rag.model;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.segment.TextSegment;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.tarik.ta.rag.ElementScreenshotStore;
 
+import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.function.BiFunction;
 
+import static com.google.common.hash.Hashing.sha256;
 import static java.util.Objects.requireNonNull;
-import static org.tarik.ta.utils.ImageUtils.convertBase64ToImage;
-import static org.tarik.ta.utils.ImageUtils.convertImageToBase64;
+import static java.util.Optional.ofNullable;
+import static org.tarik.ta.utils.ImageUtils.imageToByteArray;
 import static org.tarik.ta.rag.model.UiElement.MetadataField.*;
 
 public class UiElement {
+    private static final int MAX_CACHED_LEGACY_SCREENSHOT_HASHES = 10_000;
+    // Elements stored before the screenshots got their hash are never rewritten without it, so the hash of their inlined image
+    // can't change and needs to be computed only once instead of on every retrieval
+    private static final Cache<UUID, String> LEGACY_SCREENSHOT_HASHES = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_LEGACY_SCREENSHOT_HASHES)
+            .build();
+
     private final UUID uuid;
     private final String name;
     private final String ownDescription;
@@ -93,6 +108,7 @@ public class UiElement {
         SCREENSHOT_FILE_EXTENSION(Metadata::getString, String.class),
         SCREENSHOT_MIME_TYPE(Metadata::getString, String.class),
         SCREENSHOT_IMAGE(Metadata::getString, String.class),
+        SCREENSHOT_HASH(Metadata::getString, String.class),
         IS_DATA_DEPENDENT(Metadata::getString, String.class);
 
         private final ValueProvider<?> valueProvider;
@@ -115,8 +131,12 @@ public class UiElement {
         }
     }
 
-    public TextSegment asTextSegment() {
-        return TextSegment.from(getTextRepresentation(), Metadata.from(getMetadata()));
+    /**
+     * @param inlineScreenshotImage - if true, the screenshot image is put into the metadata, otherwise only its hash is there and
+     *                              the image needs to be saved into the {@link ElementScreenshotStore}
+     */
+    public TextSegment asTextSegment(boolean inlineScreenshotImage) {
+        return TextSegment.from(getTextRepresentation(), Metadata.from(getMetadata(inlineScreenshotImage)));
     }
 
     public static UiElement fromTextSegment(TextSegment textSegment) {
@@ -131,25 +151,71 @@ public class UiElement {
         var screenshotFileExtension = SCREENSHOT_FILE_EXTENSION.<String>getValueFromMetadata(metadata).orElse(null);
         var screenshotMimeType = SCREENSHOT_MIME_TYPE.<String>getValueFromMetadata(metadata).orElse(null);
         var screenshotEncodedString = SCREENSHOT_IMAGE.<String>getValueFromMetadata(metadata).orElse(null);
+        var screenshotHash = SCREENSHOT_HASH.<String>getValueFromMetadata(metadata).orElse(null);
         var isDataDependent = IS_DATA_DEPENDENT.<String>getValueFromMetadata(metadata).map(Boolean::parseBoolean).orElse(false);
 
-        boolean screenshotPresent = screenshotEncodedString != null;
-        Screenshot screenshot = screenshotPresent ?
-                new Screenshot(screenshotFileExtension, screenshotMimeType, screenshotEncodedString)
-                : null;
+        Screenshot screenshot = null;
+        if (screenshotHash != null) {
+            screenshot = new Screenshot(screenshotFileExtension, screenshotMimeType, screenshotHash, screenshotEncodedString);
+        } else if (screenshotEncodedString != null) {
+            // Elements stored before the screenshots got their hash have only the inlined image
+            var screenshotHashOfInlinedImage = LEGACY_SCREENSHOT_HASHES.asMap().computeIfAbsent(id,
+                    _ -> Screenshot.hash(Base64.getDecoder().decode(screenshotEncodedString)));
+            screenshot = new Screenshot(screenshotFileExtension, screenshotMimeType, screenshotHashOfInlinedImage,
+                    screenshotEncodedString);
+        }
 
         return new UiElement(id, name, ownDescription, anchorsDescription, pageSummary, screenshot, isDataDependent);
     }
 
-    public record Screenshot(@NotNull String fileExtension, @NotNull String mimeType, @NotNull String base64EncodedImage) {
+    /**
+     * Screenshot of the element, identified by the SHA-256 hash of its encoded image. The image data is present only if the
+     * screenshot has just been captured or if it's inlined into the element metadata, otherwise it's loaded on demand from the
+     * {@link ElementScreenshotStore} into which the retriever of the element has saved it.
+     */
+    public record Screenshot(@NotNull String fileExtension, @NotNull String mimeType, @NotNull String contentHash,
+                             @Nullable String base64EncodedImage) {
         public static Screenshot fromBufferedImage(@NotNull BufferedImage image, @NotNull String fileExtension) {
-            String mimeType = "image/" + fileExtension;
-            String base64EncodedImage = convertImageToBase64(image, fileExtension);
-            return new Screenshot(fileExtension, mimeType, base64EncodedImage);
+            return fromBytes(imageToByteArray(image, fileExtension), fileExtension);
+        }
+
+        public static Screenshot fromBytes(byte @NotNull [] imageBytes, @NotNull String fileExtension) {
+            return new Screenshot(fileExtension, "image/" + fileExtension, hash(imageBytes),
+                    Base64.getEncoder().encodeToString(imageBytes));
+        }
+
+        /**
+         * @param screenshotStore - the store from which the image is loaded if it isn't present in this instance, null if there's
+         *                        none
+         * @return the encoded image or empty if it isn't available
+         */
+        public Optional<byte[]> loadImageBytes(@Nullable ElementScreenshotStore screenshotStore) {
+            if (base64EncodedImage != null) {
+                return Optional.of(Base64.getDecoder().decode(base64EncodedImage));
+            }
+            return ofNullable(screenshotStore).flatMap(store -> store.load(contentHash, fileExtension));
         }
 
-        public BufferedImage toBufferedImage() {
-            return convertBase64ToImage(base64EncodedImage);
+        /**
+         * Decodes the image, loading it from the screenshot store if needed. Use {@code UiElementFeatureCache} in order to avoid
+         * loading and decoding the same screenshot repeatedly.
+         *
+         * @return the decoded image or null if the image isn't available or its format isn't supported
+         */
+        public @Nullable BufferedImage toBufferedImage(@Nullable ElementScreenshotStore screenshotStore) {
+            return loadImageBytes(screenshotStore).map(Screenshot::decode).orElse(null);
+        }
+
+        static String hash(byte[] imageBytes) {
+            return sha256().hashBytes(imageBytes).toString();
+        }
+
+        private static BufferedImage decode(byte[] imageBytes) {
+            try (var inputStream = new ByteArrayInputStream(imageBytes)) {
+                return ImageIO.read(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
     }
 
@@ -169,7 +235,7 @@ public class UiElement {
         return name.trim();
     }
 
-    private Map<String, Object> getMetadata() {
+    private Map<String, Object> getMetadata(boolean inlineScreenshotImage) {
         Map<String, Object> metadata = new HashMap<>();
         metadata.put(ID.name(), uuid);
         metadata.put(NAME.name(), name);
@@ -179,7 +245,10 @@ public class UiElement {
         if (screenshot != null) {
             metadata.put(SCREENSHOT_FILE_EXTENSION.name(), screenshot.fileExtension());
             metadata.put(SCREENSHOT_MIME_TYPE.name(), screenshot.mimeType());
-            metadata.put(SCREENSHOT_IMAGE.name(), screenshot.base64EncodedImage());
+            metadata.put(SCREENSHOT_HASH.name(), screenshot.contentHash());
+            if (inlineScreenshotImage && screenshot.base64EncodedImage() != null) {
+                metadata.put(SCREENSHOT_IMAGE.name(), screenshot.base64EncodedImage());
+            }
         }
         metadata.put(IS_DATA_DEPENDENT.name(), String.valueOf(isDataDependent));
         return metadata;
@@ -24,18 +24,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 
+import static java.lang.Math.max;
+import static java.lang.System.currentTimeMillis;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.awt.Desktop.getDesktop;
 import static java.awt.Desktop.isDesktopSupported;
 import static org.tarik.ta.core.error.ErrorCategory.*;
 import static org.tarik.ta.core.utils.CommonUtils.*;
+import static org.tarik.ta.UiTestAgentConfig.getUiSettleMaxBrowserOpenWaitMillis;
+import static org.tarik.ta.utils.ScreenChangeDetector.awaitScreenChange;
+import static org.tarik.ta.utils.ScreenChangeDetector.awaitVisualStability;
+import static org.tarik.ta.utils.UiCommonUtils.captureScreen;
 
 public class CommonTools extends UiAbstractTools {
-    private static final int BROWSER_OPEN_TIME_SECONDS = 1;
     private static final Logger LOG = LoggerFactory.getLogger(CommonTools.class);
     private static final String HTTP_PROTOCOL = "http://";
     private static final String OS_NAME_SYS_PROPERTY = "os.name";
@@ -85,6 +91,7 @@ public class CommonTools extends UiAbstractTools {
 
             try {
                 closeBrowser(); // Close any existing browser instance
+                var screenBeforeOpening = captureScreen();
 
                 String os = System.getProperty(OS_NAME_SYS_PROPERTY).toLowerCase();
 
@@ -108,13 +115,23 @@ public class CommonTools extends UiAbstractTools {
                     throw new ToolExecutionException("Current OS doesn't support opening a browser.",
                             NON_RETRYABLE_ERROR);
                 }
-                sleepSeconds(BROWSER_OPEN_TIME_SECONDS);
+                awaitBrowserWindow(screenBeforeOpening);
             } catch (Exception e) {
                 throw rethrowAsToolException(e, "opening browser");
             }
         }
     }
 
+    private static void awaitBrowserWindow(BufferedImage screenBeforeOpening) {
+        long maxWaitMillis = getUiSettleMaxBrowserOpenWaitMillis();
+        long deadline = currentTimeMillis() + maxWaitMillis;
+        if (awaitScreenChange(screenBeforeOpening, maxWaitMillis).isEmpty()) {
+            LOG.warn("The screen hasn't changed within {} millis after opening the browser", maxWaitMillis);
+            return;
+        }
+        awaitVisualStability(max(0, deadline - currentTimeMillis()));
+    }
+
     @Tool(value = "Closes the currently open browser instance. Use this tool when you need to close the browser.")
     public void closeBrowser() {
         synchronized (LOCK) {
@@ -97,7 +97,7 @@ public abstract class CommonUserInteractionTools extends UiAbstractTools {
         List<UiElement> elementsToRefine = uiElementRetriever.retrieveUiElements(elementDescription, AgentConfig.getRetrieverTopN(),
                         getElementRetrievalMinGeneralScore())
                 .stream()
-                .sorted(comparingDouble(RetrievedUiElementItem::mainScore).reversed())
+                .sorted(comparingDouble(RetrievedUiElementItem::rankingScore).reversed())
                 .map(RetrievedUiElementItem::element)
                 .toList();
 
@@ -112,7 +112,8 @@ public abstract class CommonUserInteractionTools extends UiAbstractTools {
             boolean changesMade = false;
             var message = "Please refine the following elements which are the best matches to %s".formatted(elementDescription);
             while (true) {
-                var choiceOptional = UiElementRefinementPopup.displayAndGetChoice(null, message, elementsToRefine);
+                var choiceOptional = UiElementRefinementPopup.displayAndGetChoice(null, message, elementsToRefine,
+                        uiElementRetriever.getScreenshotStore());
                 if (choiceOptional.isEmpty()) {
                     var cause = "User interrupted element refinement by closing the corresponding popup";
                     LOG.info(cause);
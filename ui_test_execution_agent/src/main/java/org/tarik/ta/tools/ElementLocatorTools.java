@@ -26,6 +26,7 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tarik.ta.core.AgentConfig;
+import org.tarik.ta.core.agents.AgentRegistry;
 import org.tarik.ta.UiTestAgentConfig;
 import org.tarik.ta.agents.UiElementBoundingBoxAgent;
 import org.tarik.ta.agents.DbUiElementSelectionAgent;
@@ -35,8 +36,12 @@ import org.tarik.ta.dto.*;
 import org.tarik.ta.exceptions.ElementLocationException;
 import org.tarik.ta.exceptions.ElementLocationException.ElementLocationStatus;
 import org.tarik.ta.core.exceptions.ToolExecutionException;
+import org.tarik.ta.model.UiTestExecutionContext;
 import org.tarik.ta.rag.RetrieverFactory;
+import org.tarik.ta.rag.UiElementPrefetcher;
 import org.tarik.ta.rag.UiElementRetriever;
+import org.tarik.ta.utils.EncodedFrame;
+import org.tarik.ta.utils.UiElementFeatureCache;
 import org.tarik.ta.rag.UiElementRetriever.RetrievedUiElementItem;
 import org.tarik.ta.rag.model.UiElement;
 import org.tarik.ta.utils.UiCommonUtils;
@@ -47,6 +52,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -66,6 +72,8 @@ import static java.util.stream.IntStream.range;
 import static java.util.stream.Stream.concat;
 import static org.tarik.ta.UiTestAgentConfig.*;
 import static org.tarik.ta.core.error.ErrorCategory.*;
+import static org.tarik.ta.core.manager.BudgetManager.bindToCurrentScope;
+import static org.tarik.ta.core.utils.LogCapture.bindToCurrentExecution;
 import static org.tarik.ta.core.utils.PromptUtils.loadSystemPrompt;
 import static org.tarik.ta.exceptions.ElementLocationException.ElementLocationStatus.NO_ELEMENTS_FOUND_IN_DB;
 import static org.tarik.ta.exceptions.ElementLocationException.ElementLocationStatus.SIMILAR_ELEMENTS_IN_DB_BUT_SCORE_TOO_LOW;
@@ -97,13 +105,27 @@ public class ElementLocatorTools extends UiAbstractTools {
     private final UiElementBoundingBoxAgent uiElementBoundingBoxAgent;
     private final BestUiElementMatchSelectionAgent bestUiElementMatchSelectionAgent;
     private final DbUiElementSelectionAgent dbUiElementSelectionAgent;
+    private final @Nullable UiElementPrefetcher prefetcher;
+    private final @Nullable UiTestExecutionContext executionContext;
 
     public ElementLocatorTools() {
+        this(null, null);
+    }
+
+    /**
+     * @param executionContext - the context of the current test case execution, which keeps the last known element locations. If
+     *                         null, the locations aren't remembered
+     * @param prefetcher       - the source of prefetched UI element data for the current test case execution, if null, all the
+     *                         data is fetched on demand
+     */
+    public ElementLocatorTools(@Nullable UiTestExecutionContext executionContext, @Nullable UiElementPrefetcher prefetcher) {
         super();
         this.elementRetriever = RetrieverFactory.getUiElementRetriever();
         this.uiElementBoundingBoxAgent = createElementBoundingBoxAgent();
         this.bestUiElementMatchSelectionAgent = createElementSelectionAgent();
         this.dbUiElementSelectionAgent = createDbElementSelectionAgent();
+        this.prefetcher = prefetcher;
+        this.executionContext = executionContext;
     }
 
     public ElementLocatorTools(UiStateCheckAgent uiStateCheckAgent) {
@@ -112,6 +134,8 @@ public class ElementLocatorTools extends UiAbstractTools {
         this.uiElementBoundingBoxAgent = createElementBoundingBoxAgent();
         this.bestUiElementMatchSelectionAgent = createElementSelectionAgent();
         this.dbUiElementSelectionAgent = createDbElementSelectionAgent();
+        this.prefetcher = null;
+        this.executionContext = null;
     }
 
     @Tool(value = "Locates the UI element on the screen based on its description and returns its coordinates.")
@@ -125,12 +149,14 @@ public class ElementLocatorTools extends UiAbstractTools {
             throw new ToolExecutionException("Element description cannot be empty", TRANSIENT_TOOL_ERROR);
         }
         try {
-            var retrievedElements = elementRetriever.retrieveUiElements(elementDescription, TOP_N_ELEMENTS_TO_RETRIEVE,
-                    MIN_GENERAL_RETRIEVAL_SCORE);
+            var retrievedElements = ofNullable(prefetcher)
+                    .flatMap(p -> p.getRetrievalResult(elementDescription))
+                    .orElseGet(() -> elementRetriever.retrieveUiElements(elementDescription, TOP_N_ELEMENTS_TO_RETRIEVE,
+                            MIN_GENERAL_RETRIEVAL_SCORE));
             var matchingByDescriptionUiElements = retrievedElements.stream()
                     .filter(retrievedUiElementItem -> retrievedUiElementItem
                             .mainScore() >= MIN_TARGET_RETRIEVAL_SCORE)
-                    .sorted(comparingDouble(RetrievedUiElementItem::mainScore).reversed())
+                    .sorted(comparingDouble(RetrievedUiElementItem::rankingScore).reversed())
                     .map(RetrievedUiElementItem::element)
                     .toList();
             if (matchingByDescriptionUiElements.isEmpty() && !retrievedElements.isEmpty()) {
@@ -163,25 +189,34 @@ public class ElementLocatorTools extends UiAbstractTools {
     }
 
     private UiElementBoundingBoxAgent createElementBoundingBoxAgent() {
-        var model = getModel(getElementBoundingBoxAgentModelName(), getElementBoundingBoxAgentModelProvider());
-        var prompt = loadSystemPrompt("element_locator/bounding_box", getElementBoundingBoxAgentPromptVersion(),
-                "element_bounding_box_prompt.txt");
-        return builder(UiElementBoundingBoxAgent.class)
-                .chatModel(model.chatModel())
-                .systemMessageProvider(_ -> prompt)
-                .tools(new BoundingBoxes(List.of()))
-                .build();
+        var modelName = getElementBoundingBoxAgentModelName();
+        var modelProvider = getElementBoundingBoxAgentModelProvider();
+        var promptVersion = getElementBoundingBoxAgentPromptVersion();
+        return AgentRegistry.getOrCreate(UiElementBoundingBoxAgent.class, modelName, modelProvider, promptVersion, () -> {
+            var model = getModel(modelName, modelProvider);
+            var prompt = loadSystemPrompt("element_locator/bounding_box", promptVersion, "element_bounding_box_prompt.txt");
+            return builder(UiElementBoundingBoxAgent.class)
+                    .chatModel(model.chatModel())
+                    .systemMessageProvider(_ -> prompt)
+                    .tools(new BoundingBoxes(List.of()))
+                    .build();
+        });
     }
 
     private BestUiElementMatchSelectionAgent createElementSelectionAgent() {
-        var model = getModel(getUiElementVisualMatchAgentModelName(), getUiElementVisualMatchAgentModelProvider());
-        var prompt = loadSystemPrompt("element_locator/best_ui_match_selection", getElementSelectionAgentPromptVersion(),
-                "find_best_matching_ui_element_id.txt");
-        return builder(BestUiElementMatchSelectionAgent.class)
-                .chatModel(model.chatModel())
-                .systemMessageProvider(_ -> prompt)
-                .tools(new BestUiElementVisualMatchResult(false, "", ""))
-                .build();
+        var modelName = getUiElementVisualMatchAgentModelName();
+        var modelProvider = getUiElementVisualMatchAgentModelProvider();
+        var promptVersion = getElementSelectionAgentPromptVersion();
+        return AgentRegistry.getOrCreate(BestUiElementMatchSelectionAgent.class, modelName, modelProvider, promptVersion, () -> {
+            var model = getModel(modelName, modelProvider);
+            var prompt = loadSystemPrompt("element_locator/best_ui_match_selection", promptVersion,
+                    "find_best_matching_ui_element_id.txt");
+            return builder(BestUiElementMatchSelectionAgent.class)
+                    .chatModel(model.chatModel())
+                    .systemMessageProvider(_ -> prompt)
+                    .tools(new BestUiElementVisualMatchResult(false, "", ""))
+                    .build();
+        });
     }
 
     private String getElementBoundingBoxUserMessage(UiElement uiElement, String elementTestData) {
@@ -226,14 +261,19 @@ public class ElementLocatorTools extends UiAbstractTools {
     }
 
     private DbUiElementSelectionAgent createDbElementSelectionAgent() {
-        var model = getModel(getDbElementCandidateSelectionAgentModelName(), getDbElementCandidateSelectionAgentModelProvider());
-        var prompt = loadSystemPrompt("element_locator/db_element_selector",
-                getDbElementCandidateSelectionAgentPromptVersion(), "select_best_db_search_result_prompt.txt");
-        return builder(DbUiElementSelectionAgent.class)
-                .chatModel(model.chatModel())
-                .systemMessageProvider(_ -> prompt)
-                .tools(new DbUiElementSelectionResult(false, "", ""))
-                .build();
+        var modelName = getDbElementCandidateSelectionAgentModelName();
+        var modelProvider = getDbElementCandidateSelectionAgentModelProvider();
+        var promptVersion = getDbElementCandidateSelectionAgentPromptVersion();
+        return AgentRegistry.getOrCreate(DbUiElementSelectionAgent.class, modelName, modelProvider, promptVersion, () -> {
+            var model = getModel(modelName, modelProvider);
+            var prompt = loadSystemPrompt("element_locator/db_element_selector", promptVersion,
+                    "select_best_db_search_result_prompt.txt");
+            return builder(DbUiElementSelectionAgent.class)
+                    .chatModel(model.chatModel())
+                    .systemMessageProvider(_ -> prompt)
+                    .tools(new DbUiElementSelectionResult(false, "", ""))
+                    .build();
+        });
     }
 
 
@@ -344,6 +384,9 @@ public class ElementLocatorTools extends UiAbstractTools {
     private ElementLocation processSuccessfulMatchCase(UiElementLocationInternalResult locationResult, String elementDescription) {
         var boundingBox = locationResult.boundingBox();
         LOG.info("The best visual match for the description '{}' has been located at: {}", elementDescription, boundingBox);
+        if (executionContext != null) {
+            executionContext.setLastKnownElementLocation(locationResult.elementUsedForLocation().uuid(), boundingBox);
+        }
         var scaledBoundingBox = getScaledBoundingBox(boundingBox);
         var center = new Point((int) scaledBoundingBox.getCenterX(), (int) scaledBoundingBox.getCenterY());
         var bbox = new BoundingBox( scaledBoundingBox.y, scaledBoundingBox.x,                scaledBoundingBox.y + scaledBoundingBox.height, scaledBoundingBox.x + scaledBoundingBox.width);
@@ -375,7 +418,10 @@ public class ElementLocatorTools extends UiAbstractTools {
 
     private UiElementLocationInternalResult getFinalElementLocation(UiElement elementRetrievedFromMemory,
                                                                     String elementTestData) {
-        var elementScreenshot = elementRetrievedFromMemory.screenshot() != null ? elementRetrievedFromMemory.screenshot().toBufferedImage() : null;
+        var elementScreenshot = ofNullable(prefetcher)
+                .flatMap(p -> p.getScreenshot(elementRetrievedFromMemory))
+                .or(() -> UiElementFeatureCache.getScreenshot(elementRetrievedFromMemory, elementRetriever.getScreenshotStore()))
+                .orElse(null);
         BufferedImage wholeScreenshot = captureScreen();
         boolean useAlgorithmicSearch = UiTestAgentConfig.isAlgorithmicSearchEnabled()
                 && !(elementRetrievedFromMemory.isDataDependent()) && elementScreenshot != null;
@@ -386,6 +432,12 @@ public class ElementLocatorTools extends UiAbstractTools {
 
 
 
+    private @Nullable Rectangle getLastKnownLocation(UiElement element) {
+        return ofNullable(executionContext)
+                .flatMap(context -> context.getLastKnownElementLocation(element.uuid()))
+                .orElse(null);
+    }
+
     @NotNull
     private Rectangle getRescaledBox(Rectangle scaledBox, double scaleFactor) {
         int rescaledX = (int) (scaledBox.x / scaleFactor);
@@ -407,10 +459,13 @@ public class ElementLocatorTools extends UiAbstractTools {
         List<Rectangle> featureMatchedBoundingBoxes = new LinkedList<>();
         List<Rectangle> templateMatchedBoundingBoxes = new LinkedList<>();
         if (useAlgorithmicSearch && elementScreenshot != null) {
+            var matchingExecutor = bindToCurrentExecution(ForkJoinPool.commonPool());
             var featureMatchedBoundingBoxesByElementFuture = supplyAsync(
-                    () -> findMatchingRegionsWithORB(wholeScreenshot, elementScreenshot));
+                    () -> findMatchingRegionsWithORB(wholeScreenshot, elementRetrievedFromMemory,
+                            elementRetriever.getScreenshotStore()), matchingExecutor);
             var templateMatchedBoundingBoxesByElementFuture = supplyAsync(() -> mergeOverlappingRectangles(
-                    findMatchingRegionsWithTemplateMatching(wholeScreenshot, elementScreenshot)));
+                    findMatchingRegionsWithTemplateMatching(wholeScreenshot, elementScreenshot,
+                            getLastKnownLocation(elementRetrievedFromMemory))), matchingExecutor);
             featureMatchedBoundingBoxes = featureMatchedBoundingBoxesByElementFuture.join();
             templateMatchedBoundingBoxes = templateMatchedBoundingBoxesByElementFuture.join();
             if (DEBUG_MODE) {
@@ -546,12 +601,14 @@ public class ElementLocatorTools extends UiAbstractTools {
             var scalingRatio = getScalingRatio(wholeScreenshot);
             var imageToSend = scalingRatio < 1.0 ? scaleImage(wholeScreenshot, scalingRatio) : wholeScreenshot;
             var prompt = getElementBoundingBoxUserMessage(element, elementTestData);
+            // All votes share the same frame, so the screenshot is encoded only once
+            var frame = EncodedFrame.of(imageToSend);
             try (var executor = newVirtualThreadPerTaskExecutor()) {
                 List<Callable<List<BoundingBox>>> tasks = range(0, VISUAL_GROUNDING_MODEL_VOTE_COUNT)
-                        .mapToObj(_ -> (Callable<List<BoundingBox>>) () -> Objects.requireNonNull(
+                        .mapToObj(_ -> bindToCurrentExecution(bindToCurrentScope(() -> Objects.requireNonNull(
                                 uiElementBoundingBoxAgent.executeAndGetResult(
-                                        () -> uiElementBoundingBoxAgent.identifyBoundingBoxes(prompt, singleImageContent(imageToSend))
-                                ).getResultPayload()).boundingBoxes())
+                                        () -> uiElementBoundingBoxAgent.identifyBoundingBoxes(prompt, frame.toImageContent())
+                                ).getResultPayload()).boundingBoxes())))
                         .toList();
                 List<Rectangle> allBoundingBoxes = executor.invokeAll(tasks).stream()
                         .map(future -> getFutureResult(future, "getting bounding boxes from vision model"))
@@ -687,12 +744,13 @@ public class ElementLocatorTools extends UiAbstractTools {
         try (var executor = newVirtualThreadPerTaskExecutor()) {
             var prompt = getBestElementVisualMatchUserMessage(uiElement, elementTestData, boxIds);
             var boundingBoxColorName = UiCommonUtils.getColorName(BOUNDING_BOX_COLOR).toLowerCase();
+            var frame = EncodedFrame.of(resultingScreenshot);
 
             List<Callable<BestUiElementVisualMatchResult>> tasks = range(0, VALIDATION_MODEL_VOTE_COUNT)
-                    .mapToObj(_ -> (Callable<BestUiElementVisualMatchResult>) () -> bestUiElementMatchSelectionAgent.executeAndGetResult(
+                    .mapToObj(_ -> bindToCurrentExecution(bindToCurrentScope(() -> bestUiElementMatchSelectionAgent.executeAndGetResult(
                             () -> bestUiElementMatchSelectionAgent.selectBestElement(prompt,
-                                    singleImageContent(resultingScreenshot), boundingBoxColorName)
-                    ).getResultPayload())
+                                    frame.toImageContent(), boundingBoxColorName)
+                    ).getResultPayload())))
                     .toList();
             return executor.invokeAll(tasks).stream()
                     .map(future -> getFutureResult(future, "UI element identification by the model"))
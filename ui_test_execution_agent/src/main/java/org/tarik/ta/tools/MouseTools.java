@@ -20,11 +20,10 @@ import dev.langchain4j.agent.tool.Tool;
 import org.tarik.ta.core.AgentConfig;
 import org.tarik.ta.agents.UiStateCheckAgent;
 import org.tarik.ta.core.exceptions.ToolExecutionException;
+import org.tarik.ta.utils.UiCommonUtils;
 
 import java.awt.*;
 import java.awt.event.InputEvent;
-import java.awt.image.BufferedImage;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static java.lang.System.currentTimeMillis;
 import static org.tarik.ta.core.AgentConfig.getMaxActionExecutionDurationMillis;
@@ -33,6 +32,10 @@ import static org.tarik.ta.core.error.ErrorCategory.TRANSIENT_TOOL_ERROR;
 import static org.tarik.ta.utils.UiCommonUtils.*;
 import static org.tarik.ta.core.utils.CommonUtils.*;
 import static org.tarik.ta.utils.ImageUtils.singleImageContent;
+import static org.tarik.ta.utils.ScreenChangeDetector.awaitScreenChange;
+import static org.tarik.ta.utils.ScreenChangeDetector.performAndAwaitReaction;
+import static org.tarik.ta.UiTestAgentConfig.getUiSettleMaxActionWaitMillis;
+import static org.tarik.ta.UiTestAgentConfig.getUiSettleMaxReactionWaitMillis;
 
 public class MouseTools extends UiAbstractTools {
     private static final int MOUSE_ACTION_DELAY_MILLIS = 100;
@@ -136,18 +139,21 @@ public class MouseTools extends UiAbstractTools {
 
         try {
             var actionDescription = "Clicked at location (%s, %s)".formatted(x, y);
+            var initialScreenshot = captureScreen();
             var checkResult = uiStateCheckAgent.executeAndGetResult(() ->
                     uiStateCheckAgent.verify(expectedStateDescription, actionDescription, "",
-                            singleImageContent(captureScreen()))).getResultPayload();
+                            singleImageContent(initialScreenshot))).getResultPayload();
             if (checkResult == null || !checkResult.success()) {
                 var waitDuration = getMaxActionExecutionDurationMillis();
                 long deadline = currentTimeMillis() + waitDuration;
-                AtomicReference<BufferedImage> latestScreenshot = new AtomicReference<>();
+                var lastVerifiedScreenshot = initialScreenshot;
                 Point clickLocation = new Point(x, y);
                 do {
                     leftMouseClick(clickLocation);
-                    sleepMillis(RETRIABLE_ACTION_DELAY_MILLIS);
-                    var screenshot = latestScreenshot.updateAndGet(_ -> captureScreen());
+                    // Small changes might not be detected, so the current screen is verified anyway before clicking again
+                    var screenshot = awaitScreenChange(lastVerifiedScreenshot, RETRIABLE_ACTION_DELAY_MILLIS)
+                            .orElseGet(UiCommonUtils::captureScreen);
+                    lastVerifiedScreenshot = screenshot;
                     var result = uiStateCheckAgent.executeAndGetResult(() ->
                             uiStateCheckAgent.verify(expectedStateDescription, actionDescription, "",
                                     singleImageContent(screenshot))).getResultPayload();
@@ -166,9 +172,10 @@ public class MouseTools extends UiAbstractTools {
     protected void leftMouseClick(Point elementLocation) {
         getRobot().mouseMove(elementLocation.x, elementLocation.y);
         sleepMillis(MOUSE_ACTION_DELAY_MILLIS);
-        getRobot().mousePress(InputEvent.BUTTON1_DOWN_MASK);
-        getRobot().mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
-        sleepMillis(MOUSE_ACTION_DELAY_MILLIS);
+        performAndAwaitReaction(() -> {
+            getRobot().mousePress(InputEvent.BUTTON1_DOWN_MASK);
+            getRobot().mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+        }, getUiSettleMaxReactionWaitMillis(), getUiSettleMaxActionWaitMillis());
     }
 
     private void validateCoordinates(int x, int y) {
@@ -17,6 +17,7 @@ package org.tarik.ta.tools;
 
 import org.tarik.ta.agents.UiStateCheckAgent;
 import dev.langchain4j.service.AiServices;
+import org.tarik.ta.core.agents.AgentRegistry;
 import org.tarik.ta.core.tools.AbstractTools;
 import org.tarik.ta.dto.UiStateCheckResult;
 
@@ -34,13 +35,18 @@ public class UiAbstractTools extends AbstractTools {
     }
 
     private static UiStateCheckAgent createUiStateCheckAgent() {
-        var prompt = loadSystemPrompt(AGENT_PATH, getUiStateCheckAgentPromptVersion(), UI_STATE_CHECKER_PROMPT_FILE);
-        return AiServices.builder(UiStateCheckAgent.class)
-                .chatModel(getModel(getUiStateCheckAgentModelName(), getUiStateCheckAgentModelProvider()).chatModel())
-                .systemMessageProvider(_ -> prompt)
-                .maxSequentialToolsInvocations(getAgentToolCallsBudget())
-                .tools(new UiStateCheckResult(false, ""))
-                .build();
+        var modelName = getUiStateCheckAgentModelName();
+        var modelProvider = getUiStateCheckAgentModelProvider();
+        var promptVersion = getUiStateCheckAgentPromptVersion();
+        return AgentRegistry.getOrCreate(UiStateCheckAgent.class, modelName, modelProvider, promptVersion, () -> {
+            var prompt = loadSystemPrompt(AGENT_PATH, promptVersion, UI_STATE_CHECKER_PROMPT_FILE);
+            return AiServices.builder(UiStateCheckAgent.class)
+                    .chatModel(getModel(modelName, modelProvider).chatModel())
+                    .systemMessageProvider(_ -> prompt)
+                    .maxSequentialToolsInvocations(getAgentToolCallsBudget())
+                    .tools(new UiStateCheckResult(false, ""))
+                    .build();
+        });
     }
 
     protected UiAbstractTools(UiStateCheckAgent uiStateCheckAgent) {
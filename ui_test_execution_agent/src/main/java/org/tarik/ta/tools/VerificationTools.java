@@ -26,11 +26,14 @@ import org.tarik.ta.core.error.RetryPolicy;
 import org.tarik.ta.dto.UiOperationExecutionResult;
 import org.tarik.ta.model.UiTestExecutionContext;
 import org.tarik.ta.model.VisualState;
+import org.tarik.ta.utils.UiCommonUtils;
+
+import java.awt.image.BufferedImage;
 
 import static java.lang.System.currentTimeMillis;
 import static org.tarik.ta.core.manager.BudgetManager.resetToolCallUsage;
-import static org.tarik.ta.core.utils.CommonUtils.sleepMillis;
 import static org.tarik.ta.utils.ImageUtils.singleImageContent;
+import static org.tarik.ta.utils.ScreenChangeDetector.awaitScreenChange;
 import static org.tarik.ta.utils.UiCommonUtils.captureScreen;
 
 public class VerificationTools extends UiAbstractTools {
@@ -56,15 +59,28 @@ public class VerificationTools extends UiAbstractTools {
         LOG.info("Starting the retriable verification that: '{}'", verificationDescription);
 
         UiOperationExecutionResult<VerificationExecutionResult> lastResult = null;
+        BufferedImage lastVerifiedScreenshot = null;
         do {
             LOG.info("Attempt: {}", attempts + 1);
             try {
-                lastResult = (UiOperationExecutionResult<VerificationExecutionResult>) imageVerificationAgent.executeAndGetResult(() -> {
-                    var screenshot = captureScreen();
-                    context.setVisualState(new VisualState(screenshot));
-                    return imageVerificationAgent.verify(verificationDescription, actionDescription, actionTestData,
-                            context.getSharedData().toString(), singleImageContent(screenshot));
-                });
+                BufferedImage screenshot;
+                if (lastVerifiedScreenshot == null) {
+                    screenshot = captureScreen();
+                } else {
+                    // The next attempt is made as soon as the screen changes, but not later than after the retry delay. Small
+                    // changes (e.g. a toggled checkbox) might not be detected, that's why the current screen is verified then.
+                    var changedScreenshot = awaitScreenChange(lastVerifiedScreenshot, retryPolicy.delayMillis());
+                    if (changedScreenshot.isEmpty()) {
+                        LOG.info("No screen change detected within {} millis, verifying the current screen.",
+                                retryPolicy.delayMillis());
+                    }
+                    screenshot = changedScreenshot.orElseGet(UiCommonUtils::captureScreen);
+                }
+                lastVerifiedScreenshot = screenshot;
+                context.setVisualState(new VisualState(screenshot));
+                lastResult = (UiOperationExecutionResult<VerificationExecutionResult>) imageVerificationAgent.executeAndGetResult(() ->
+                        imageVerificationAgent.verify(verificationDescription, actionDescription, actionTestData,
+                                context.getSharedData().toString(), singleImageContent(screenshot)));
                 attempts++;
                 resetToolCallUsage();
 
@@ -75,8 +91,6 @@ public class VerificationTools extends UiAbstractTools {
                 if (lastResult.getResultPayload() != null && lastResult.getResultPayload().success()) {
                     return lastResult.getResultPayload();
                 }
-
-                sleepMillis(retryPolicy.delayMillis());
             } catch (Exception e) {
                 LOG.error("Unexpected error during verification", e);
                 if (attempts > retryPolicy.maxRetries()) {
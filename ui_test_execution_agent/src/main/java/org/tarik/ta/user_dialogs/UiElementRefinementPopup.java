@@ -16,8 +16,11 @@
 package org.tarik.ta.user_dialogs;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.tarik.ta.dto.ElementRefinementOperation;
+import org.tarik.ta.rag.ElementScreenshotStore;
 import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.utils.UiElementFeatureCache;
 
 import java.awt.image.BufferedImage;
 import javax.swing.*;
@@ -46,7 +49,8 @@ public class UiElementRefinementPopup extends AbstractDialog {
 
     private ElementRefinementOperation result;
 
-    private UiElementRefinementPopup(Window owner, String message, List<UiElement> itemsToRefine) {
+    private UiElementRefinementPopup(Window owner, String message, List<UiElement> itemsToRefine,
+                                     @Nullable ElementScreenshotStore screenshotStore) {
         super(owner, DIALOG_TITLE);
 
         JPanel mainPanel = getDefaultMainPanel();
@@ -56,7 +60,7 @@ public class UiElementRefinementPopup extends AbstractDialog {
         JPanel elementPanel = new JPanel();
         elementPanel.setLayout(new BoxLayout(elementPanel, BoxLayout.Y_AXIS));
         itemsToRefine.forEach(element -> {
-            var elementLabel = getElementLabel(element);
+            var elementLabel = getElementLabel(element, screenshotStore);
             setHoverAsClick(elementLabel);
             elementLabel.addMouseListener(new MouseAdapter() {
                 @Override
@@ -129,7 +133,7 @@ public class UiElementRefinementPopup extends AbstractDialog {
     }
 
     @NotNull
-    private JLabel getElementLabel(UiElement element) {
+    private JLabel getElementLabel(UiElement element, @Nullable ElementScreenshotStore screenshotStore) {
         var elementFullName = isNotBlank(element.parentElementSummary())
                 ? "%s belonging to %s".formatted(element.name(), element.parentElementSummary())
                 : element.name();
@@ -137,7 +141,7 @@ public class UiElementRefinementPopup extends AbstractDialog {
                 ELEMENT_DESCRIPTION_FONT_SIZE, elementFullName,
                 element.description());
         JLabel label = new JLabel(labelText);
-        label.setIcon(getImageIcon(element));
+        label.setIcon(getImageIcon(element, screenshotStore));
         label.setHorizontalTextPosition(SwingConstants.RIGHT);
         label.setVerticalTextPosition(SwingConstants.CENTER);
         label.setVerticalAlignment(SwingConstants.CENTER);
@@ -147,12 +151,12 @@ public class UiElementRefinementPopup extends AbstractDialog {
     }
 
     @NotNull
-    private static ImageIcon getImageIcon(UiElement element) {
-        if (element.screenshot() == null) {
+    private static ImageIcon getImageIcon(UiElement element, @Nullable ElementScreenshotStore screenshotStore) {
+        var elementScreenshot = UiElementFeatureCache.getScreenshot(element, screenshotStore).orElse(null);
+        if (elementScreenshot == null) {
             BufferedImage placeholder = new BufferedImage(IMAGE_TARGET_WIDTH, IMAGE_TARGET_WIDTH / 2, BufferedImage.TYPE_INT_ARGB);
             return new ImageIcon(placeholder);
         }
-        var elementScreenshot = element.screenshot().toBufferedImage();
         var originalWidth = elementScreenshot.getWidth();
         var scalingRatio = ((double) IMAGE_TARGET_WIDTH) / originalWidth;
         var imageTargetHeight = (int) (elementScreenshot.getHeight() * scalingRatio);
@@ -162,8 +166,9 @@ public class UiElementRefinementPopup extends AbstractDialog {
 
     public static Optional<ElementRefinementOperation> displayAndGetChoice(Window owner,
             @NotNull String message,
-            @NotNull List<UiElement> elementsToRefine) {
-        UiElementRefinementPopup popup = new UiElementRefinementPopup(owner, message, elementsToRefine);
+            @NotNull List<UiElement> elementsToRefine,
+            @Nullable ElementScreenshotStore screenshotStore) {
+        UiElementRefinementPopup popup = new UiElementRefinementPopup(owner, message, elementsToRefine, screenshotStore);
         return ofNullable(popup.result);
     }
 
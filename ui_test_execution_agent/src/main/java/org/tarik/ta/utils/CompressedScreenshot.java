@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.SoftReference;
+
+import static org.tarik.ta.utils.ImageUtils.convertBase64ToImage;
+
+/**
+ * A screenshot which is kept only in its encoded form. Full-resolution frames held by the execution results and the visual state
+ * of a running test case take tens of megabytes each, whereas the encoded bytes are typically an order of magnitude smaller. The
+ * encoding is done using the configured {@link ImageCodec} and is shared with {@link EncodedFrame}, so a screenshot which has
+ * already been sent to a model isn't encoded again, and the artifacts can be created directly from the stored bytes.
+ * <p>
+ * The original image isn't retained. The decoded image is created lazily and is only softly referenced, so it can be reclaimed under
+ * memory pressure and decoded again later if needed.
+ */
+public final class CompressedScreenshot {
+    private static final Logger LOG = LoggerFactory.getLogger(CompressedScreenshot.class);
+
+    private final EncodedFrame.Encoding encoding;
+    private volatile SoftReference<BufferedImage> decodedImage;
+
+    private CompressedScreenshot(@NotNull EncodedFrame.Encoding encoding) {
+        this.encoding = encoding;
+        // Soft references are cleared only under memory pressure, so referencing the original image would keep it in the heap
+        this.decodedImage = new SoftReference<>(null);
+    }
+
+    /**
+     * Encodes the provided screenshot using the configured codec.
+     *
+     * @return the compressed screenshot or {@code null} if there is no screenshot or it couldn't be encoded
+     */
+    public static @Nullable CompressedScreenshot of(@Nullable BufferedImage screenshot) {
+        return screenshot == null ? null : of(screenshot, ImageCodec.fromConfig());
+    }
+
+    /**
+     * Encodes the provided screenshot using the provided codec.
+     *
+     * @return the compressed screenshot or {@code null} if it couldn't be encoded
+     */
+    public static @Nullable CompressedScreenshot of(@NotNull BufferedImage screenshot, @NotNull ImageCodec codec) {
+        try {
+            return new CompressedScreenshot(EncodedFrame.of(screenshot).encoded(codec));
+        } catch (RuntimeException e) {
+            LOG.warn("Couldn't encode the screenshot, it won't be available in the results", e);
+            return null;
+        }
+    }
+
+    public EncodedFrame.Encoding encoding() {
+        return encoding;
+    }
+
+    public ImageCodec codec() {
+        return encoding.codec();
+    }
+
+    public int sizeBytes() {
+        return encoding.sizeBytes();
+    }
+
+    /**
+     * Returns the screenshot as an image, decoding it only if the previously decoded instance isn't reachable anymore. The returned
+     * image is shared, so it must not be modified - draw on a clone instead.
+     */
+    public BufferedImage toBufferedImage() {
+        var image = decodedImage.get();
+        if (image == null) {
+            image = convertBase64ToImage(encoding.base64Data());
+            decodedImage = new SoftReference<>(image);
+        }
+        return image;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof CompressedScreenshot that))
+            return false;
+        return encoding.equals(that.encoding);
+    }
+
+    @Override
+    public int hashCode() {
+        return encoding.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedScreenshot[format=%s, sizeBytes=%d]".formatted(codec().format(), sizeBytes());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dev.langchain4j.data.image.Image;
+import dev.langchain4j.data.message.ImageContent;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import static dev.langchain4j.data.message.ImageContent.DetailLevel.HIGH;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * An image together with its lazily created encodings. Each encoding is computed at most once per {@link ImageCodec}, so the same
+ * screenshot can be sent to multiple model votes, several agents and attached as an A2A artifact without being re-encoded.
+ * <p>
+ * Frames are shared per image instance: {@link #of(BufferedImage)} returns a view backed by the same encodings as long as the image
+ * is reachable. The image must therefore not be modified after it has been encoded - draw on a clone instead (the way all bounding
+ * box plotting in this project already does).
+ */
+public final class EncodedFrame {
+    private static final Logger LOG = LoggerFactory.getLogger(EncodedFrame.class);
+    // Weak keys use identity comparison, so each image instance gets its own encodings which are dropped together with the image
+    private static final Cache<BufferedImage, ConcurrentMap<ImageCodec, Encoding>> ENCODINGS_BY_IMAGE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final BufferedImage image;
+    private final ConcurrentMap<ImageCodec, Encoding> encodings;
+
+    private EncodedFrame(BufferedImage image, ConcurrentMap<ImageCodec, Encoding> encodings) {
+        this.image = image;
+        this.encodings = encodings;
+    }
+
+    /**
+     * Returns the frame of the provided image, sharing the already created encodings of this image instance.
+     */
+    public static EncodedFrame of(@NotNull BufferedImage image) {
+        try {
+            return new EncodedFrame(image, ENCODINGS_BY_IMAGE.get(image, ConcurrentHashMap::new));
+        } catch (ExecutionException e) {
+            // The loader can't throw, this is only here to satisfy the API
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Returns the encoding of this frame using the configured codec.
+     */
+    public Encoding encoded() {
+        return encoded(ImageCodec.fromConfig());
+    }
+
+    /**
+     * Returns the encoding of this frame using the provided codec, encoding the image only if it hasn't been done before.
+     */
+    public Encoding encoded(@NotNull ImageCodec codec) {
+        return encodings.computeIfAbsent(codec, this::encode);
+    }
+
+    public ImageContent toImageContent() {
+        return toImageContent(ImageCodec.fromConfig());
+    }
+
+    public ImageContent toImageContent(@NotNull ImageCodec codec) {
+        return ImageContent.from(encoded(codec).toImage(), HIGH);
+    }
+
+    private Encoding encode(ImageCodec codec) {
+        long start = nanoTime();
+        byte[] bytes = codec.encode(image);
+        LOG.debug("Encoded {}x{} image as {} (quality {}) in {} ms, size: {} KB", image.getWidth(), image.getHeight(),
+                codec.format(), codec.quality(), NANOSECONDS.toMillis(nanoTime() - start), bytes.length / 1024);
+        return new Encoding(codec, Base64.getEncoder().encodeToString(bytes), bytes.length);
+    }
+
+    /**
+     * A single encoding of the frame.
+     *
+     * @param codec      the codec which produced this encoding
+     * @param base64Data Base64 representation of the encoded image
+     * @param sizeBytes  size of the encoded image in bytes
+     */
+    public record Encoding(@NotNull ImageCodec codec, @NotNull String base64Data, int sizeBytes) {
+        public String mimeType() {
+            return codec.mimeType();
+        }
+
+        public Image toImage() {
+            return Image.builder()
+                    .mimeType(mimeType())
+                    .base64Data(base64Data)
+                    .build();
+        }
+    }
+}
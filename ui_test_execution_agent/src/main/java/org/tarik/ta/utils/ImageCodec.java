@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.ConcurrentHashMap.newKeySet;
+import static javax.imageio.ImageIO.createImageOutputStream;
+import static javax.imageio.ImageIO.getImageWritersByFormatName;
+import static javax.imageio.ImageIO.write;
+import static org.tarik.ta.UiTestAgentConfig.getScreenshotEncodingFormat;
+import static org.tarik.ta.UiTestAgentConfig.getScreenshotEncodingQuality;
+import static org.tarik.ta.core.utils.CommonUtils.isBlank;
+
+/**
+ * Describes how screenshots are encoded before being sent to the models or attached to the execution results. Lossless PNG keeps
+ * every pixel, lossy formats (JPEG, WebP) produce considerably smaller payloads at the cost of compression artifacts. WebP is
+ * available only if a corresponding ImageIO plugin is on the classpath.
+ *
+ * @param format  ImageIO format name, e.g. "png", "jpeg" or "webp"
+ * @param quality compression quality in the range [0, 1], ignored by lossless formats
+ */
+public record ImageCodec(@NotNull String format, float quality) {
+    private static final Logger LOG = LoggerFactory.getLogger(ImageCodec.class);
+    private static final String PNG_FORMAT = "png";
+    private static final Set<String> REPORTED_UNSUPPORTED_FORMATS = newKeySet();
+    public static final ImageCodec PNG = new ImageCodec(PNG_FORMAT, 1.0f);
+
+    public ImageCodec {
+        checkArgument(!isBlank(format), "Image format must not be blank");
+        checkArgument(quality >= 0 && quality <= 1, "Image encoding quality must be in the range [0, 1], got %s", quality);
+        format = format.trim().toLowerCase();
+        if (format.equals("jpg")) {
+            format = "jpeg";
+        }
+        if (isLossless(format)) {
+            // Quality has no effect on lossless formats, normalizing it makes equal encodings share the same key
+            quality = 1.0f;
+        }
+    }
+
+    /**
+     * Creates the codec based on the screenshot encoding configuration. Falls back to PNG if the configured format has no ImageIO
+     * writer available.
+     */
+    public static ImageCodec fromConfig() {
+        String format = getScreenshotEncodingFormat();
+        if (isBlank(format) || isLossless(format.trim().toLowerCase())) {
+            return PNG;
+        }
+        var codec = new ImageCodec(format, (float) getScreenshotEncodingQuality());
+        if (!isSupported(codec.format())) {
+            if (REPORTED_UNSUPPORTED_FORMATS.add(codec.format())) {
+                LOG.warn("No image writer is available for the configured screenshot format '{}', falling back to PNG.",
+                        codec.format());
+            }
+            return PNG;
+        }
+        return codec;
+    }
+
+    public static boolean isSupported(@NotNull String format) {
+        return getImageWritersByFormatName(format).hasNext();
+    }
+
+    public String mimeType() {
+        return "image/" + format;
+    }
+
+    public String fileExtension() {
+        return format.equals("jpeg") ? "jpg" : format;
+    }
+
+    /**
+     * Encodes the provided image using this codec.
+     *
+     * @throws UncheckedIOException if the image can't be encoded
+     */
+    public byte[] encode(@NotNull BufferedImage image) {
+        if (isLossless(format)) {
+            return ImageUtils.imageToByteArray(image, format);
+        }
+
+        var writers = getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new UncheckedIOException(new IOException("No image writer is available for the format '%s'".formatted(format)));
+        }
+        ImageWriter writer = writers.next();
+        try (var byteStream = new ByteArrayOutputStream(); var imageStream = createImageOutputStream(byteStream)) {
+            writer.setOutput(imageStream);
+            ImageWriteParam params = writer.getDefaultWriteParam();
+            if (params.canWriteCompressed()) {
+                params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (params.getCompressionType() == null && params.getCompressionTypes() != null) {
+                    params.setCompressionType(params.getCompressionTypes()[0]);
+                }
+                params.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(withoutAlpha(image), null, null), params);
+            imageStream.flush();
+            return byteStream.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static boolean isLossless(String format) {
+        return format.equals(PNG_FORMAT);
+    }
+
+    private static BufferedImage withoutAlpha(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        // Lossy encoders either reject an alpha channel or write it as a color channel
+        var result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        var graphics = result.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return result;
+    }
+}
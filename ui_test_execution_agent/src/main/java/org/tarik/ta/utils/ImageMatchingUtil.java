@@ -21,37 +21,50 @@ import org.apache.commons.math3.ml.clustering.DBSCANClusterer;
 import org.bytedeco.javacpp.Loader;
 import org.bytedeco.opencv.opencv_java;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.opencv.core.*;
 import org.opencv.core.DMatch;
 import org.opencv.core.KeyPoint;
 import org.opencv.features2d.DescriptorMatcher;
 import org.opencv.features2d.ORB;
-import org.opencv.imgcodecs.Imgcodecs;
-import org.opencv.imgproc.Imgproc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tarik.ta.UiTestAgentConfig;
+import org.tarik.ta.rag.ElementScreenshotStore;
+import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.utils.TemplateMatchingEngine.MatchingOptions;
+import org.tarik.ta.utils.TemplateMatchingEngine.TemplateMatch;
 
-import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.awt.image.BufferedImage.*;
 import static java.lang.Math.max;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.Comparator.comparingDouble;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static org.opencv.calib3d.Calib3d.RANSAC;
 import static org.opencv.calib3d.Calib3d.findHomography;
 import static org.opencv.core.Core.countNonZero;
+import static org.opencv.core.Core.mixChannels;
 import static org.opencv.core.Core.perspectiveTransform;
+import static org.opencv.core.CvType.*;
 import static org.opencv.features2d.ORB.*;
-import static org.opencv.imgcodecs.Imgcodecs.imdecode;
 import static org.opencv.imgproc.Imgproc.*;
-import static org.tarik.ta.utils.ImageUtils.imageToByteArray;
 
 
 public class ImageMatchingUtil {
@@ -73,46 +86,48 @@ public class ImageMatchingUtil {
     private static final int ORB_FAST_THRESHOLD = 6;
     private static final double MAX_REPROJECTION_ERROR_THRESHOLD = 5.0;
 
-    private static ORB ORB;
-    private static boolean initialized = false;
+    // OpenCV feature detectors and matchers aren't thread-safe, so each concurrent matching borrows its own instances
+    private static final int MAX_IDLE_POOLED_INSTANCES = Runtime.getRuntime().availableProcessors();
+    private static final Pool<ORB> ORB_POOL = new Pool<>(() -> create(ORB_MAX_FEATURES, ORB_SCALE_FACTOR, ORB_N_LEVELS,
+            ORB_EDGE_THRESHOLD, ORB_FIRST_LEVEL, ORB_WTA_K, HARRIS_SCORE, ORB_PATCH_SIZE, ORB_FAST_THRESHOLD));
+    private static final Pool<DescriptorMatcher> MATCHER_POOL =
+            new Pool<>(() -> DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING));
+
+    /**
+     * Loads the OpenCV native library exactly once, on the first access, using the lazy holder idiom.
+     */
+    private static final class OpenCvLoader {
+        private static final boolean LOADED = load();
+
+        private static boolean load() {
+            try {
+                Loader.load(opencv_java.class);
+                return true;
+            } catch (Throwable t) {
+                LOG.error("Failure while initializing OpenCV.", t);
+                throw t;
+            }
+        }
 
-    private static boolean initializeOpenCv() {
-        try {
-            Loader.load(opencv_java.class);
-            ORB = create(ORB_MAX_FEATURES, ORB_SCALE_FACTOR, ORB_N_LEVELS, ORB_EDGE_THRESHOLD, ORB_FIRST_LEVEL, ORB_WTA_K, HARRIS_SCORE,
-                    ORB_PATCH_SIZE, ORB_FAST_THRESHOLD);
-            return true;
-        } catch (Throwable t) {
-            LOG.error("Failure while initializing OpenCV.", t);
-            throw t;
+        static void ensureLoaded() {
+            checkState(LOADED, "OpenCV native library is not loaded");
         }
     }
 
     public static List<Rectangle> findMatchingRegionsWithTemplateMatching(BufferedImage wholeScreenshot, BufferedImage elementScreenshot) {
-        if (!initialized) {
-            initialized = initializeOpenCv();
-        }
-        Mat source = imdecode(new MatOfByte(imageToByteArray(wholeScreenshot, "png")), Imgcodecs.IMREAD_COLOR);
-        Mat template = imdecode(new MatOfByte(imageToByteArray(elementScreenshot, "png")), Imgcodecs.IMREAD_COLOR);
-        Mat result = new Mat();
-        matchTemplate(source, template, result, Imgproc.TM_CCOEFF_NORMED);
-        List<MatchResult> matches = new ArrayList<>();
-        while (matches.size() < UiTestAgentConfig.getElementLocatorTopVisualMatches()) {
-            var res = Core.minMaxLoc(result);
-            if (res.maxVal >= UiTestAgentConfig.getElementLocatorVisualSimilarityThreshold()) {
-                var maxLocation = res.maxLoc;
-                matches.add(new MatchResult(new java.awt.Point((int) maxLocation.x, (int) maxLocation.y), res.maxVal));
-                floodFill(result, new Mat(), maxLocation, new Scalar(0));
-            } else {
-                break;
-            }
-        }
+        return findMatchingRegionsWithTemplateMatching(wholeScreenshot, elementScreenshot, null);
+    }
 
-        var boundingBoxes =  matches.stream()
-                .sorted(comparingDouble(MatchResult::score).reversed())
-                .limit(UiTestAgentConfig.getElementLocatorTopVisualMatches())
-                .map(match ->
-                        new Rectangle(match.point(), new Dimension(elementScreenshot.getWidth(), elementScreenshot.getHeight())))
+    /**
+     * Finds the regions matching the element screenshot using {@link TemplateMatchingEngine}, searching the provided region of
+     * interest first if it's not null.
+     */
+    public static List<Rectangle> findMatchingRegionsWithTemplateMatching(BufferedImage wholeScreenshot, BufferedImage elementScreenshot,
+                                                                          @Nullable Rectangle regionOfInterest) {
+        var boundingBoxes = TemplateMatchingEngine.findMatches(wholeScreenshot, elementScreenshot, regionOfInterest,
+                        MatchingOptions.fromConfig())
+                .stream()
+                .map(TemplateMatch::rectangle)
                 .toList();
         LOG.info("Found {} matching regions using template matching.", boundingBoxes.size());
         return boundingBoxes;
@@ -124,20 +139,49 @@ public class ImageMatchingUtil {
 
     public static List<Rectangle> findMatchingRegionsWithORB(BufferedImage wholeScreenshot, BufferedImage elementScreenshot,
                                                              double deviationRatio) {
-        if (!initialized) {
-            initialized = initializeOpenCv();
+        return findMatchingRegionsWithORB(wholeScreenshot, extractFeatures(elementScreenshot), deviationRatio);
+    }
+
+    /**
+     * Same as {@link #findMatchingRegionsWithORB(BufferedImage, BufferedImage)}, but uses the cached screenshot features of the stored
+     * UI element instead of extracting them on each call. The screenshot is loaded from the provided store if it isn't inlined.
+     */
+    public static List<Rectangle> findMatchingRegionsWithORB(BufferedImage wholeScreenshot, UiElement element,
+                                                             @Nullable ElementScreenshotStore screenshotStore) {
+        return UiElementFeatureCache.withFeatures(element, screenshotStore,
+                        features -> findMatchingRegionsWithORB(wholeScreenshot, features,
+                                UiTestAgentConfig.getFoundMatchesDimensionDeviationRatio()))
+                .orElseGet(List::of);
+    }
+
+    /**
+     * Converts the provided element screenshot into grayscale and extracts its ORB keypoints and descriptors.
+     */
+    public static ElementFeatures extractFeatures(@NotNull BufferedImage elementScreenshot) {
+        OpenCvLoader.ensureLoaded();
+        Mat elementMat = toMat(elementScreenshot, true);
+        MatOfKeyPoint keypoints = new MatOfKeyPoint();
+        Mat descriptors = new Mat();
+        if (!elementMat.empty()) {
+            ORB_POOL.run(orb -> orb.detectAndCompute(elementMat, new Mat(), keypoints, descriptors));
         }
+        var keyPointsList = keypoints.toList();
+        keypoints.release();
+        return new ElementFeatures(elementMat, keyPointsList, descriptors);
+    }
+
+    private static List<Rectangle> findMatchingRegionsWithORB(BufferedImage wholeScreenshot, ElementFeatures elementFeatures,
+                                                              double deviationRatio) {
+        OpenCvLoader.ensureLoaded();
 
-        Mat wholeMat = imdecode(new MatOfByte(imageToByteArray(wholeScreenshot, "png")), Imgcodecs.IMREAD_GRAYSCALE);
-        Mat elementMat = imdecode(new MatOfByte(imageToByteArray(elementScreenshot, "png")), Imgcodecs.IMREAD_GRAYSCALE);
+        Mat wholeMat = toMat(wholeScreenshot, true);
+        Mat elementMat = elementFeatures.grayscaleMat();
         if (elementMat.empty() || wholeMat.empty()) {
             LOG.error("Cannot read images, one or both are empty.");
             return Collections.emptyList();
         }
 
-        MatOfKeyPoint keypointsElement = new MatOfKeyPoint();
-        Mat descriptorsElement = new Mat();
-        ORB.detectAndCompute(elementMat, new Mat(), keypointsElement, descriptorsElement);
+        Mat descriptorsElement = elementFeatures.descriptors();
         if (descriptorsElement.empty()) {
             LOG.warn("No descriptors found in element screenshot, please verify the config of ORB algorithm.");
             return List.of();
@@ -145,7 +189,7 @@ public class ImageMatchingUtil {
 
         MatOfKeyPoint keypointsWhole = new MatOfKeyPoint();
         Mat descriptorsWhole = new Mat();
-        ORB.detectAndCompute(wholeMat, new Mat(), keypointsWhole, descriptorsWhole);
+        ORB_POOL.run(orb -> orb.detectAndCompute(wholeMat, new Mat(), keypointsWhole, descriptorsWhole));
         if (descriptorsWhole.empty()) {
             LOG.warn("No descriptors found in the whole screenshot, either the image or the config of ORB algorithm is invalid.");
             return List.of();
@@ -158,10 +202,10 @@ public class ImageMatchingUtil {
         }
 
         List<MatchResultWithRectangle> foundMatches = new ArrayList<>();
-        List<KeyPoint> elementKeyPointsList = keypointsElement.toList();
-        double maxAllowedRegionWidth = elementScreenshot.getWidth() * (1 + deviationRatio);
-        double maxAllowedRegionHeight = elementScreenshot.getHeight() * (1 + deviationRatio);
-        getClusters(elementScreenshot, keypointsWhole, goodMatchesList).forEach(cluster ->
+        List<KeyPoint> elementKeyPointsList = elementFeatures.keyPoints();
+        double maxAllowedRegionWidth = elementMat.cols() * (1 + deviationRatio);
+        double maxAllowedRegionHeight = elementMat.rows() * (1 + deviationRatio);
+        getClusters(elementMat, keypointsWhole, goodMatchesList).forEach(cluster ->
                 getIdentifiedRegionBoundingBox(cluster, elementKeyPointsList, elementMat, maxAllowedRegionWidth, maxAllowedRegionHeight)
                         .ifPresent(foundMatches::add));
 
@@ -174,23 +218,102 @@ public class ImageMatchingUtil {
         return boundingBoxes;
     }
 
-    private static List<Cluster<KeyPointClusterable>> getClusters(BufferedImage elementScreenshot, MatOfKeyPoint keypointsWhole,
+    /**
+     * Converts the provided image into an 8-bit OpenCV matrix, either 3-channel BGR or single-channel grayscale. The backing array of
+     * the image raster is copied into the native memory as is and the channel order conversion is done by OpenCV. Only the images
+     * whose raster layout isn't supported are redrawn into the BGR layout first.
+     */
+    static Mat toMat(@NotNull BufferedImage image, boolean grayscale) {
+        OpenCvLoader.ensureLoaded();
+        if (!hasCompactRaster(image)) {
+            return toMat(toBgrImage(image), grayscale);
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        var dataBuffer = image.getRaster().getDataBuffer();
+        return switch (image.getType()) {
+            case TYPE_3BYTE_BGR -> convertColor(createMat(height, width, CV_8UC3, ((DataBufferByte) dataBuffer).getData()),
+                    grayscale ? COLOR_BGR2GRAY : -1);
+            case TYPE_BYTE_GRAY -> convertColor(createMat(height, width, CV_8UC1, ((DataBufferByte) dataBuffer).getData()),
+                    grayscale ? -1 : COLOR_GRAY2BGR);
+            case TYPE_4BYTE_ABGR, TYPE_4BYTE_ABGR_PRE -> {
+                Mat abgr = createMat(height, width, CV_8UC4, ((DataBufferByte) dataBuffer).getData());
+                Mat bgr = new Mat(height, width, CV_8UC3);
+                mixChannels(List.of(abgr), List.of(bgr), new MatOfInt(1, 0, 2, 1, 3, 2));
+                abgr.release();
+                yield convertColor(bgr, grayscale ? COLOR_BGR2GRAY : -1);
+            }
+            // Packed int pixels are laid out in the memory as B, G, R, A (or R, G, B, X for TYPE_INT_BGR) bytes in little-endian order
+            case TYPE_INT_RGB, TYPE_INT_ARGB, TYPE_INT_ARGB_PRE -> convertColor(
+                    createMat(height, width, CV_8UC4, toLittleEndianBytes(((DataBufferInt) dataBuffer).getData())),
+                    grayscale ? COLOR_BGRA2GRAY : COLOR_BGRA2BGR);
+            case TYPE_INT_BGR -> convertColor(
+                    createMat(height, width, CV_8UC4, toLittleEndianBytes(((DataBufferInt) dataBuffer).getData())),
+                    grayscale ? COLOR_RGBA2GRAY : COLOR_RGBA2BGR);
+            default -> toMat(toBgrImage(image), grayscale);
+        };
+    }
+
+    private static boolean hasCompactRaster(BufferedImage image) {
+        var raster = image.getRaster();
+        var dataBuffer = raster.getDataBuffer();
+        int samplesPerPixel = dataBuffer instanceof DataBufferInt ? 1 : raster.getNumDataElements();
+        // Sub-images share the data buffer of their parent, so the backing array can't be used directly for them
+        return raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && dataBuffer.getNumBanks() == 1 && dataBuffer.getOffset() == 0
+                && dataBuffer.getSize() == image.getWidth() * image.getHeight() * samplesPerPixel;
+    }
+
+    private static BufferedImage toBgrImage(BufferedImage image) {
+        var bgrImage = new BufferedImage(image.getWidth(), image.getHeight(), TYPE_3BYTE_BGR);
+        var graphics = bgrImage.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return bgrImage;
+    }
+
+    private static Mat createMat(int rows, int cols, int type, byte[] data) {
+        Mat mat = new Mat(rows, cols, type);
+        mat.put(0, 0, data);
+        return mat;
+    }
+
+    private static byte[] toLittleEndianBytes(int[] pixels) {
+        byte[] bytes = new byte[pixels.length * Integer.BYTES];
+        ByteBuffer.wrap(bytes).order(LITTLE_ENDIAN).asIntBuffer().put(pixels);
+        return bytes;
+    }
+
+    private static Mat convertColor(Mat source, int conversionCode) {
+        if (conversionCode < 0) {
+            return source;
+        }
+        Mat converted = new Mat();
+        cvtColor(source, converted, conversionCode);
+        source.release();
+        return converted;
+    }
+
+    private static List<Cluster<KeyPointClusterable>> getClusters(Mat elementMat, MatOfKeyPoint keypointsWhole,
                                                                   List<DMatch> goodMatchesList) {
         List<KeyPoint> wholeKeyPointsList = keypointsWhole.toList();
         List<KeyPointClusterable> clusterInput = new ArrayList<>();
         for (DMatch goodMatch : goodMatchesList) {
             clusterInput.add(new KeyPointClusterable(goodMatch, wholeKeyPointsList.get(goodMatch.trainIdx)));
         }
-        double eps = max(elementScreenshot.getWidth(), elementScreenshot.getHeight());
+        double eps = max(elementMat.cols(), elementMat.rows());
         DBSCANClusterer<KeyPointClusterable> dbscan = new DBSCANClusterer<>(eps, MINIMUM_CLUSTER_POPULATION);
         return dbscan.cluster(clusterInput);
     }
 
     @NotNull
     private static List<DMatch> getGoodMatches(Mat descriptorsElement, Mat descriptorsWhole) {
-        DescriptorMatcher matcher = DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING);
         List<MatOfDMatch> knnMatches = new ArrayList<>();
-        matcher.knnMatch(descriptorsElement, descriptorsWhole, knnMatches, KNN_MATCHES_PER_QUERY);
+        MATCHER_POOL.run(matcher -> matcher.knnMatch(descriptorsElement, descriptorsWhole, knnMatches, KNN_MATCHES_PER_QUERY));
         List<DMatch> goodMatchesList = new ArrayList<>();
         for (MatOfDMatch knnMatch : knnMatches) {
             DMatch[] matches = knnMatch.toArray();
@@ -256,10 +379,47 @@ public class ImageMatchingUtil {
         }
     }
 
-    private record MatchResultWithRectangle(Rectangle rectangle, double score) {
+    /**
+     * Grayscale matrix of an element screenshot together with its ORB keypoints and descriptors. The instances are shared between
+     * threads via {@link UiElementFeatureCache}, so the matrices must only be read.
+     */
+    public record ElementFeatures(Mat grayscaleMat, List<KeyPoint> keyPoints, Mat descriptors) {
     }
 
-    private record MatchResult(java.awt.Point point, double score) {
+    /**
+     * Keeps the idle instances of a non-thread-safe OpenCV algorithm, so that each thread uses an instance exclusively while not
+     * creating a new one for each call. Virtual threads make thread-local instances useless, hence the pooling.
+     */
+    private static final class Pool<T> {
+        private final Queue<T> idleInstances = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleInstancesCount = new AtomicInteger();
+        private final Supplier<T> factory;
+
+        private Pool(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        void run(Consumer<T> action) {
+            OpenCvLoader.ensureLoaded();
+            T instance = idleInstances.poll();
+            if (instance == null) {
+                instance = factory.get();
+            } else {
+                idleInstancesCount.decrementAndGet();
+            }
+            try {
+                action.accept(instance);
+            } finally {
+                if (idleInstancesCount.incrementAndGet() <= MAX_IDLE_POOLED_INSTANCES) {
+                    idleInstances.offer(instance);
+                } else {
+                    idleInstancesCount.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private record MatchResultWithRectangle(Rectangle rectangle, double score) {
     }
 
     private static class KeyPointClusterable implements Clusterable {
@@ -35,7 +35,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Base64;
 
-import static dev.langchain4j.data.message.ImageContent.DetailLevel.HIGH;
 import static java.awt.Image.SCALE_SMOOTH;
 import static java.awt.RenderingHints.KEY_INTERPOLATION;
 import static java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR;
@@ -48,7 +47,6 @@ import static org.tarik.ta.UiTestAgentConfig.getScreenshotsSaveFolder;
 
 public class ImageUtils {
     private static final Logger LOG = LoggerFactory.getLogger(ImageUtils.class);
-    private static final String DEFAULT_IMAGE_FORMAT = "png";
 
     public static Image getImage(@NotNull String base64Image, @NotNull String format) {
         return Image.builder()
@@ -154,7 +152,11 @@ public class ImageUtils {
         return toBufferedImage(scaledImage, newWidth, newHeight);
     }
 
+    /**
+     * Returns the image content of the provided image encoded with the configured codec. The encoding is memoized per image
+     * instance, see {@link EncodedFrame}.
+     */
     public static ImageContent singleImageContent(BufferedImage image) {
-        return ImageContent.from(ImageUtils.getImage(image, DEFAULT_IMAGE_FORMAT), HIGH);
+        return EncodedFrame.of(image).toImageContent();
     }
 }
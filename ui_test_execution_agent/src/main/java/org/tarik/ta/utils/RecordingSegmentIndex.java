@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.newOutputStream;
+import static java.util.Optional.empty;
+
+/**
+ * Index of the video segments of a segmented screen recording. The segments are MPEG-TS files which can be joined by a plain byte
+ * concatenation, so a clip covering any time range of the recording is created without re-encoding.
+ */
+public final class RecordingSegmentIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(RecordingSegmentIndex.class);
+    public static final String INDEX_FILE_NAME = "index.json";
+    public static final String SEGMENT_FILE_EXTENSION = "ts";
+    public static final String SEGMENT_MIME_TYPE = "video/mp2t";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Path recordingFolder;
+    private final List<Segment> segments;
+
+    public RecordingSegmentIndex(@NotNull Path recordingFolder) {
+        this(recordingFolder, new ArrayList<>());
+    }
+
+    private RecordingSegmentIndex(Path recordingFolder, List<Segment> segments) {
+        this.recordingFolder = recordingFolder;
+        this.segments = segments;
+    }
+
+    /**
+     * Loads the index of the segmented recording stored in the provided folder.
+     *
+     * @return the index or empty if the folder doesn't contain a segmented recording
+     */
+    public static Optional<RecordingSegmentIndex> load(@NotNull Path recordingFolder) {
+        var indexFile = recordingFolder.resolve(INDEX_FILE_NAME);
+        if (!exists(indexFile)) {
+            return empty();
+        }
+        try {
+            List<Segment> segments = OBJECT_MAPPER.readValue(indexFile.toFile(), new TypeReference<>() {
+            });
+            return Optional.of(new RecordingSegmentIndex(recordingFolder, new ArrayList<>(segments)));
+        } catch (IOException e) {
+            LOG.error("Couldn't read the recording segment index {}", indexFile, e);
+            return empty();
+        }
+    }
+
+    public Path getRecordingFolder() {
+        return recordingFolder;
+    }
+
+    public synchronized void addSegment(@NotNull Segment segment) {
+        segments.add(segment);
+    }
+
+    public synchronized List<Segment> getSegments() {
+        return List.copyOf(segments);
+    }
+
+    public synchronized void save() {
+        try {
+            OBJECT_MAPPER.writeValue(recordingFolder.resolve(INDEX_FILE_NAME).toFile(), segments);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the segments which contain at least a part of the provided time range, in the recording order.
+     */
+    public synchronized List<Segment> getSegmentsOverlapping(@NotNull Instant from, @NotNull Instant to) {
+        return segments.stream()
+                .filter(segment -> !segment.end().isBefore(from) && !segment.start().isAfter(to))
+                .toList();
+    }
+
+    /**
+     * Creates a clip of the recording which covers the provided time range by concatenating the corresponding segments. The clip
+     * starts and ends at the segment boundaries, so it might be slightly longer than the requested range.
+     *
+     * @return the path of the created clip or empty if no segment overlaps the provided time range
+     */
+    public Optional<Path> extractClip(@NotNull Instant from, @NotNull Instant to, @NotNull String clipName) {
+        var clipSegments = getSegmentsOverlapping(from, to);
+        if (clipSegments.isEmpty()) {
+            return empty();
+        }
+        var clipPath = recordingFolder.resolve("%s.%s".formatted(clipName, SEGMENT_FILE_EXTENSION));
+        try (var clipStream = newOutputStream(clipPath)) {
+            for (Segment segment : clipSegments) {
+                Files.copy(recordingFolder.resolve(segment.fileName()), clipStream);
+            }
+            return Optional.of(clipPath);
+        } catch (IOException e) {
+            LOG.error("Couldn't create the recording clip {}", clipPath, e);
+            return empty();
+        }
+    }
+
+    /**
+     * A single recorded segment.
+     *
+     * @param fileName name of the segment file inside the recording folder
+     * @param start    capture time of the first frame of the segment
+     * @param end      capture time of the last frame of the segment
+     */
+    public record Segment(@NotNull String fileName, @NotNull Instant start, @NotNull Instant end) {
+    }
+}
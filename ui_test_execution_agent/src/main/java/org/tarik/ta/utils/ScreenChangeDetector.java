@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.UiTestAgentConfig;
+
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.Optional.empty;
+import static org.tarik.ta.core.utils.CommonUtils.sleepMillis;
+import static org.tarik.ta.utils.UiCommonUtils.captureScreen;
+import static org.tarik.ta.utils.UiCommonUtils.captureScreenNewerThan;
+
+/**
+ * Detects visual changes of the screen by comparing the fingerprints of screenshots. A fingerprint is the grid of the average
+ * luminance values of the screen tiles, calculated on a sparse pixel sample, so it's cheap enough to be computed for each captured
+ * frame and tolerant to the changes which don't matter for the verification, like a blinking text cursor.
+ */
+public final class ScreenChangeDetector {
+    private static final Logger LOG = LoggerFactory.getLogger(ScreenChangeDetector.class);
+    private static final int GRID_COLUMNS = 48;
+    private static final int GRID_ROWS = 27;
+    private static final int SAMPLING_STEP_PIXELS = 4;
+
+    private ScreenChangeDetector() {
+    }
+
+    public static ScreenFingerprint getFingerprint(@NotNull BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long[] lumaSums = new long[GRID_COLUMNS * GRID_ROWS];
+        int[] sampleCounts = new int[GRID_COLUMNS * GRID_ROWS];
+        for (int y = 0; y < height; y += SAMPLING_STEP_PIXELS) {
+            int rowOffset = (int) ((long) y * GRID_ROWS / height) * GRID_COLUMNS;
+            for (int x = 0; x < width; x += SAMPLING_STEP_PIXELS) {
+                int tileIndex = rowOffset + (int) ((long) x * GRID_COLUMNS / width);
+                int rgb = image.getRGB(x, y);
+                lumaSums[tileIndex] += (((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+                sampleCounts[tileIndex]++;
+            }
+        }
+
+        int[] tileLuma = new int[lumaSums.length];
+        for (int i = 0; i < tileLuma.length; i++) {
+            tileLuma[i] = sampleCounts[i] == 0 ? 0 : (int) (lumaSums[i] / sampleCounts[i]);
+        }
+        return new ScreenFingerprint(width, height, tileLuma);
+    }
+
+    public static boolean hasChanged(@NotNull BufferedImage previousScreenshot, @NotNull BufferedImage currentScreenshot) {
+        return getFingerprint(currentScreenshot).differsFrom(getFingerprint(previousScreenshot));
+    }
+
+    /**
+     * Captures the screen until it visually differs from the reference screenshot or the timeout expires.
+     *
+     * @return the first captured screenshot which differs from the reference one, or empty if the screen didn't change within the
+     * timeout
+     */
+    public static Optional<BufferedImage> awaitScreenChange(@NotNull BufferedImage referenceScreenshot, long timeoutMillis) {
+        var referenceFingerprint = getFingerprint(referenceScreenshot);
+        long deadline = currentTimeMillis() + timeoutMillis;
+        while (true) {
+            var screenshot = captureScreen();
+            if (getFingerprint(screenshot).differsFrom(referenceFingerprint)) {
+                return Optional.of(screenshot);
+            }
+            long remainingMillis = deadline - currentTimeMillis();
+            if (remainingMillis <= 0) {
+                LOG.debug("The screen didn't change within {} millis", timeoutMillis);
+                return empty();
+            }
+            sleepMillis(min(UiTestAgentConfig.getScreenChangePollIntervalMillis(), remainingMillis));
+        }
+    }
+
+    /**
+     * Samples low-resolution screen frames until the configured amount of consecutive frames is visually identical or the max wait
+     * time expires. This allows proceeding as soon as the UI has settled after an action instead of waiting for a fixed worst-case
+     * delay. If the screen can't be captured, the max wait time is waited instead.
+     *
+     * @return true if the UI has settled within the max wait time, false otherwise
+     */
+    public static boolean awaitVisualStability(long maxWaitMillis) {
+        long deadline = currentTimeMillis() + maxWaitMillis;
+        int requiredStableFrames = UiTestAgentConfig.getUiSettleStableFrames();
+        ScreenFingerprint previousFingerprint = null;
+        int stableFrames = 0;
+        // Frames are shared with other screen consumers, each sample must be captured after the previous one has been obtained
+        long lastSampleNanos = nanoTime();
+        while (true) {
+            var frame = captureFrameSafely(lastSampleNanos);
+            lastSampleNanos = nanoTime();
+            if (frame == null) {
+                sleepMillis(max(0, deadline - currentTimeMillis()));
+                return false;
+            }
+            var fingerprint = getFingerprint(frame);
+            stableFrames = previousFingerprint != null && !fingerprint.differsFrom(previousFingerprint) ? stableFrames + 1 : 1;
+            if (stableFrames >= requiredStableFrames) {
+                return true;
+            }
+            previousFingerprint = fingerprint;
+            long remainingMillis = deadline - currentTimeMillis();
+            if (remainingMillis <= 0) {
+                LOG.debug("The UI didn't settle within {} millis", maxWaitMillis);
+                return false;
+            }
+            sleepMillis(min(UiTestAgentConfig.getUiSettleSampleIntervalMillis(), remainingMillis));
+        }
+    }
+
+    /**
+     * Performs the action and waits until the UI reacts to it and settles. The UI reaction is a visual change which happens
+     * within the max reaction wait time, only after that the visual stability is awaited. If nothing changes within that time,
+     * the method returns right away, so that actions without any visible effect don't wait for the stability, while the actions
+     * with a delayed effect (e.g. a navigation which starts with a delay) aren't considered done before the UI has reacted.
+     *
+     * @return true if the UI has reacted and settled within the max wait time, false otherwise
+     */
+    public static boolean performAndAwaitReaction(@NotNull Runnable action, long maxReactionWaitMillis, long maxWaitMillis) {
+        var frameBeforeAction = captureFrameSafely(nanoTime());
+        action.run();
+        long actionNanos = nanoTime();
+        long deadline = currentTimeMillis() + maxWaitMillis;
+        if (frameBeforeAction == null) {
+            return awaitVisualStability(maxWaitMillis);
+        }
+
+        var referenceFingerprint = getFingerprint(frameBeforeAction);
+        long reactionDeadline = currentTimeMillis() + min(maxReactionWaitMillis, maxWaitMillis);
+        long lastSampleNanos = actionNanos;
+        while (true) {
+            var frame = captureFrameSafely(lastSampleNanos);
+            lastSampleNanos = nanoTime();
+            if (frame != null && getFingerprint(frame).differsFrom(referenceFingerprint)) {
+                return awaitVisualStability(max(0, deadline - currentTimeMillis()));
+            }
+            long remainingMillis = reactionDeadline - currentTimeMillis();
+            if (remainingMillis <= 0) {
+                LOG.debug("The UI didn't visibly react to the action within {} millis", maxReactionWaitMillis);
+                return false;
+            }
+            sleepMillis(min(UiTestAgentConfig.getUiSettleSampleIntervalMillis(), remainingMillis));
+        }
+    }
+
+    private static BufferedImage captureFrameSafely(long notEarlierThanNanos) {
+        try {
+            return captureScreenNewerThan(notEarlierThanNanos, false);
+        } catch (Exception e) {
+            LOG.debug("Couldn't capture the screen for UI settle detection", e);
+            return null;
+        }
+    }
+
+    public static final class ScreenFingerprint {
+        private final int width;
+        private final int height;
+        private final int[] tileLuma;
+
+        private ScreenFingerprint(int width, int height, int[] tileLuma) {
+            this.width = width;
+            this.height = height;
+            this.tileLuma = tileLuma;
+        }
+
+        public boolean differsFrom(@NotNull ScreenFingerprint other) {
+            if (width != other.width || height != other.height) {
+                return true;
+            }
+            int tolerance = UiTestAgentConfig.getScreenChangeTileTolerance();
+            for (int i = 0; i < tileLuma.length; i++) {
+                if (abs(tileLuma[i] - other.tileLuma[i]) > tolerance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
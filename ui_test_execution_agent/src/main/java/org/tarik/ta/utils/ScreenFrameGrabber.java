@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.tarik.ta.UiTestAgentConfig;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.System.nanoTime;
+import static java.util.Comparator.comparingInt;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.tarik.ta.utils.ImageUtils.toBufferedImage;
+import static org.tarik.ta.utils.UiCommonUtils.getRobot;
+import static org.tarik.ta.utils.UiCommonUtils.getScreenSize;
+
+/**
+ * The single place where the whole screen is captured. Captured frames are kept in a small ring buffer, so that the screen recorder,
+ * the tools and the agents share the frames instead of each of them doing its own Robot round trip: a consumer which needs the
+ * current screen gets the latest buffered frame if it's recent enough, and only one capture is done if several consumers need a new
+ * frame at the same time.
+ * <p>
+ * The frames are shared, so their images must not be modified by the consumers - draw on a clone instead. A frame captured before
+ * the last mouse or keyboard input is never reused as the current screen, because it might not show the effect of that input.
+ */
+public final class ScreenFrameGrabber {
+    private static final Deque<Frame> FRAMES = new ArrayDeque<>();
+    private static final ReentrantLock CAPTURE_LOCK = new ReentrantLock();
+    private static volatile long lastInputActionNanos = nanoTime();
+
+    private ScreenFrameGrabber() {
+    }
+
+    /**
+     * Captures a new frame regardless of the buffered ones. Used by the consumers which sample the screen at a fixed rate.
+     */
+    public static Frame grabFrame() {
+        CAPTURE_LOCK.lock();
+        try {
+            return capture();
+        } finally {
+            CAPTURE_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Returns the latest frame if it isn't older than the configured max frame age and has been captured after the last input
+     * action, otherwise captures a new one.
+     */
+    public static Frame getRecentFrame() {
+        long minCaptureNanos = nanoTime() - MILLISECONDS.toNanos(UiTestAgentConfig.getScreenFrameMaxAgeMillis());
+        long inputActionNanos = lastInputActionNanos;
+        // nanoTime values may overflow, so only their difference is meaningful
+        return getFrameNewerThan(inputActionNanos - minCaptureNanos > 0 ? inputActionNanos : minCaptureNanos);
+    }
+
+    /**
+     * Marks that a mouse or keyboard input has just been sent, so that the frames captured before it aren't reused anymore.
+     */
+    public static void onInputAction() {
+        lastInputActionNanos = nanoTime();
+    }
+
+    /**
+     * Returns the latest frame if its capture started not earlier than the provided timestamp, otherwise captures a new one.
+     *
+     * @param timestampNanos timestamp based on {@link System#nanoTime()}
+     */
+    public static Frame getFrameNewerThan(long timestampNanos) {
+        var latestFrame = getLatestFrame().filter(frame -> frame.isNotOlderThan(timestampNanos));
+        if (latestFrame.isPresent()) {
+            return latestFrame.get();
+        }
+
+        CAPTURE_LOCK.lock();
+        try {
+            // Another thread could have captured a suitable frame while this one was waiting for the lock
+            return getLatestFrame()
+                    .filter(frame -> frame.isNotOlderThan(timestampNanos))
+                    .orElseGet(ScreenFrameGrabber::capture);
+        } finally {
+            CAPTURE_LOCK.unlock();
+        }
+    }
+
+    public static Optional<Frame> getLatestFrame() {
+        synchronized (FRAMES) {
+            return Optional.ofNullable(FRAMES.peekLast());
+        }
+    }
+
+    /**
+     * Returns the buffered frames, the oldest one first.
+     */
+    public static List<Frame> getBufferedFrames() {
+        synchronized (FRAMES) {
+            return List.copyOf(FRAMES);
+        }
+    }
+
+    public static void clear() {
+        synchronized (FRAMES) {
+            FRAMES.clear();
+        }
+    }
+
+    private static Frame capture() {
+        // The timestamp is taken before the capture, so the frame content is guaranteed to be not older than it
+        long capturedAtNanos = nanoTime();
+        var target = new Rectangle(getScreenSize());
+        var resolutionVariants = getRobot().createMultiResolutionScreenCapture(target).getResolutionVariants().stream()
+                .map(image -> toBufferedImage(image, target.width, target.height))
+                .toList();
+        var highestResolutionImage = resolutionVariants.stream().max(comparingInt(BufferedImage::getHeight)).orElseThrow();
+        var lowestResolutionImage = resolutionVariants.stream().min(comparingInt(BufferedImage::getHeight)).orElseThrow();
+        var frame = new Frame(highestResolutionImage, lowestResolutionImage, capturedAtNanos);
+
+        int bufferSize = UiTestAgentConfig.getScreenFrameBufferSize();
+        synchronized (FRAMES) {
+            FRAMES.addLast(frame);
+            while (FRAMES.size() > bufferSize) {
+                FRAMES.removeFirst();
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * A captured screen frame.
+     *
+     * @param image              the screen in the highest available resolution, i.e. in physical pixels on HiDPI screens
+     * @param lowResolutionImage the screen in the lowest available resolution, i.e. in logical pixels on HiDPI screens
+     * @param capturedAtNanos    {@link System#nanoTime()} at the start of the capture
+     */
+    public record Frame(@NotNull BufferedImage image, @NotNull BufferedImage lowResolutionImage, long capturedAtNanos) {
+        public BufferedImage image(boolean withHighestResolution) {
+            return withHighestResolution ? image : lowResolutionImage;
+        }
+
+        public long getAgeMillis() {
+            return NANOSECONDS.toMillis(nanoTime() - capturedAtNanos);
+        }
+
+        public boolean isNotOlderThan(long timestampNanos) {
+            // nanoTime values may overflow, so only their difference is meaningful
+            return capturedAtNanos - timestampNanos >= 0;
+        }
+    }
+}
@@ -17,50 +17,88 @@ package org.tarik.ta.utils;
 
 import org.bytedeco.ffmpeg.global.avcodec;
 import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.FrameRecorder;
 import org.bytedeco.javacv.Java2DFrameConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tarik.ta.UiTestAgentConfig;
+import org.tarik.ta.utils.RecordingSegmentIndex.Segment;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.awt.image.BufferedImage.TYPE_3BYTE_BGR;
+import static java.lang.System.nanoTime;
 import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.tarik.ta.core.utils.LogCapture.bindToCurrentExecution;
+import static org.tarik.ta.utils.RecordingSegmentIndex.SEGMENT_FILE_EXTENSION;
 import static org.tarik.ta.utils.UiCommonUtils.getMouseLocation;
 
+/**
+ * Records the screen into a video file. Capturing and encoding are decoupled: the capturing thread grabs the frames at the configured
+ * frame rate into pooled buffers and queues them, while the encoding thread passes them to FFmpeg together with their capture
+ * timestamps, so that slow encoding doesn't distort the video timing. Frames identical to the previously queued one (a static screen
+ * is the norm while waiting for the models) are not encoded, the previous frame is simply displayed longer.
+ * <p>
+ * If a segment duration is configured, the recording is split into fixed-length MPEG-TS segments stored in a separate folder together
+ * with their {@link RecordingSegmentIndex}, so that the clip of a single test step can be extracted without re-encoding.
+ */
 public class ScreenRecorder {
     private static final Logger LOG = LoggerFactory.getLogger(ScreenRecorder.class);
+    // Even a static screen gets a frame once in a while, so that the video stays seekable and its duration is correct
+    private static final long MAX_DUPLICATE_SUPPRESSION_NANOS = SECONDS.toNanos(2);
+    private static final long ENCODER_POLL_TIMEOUT_MILLIS = 100;
+    private static final String SEGMENT_FORMAT = "mpegts";
     private final boolean recordingEnabled;
     private FFmpegFrameRecorder recorder;
     private ScheduledExecutorService executorService;
-    private final Robot robot;
+    private Thread encodingThread;
     private final Java2DFrameConverter converter;
     private String currentRecordingPath;
+    private BlockingQueue<QueuedFrame> encodingQueue;
+    private BlockingQueue<BufferedImage> bufferPool;
+    private int maxBuffers;
+    private int allocatedBuffers;
+    private volatile boolean capturing;
+    private byte[] lastQueuedFrameData;
+    private long lastQueuedFrameNanos;
+    private long recordingStartNanos;
+    private Instant recordingStartInstant;
+    private long segmentDurationNanos;
+    private RecordingSegmentIndex segmentIndex;
+    private int segmentCounter;
+    private String currentSegmentFileName;
+    private Segment currentSegment;
+    private long currentSegmentStartNanos;
+    private final AtomicLong capturedFrames = new AtomicLong();
+    private final AtomicLong duplicateFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong encodedFrames = new AtomicLong();
+    private final AtomicLong totalEncodingNanos = new AtomicLong();
+    private final AtomicLong maxEncodingNanos = new AtomicLong();
+    private final AtomicLong maxFrameLatencyNanos = new AtomicLong();
 
     public ScreenRecorder() {
         this.recordingEnabled = UiTestAgentConfig.getScreenRecordingEnabled();
-        if (recordingEnabled) {
-            try {
-                this.robot = new Robot();
-                this.converter = new Java2DFrameConverter();
-            } catch (AWTException e) {
-                throw new RuntimeException("Failed to create Robot instance for video recording", e);
-            }
-        } else {
-            this.robot = null;
-            this.converter = null;
-        }
+        this.converter = recordingEnabled ? new Java2DFrameConverter() : null;
     }
 
     public void beginScreenCapture() {
@@ -78,44 +116,204 @@ public class ScreenRecorder {
             }
         }
 
-        String format = UiTestAgentConfig.getRecordingFormat();
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
-        String fileName = Paths.get(folder, "test_run_" + timestamp + "." + format).toString();
-        this.currentRecordingPath = fileName;
-
+        segmentDurationNanos = SECONDS.toNanos(UiTestAgentConfig.getRecordingSegmentDurationSeconds());
         try {
-            Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-            recorder = new FFmpegFrameRecorder(fileName, screenSize.width, screenSize.height);
-            recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
-            recorder.setFormat(format);
-            recorder.setFrameRate(UiTestAgentConfig.getRecordingFrameRate());
-            recorder.setVideoBitrate(UiTestAgentConfig.getRecordingBitrate());
-            recorder.start();
+            if (isSegmented()) {
+                var segmentsFolder = createDirectories(Paths.get(folder, "test_run_" + timestamp));
+                this.currentRecordingPath = segmentsFolder.toString();
+                segmentIndex = new RecordingSegmentIndex(segmentsFolder);
+                segmentCounter = 0;
+                currentSegment = null;
+                recorder = startNextSegmentRecorder();
+            } else {
+                String format = UiTestAgentConfig.getRecordingFormat();
+                String fileName = Paths.get(folder, "test_run_" + timestamp + "." + format).toString();
+                this.currentRecordingPath = fileName;
+                recorder = startRecorder(fileName, format);
+            }
 
+            int queueCapacity = UiTestAgentConfig.getRecordingEncodingQueueCapacity();
+            encodingQueue = new ArrayBlockingQueue<>(queueCapacity);
+            // Apart from the queued ones, one buffer is used by the encoder and one more is being filled by the capturing thread
+            maxBuffers = queueCapacity + 2;
+            bufferPool = new ArrayBlockingQueue<>(maxBuffers);
+            allocatedBuffers = 0;
+            lastQueuedFrameData = null;
+            recordingStartNanos = nanoTime();
+            recordingStartInstant = Instant.now();
+            capturing = true;
+
+            encodingThread = Thread.ofPlatform().name("screen-recording-encoder").start(bindToCurrentExecution(this::encodeFrames));
             executorService = Executors.newSingleThreadScheduledExecutor();
-            executorService.scheduleAtFixedRate(this::captureFrame, 0, 1000 / UiTestAgentConfig.getRecordingFrameRate(), MILLISECONDS);
-            LOG.info("Started video recording to file: {}", fileName);
+            executorService.scheduleAtFixedRate(bindToCurrentExecution(this::captureFrame), 0,
+                    1000 / UiTestAgentConfig.getRecordingFrameRate(), MILLISECONDS);
+            LOG.info("Started video recording to: {}", currentRecordingPath);
         } catch (Exception e) {
             LOG.error("Failed to start video recording", e);
         }
     }
 
+    private static FFmpegFrameRecorder startRecorder(String fileName, String format) throws FrameRecorder.Exception {
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        var recorder = new FFmpegFrameRecorder(fileName, screenSize.width, screenSize.height);
+        recorder.setVideoCodec(avcodec.AV_CODEC_ID_H264);
+        recorder.setFormat(format);
+        recorder.setFrameRate(UiTestAgentConfig.getRecordingFrameRate());
+        recorder.setVideoBitrate(UiTestAgentConfig.getRecordingBitrate());
+        recorder.start();
+        return recorder;
+    }
+
+    private boolean isSegmented() {
+        return segmentDurationNanos > 0;
+    }
+
+    private FFmpegFrameRecorder startNextSegmentRecorder() throws FrameRecorder.Exception {
+        var fileName = "segment_%05d.%s".formatted(++segmentCounter, SEGMENT_FILE_EXTENSION);
+        currentSegmentFileName = fileName;
+        return startRecorder(segmentIndex.getRecordingFolder().resolve(fileName).toString(), SEGMENT_FORMAT);
+    }
+
+    private void finishCurrentSegment() throws IOException {
+        recorder.stop();
+        recorder.release();
+        if (currentSegment != null) {
+            segmentIndex.addSegment(currentSegment);
+            currentSegment = null;
+        } else {
+            // No frame has been recorded into this segment, so it isn't usable
+            deleteIfExists(segmentIndex.getRecordingFolder().resolve(currentSegmentFileName));
+        }
+    }
+
     private void captureFrame() {
+        BufferedImage buffer = null;
         try {
-            BufferedImage screenCapture = robot.createScreenCapture(new Rectangle(Toolkit.getDefaultToolkit().getScreenSize()));
+            var frame = ScreenFrameGrabber.grabFrame();
+            capturedFrames.incrementAndGet();
+            buffer = getFrameBuffer();
+            if (buffer == null) {
+                droppedFrames.incrementAndGet();
+                return;
+            }
 
             // Convert to BGR format to ensure correct channel order for FFmpeg
-            BufferedImage bgrScreenCapture = new BufferedImage(screenCapture.getWidth(), screenCapture.getHeight(), TYPE_3BYTE_BGR);
-            Graphics2D bgrGraphics = bgrScreenCapture.createGraphics();
-            bgrGraphics.drawImage(screenCapture, 0, 0, null);
+            Graphics2D bgrGraphics = buffer.createGraphics();
+            bgrGraphics.drawImage(frame.lowResolutionImage(), 0, 0, buffer.getWidth(), buffer.getHeight(), null);
             Point mousePosition = getMouseLocation();
             bgrGraphics.setColor(new Color(255, 0, 0, 128));
             bgrGraphics.fillOval(mousePosition.x - 10, mousePosition.y - 10, 20, 20);
             bgrGraphics.dispose();
-            recorder.record(converter.getFrame(bgrScreenCapture));
+
+            byte[] frameData = ((DataBufferByte) buffer.getRaster().getDataBuffer()).getData();
+            if (isDuplicateOfLastQueuedFrame(frameData, frame.capturedAtNanos())) {
+                duplicateFrames.incrementAndGet();
+                return;
+            }
+            if (!encodingQueue.offer(new QueuedFrame(buffer, frame.capturedAtNanos()))) {
+                droppedFrames.incrementAndGet();
+                return;
+            }
+            buffer = null;
+            rememberLastQueuedFrame(frameData, frame.capturedAtNanos());
         } catch (Exception e) {
             LOG.error("Failed to capture frame for video recording", e);
+        } finally {
+            if (buffer != null) {
+                bufferPool.offer(buffer);
+            }
+        }
+    }
+
+    private BufferedImage getFrameBuffer() {
+        var buffer = bufferPool.poll();
+        if (buffer == null && allocatedBuffers < maxBuffers) {
+            // Buffers are allocated only when needed, the encoder usually keeps up with only a couple of them in use
+            ++allocatedBuffers;
+            buffer = new BufferedImage(recorder.getImageWidth(), recorder.getImageHeight(), TYPE_3BYTE_BGR);
         }
+        return buffer;
+    }
+
+    private boolean isDuplicateOfLastQueuedFrame(byte[] frameData, long capturedAtNanos) {
+        return lastQueuedFrameData != null && capturedAtNanos - lastQueuedFrameNanos < MAX_DUPLICATE_SUPPRESSION_NANOS &&
+                Arrays.equals(frameData, lastQueuedFrameData);
+    }
+
+    private void rememberLastQueuedFrame(byte[] frameData, long capturedAtNanos) {
+        // The queued buffer returns to the pool after encoding, so its content must be copied for the comparison with the next frames
+        if (lastQueuedFrameData == null) {
+            lastQueuedFrameData = new byte[frameData.length];
+        }
+        System.arraycopy(frameData, 0, lastQueuedFrameData, 0, frameData.length);
+        lastQueuedFrameNanos = capturedAtNanos;
+    }
+
+    private void encodeFrames() {
+        while (true) {
+            QueuedFrame frame;
+            try {
+                frame = encodingQueue.poll(ENCODER_POLL_TIMEOUT_MILLIS, MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warn("Video encoding got interrupted, {} queued frames are discarded", encodingQueue.size());
+                return;
+            }
+            if (frame == null) {
+                if (!capturing) {
+                    return;
+                }
+                continue;
+            }
+            encode(frame);
+        }
+    }
+
+    private void encode(QueuedFrame frame) {
+        long encodingStart = nanoTime();
+        try {
+            if (isSegmented()) {
+                rotateSegmentIfNeeded(frame.capturedAtNanos());
+            }
+            long timestampMicros = NANOSECONDS.toMicros(frame.capturedAtNanos() - recordingStartNanos);
+            // FFmpeg requires increasing frame timestamps, frames which fall into the same frame slot just take the next one
+            if (timestampMicros > recorder.getTimestamp()) {
+                recorder.setTimestamp(timestampMicros);
+            }
+            recorder.record(converter.getFrame(frame.buffer()));
+            encodedFrames.incrementAndGet();
+            if (isSegmented()) {
+                var captureInstant = toInstant(frame.capturedAtNanos());
+                if (currentSegment == null) {
+                    currentSegmentStartNanos = frame.capturedAtNanos();
+                    currentSegment = new Segment(currentSegmentFileName, captureInstant, captureInstant);
+                } else {
+                    currentSegment = new Segment(currentSegment.fileName(), currentSegment.start(), captureInstant);
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to encode frame for video recording", e);
+        } finally {
+            long encodingEnd = nanoTime();
+            totalEncodingNanos.addAndGet(encodingEnd - encodingStart);
+            maxEncodingNanos.accumulateAndGet(encodingEnd - encodingStart, Math::max);
+            maxFrameLatencyNanos.accumulateAndGet(encodingEnd - frame.capturedAtNanos(), Math::max);
+            bufferPool.offer(frame.buffer());
+        }
+    }
+
+    private void rotateSegmentIfNeeded(long frameCapturedAtNanos) throws IOException {
+        if (currentSegment != null && frameCapturedAtNanos - currentSegmentStartNanos >= segmentDurationNanos) {
+            // Each segment starts with a key frame and keeps the timestamps of the whole recording, so the segments can be
+            // concatenated without re-encoding
+            finishCurrentSegment();
+            recorder = startNextSegmentRecorder();
+        }
+    }
+
+    private Instant toInstant(long nanos) {
+        return recordingStartInstant.plusNanos(nanos - recordingStartNanos);
     }
 
     public void endScreenCapture() {
@@ -126,7 +324,7 @@ public class ScreenRecorder {
         if (executorService != null) {
             executorService.shutdown();
             try {
-                if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                if (!executorService.awaitTermination(5, SECONDS)) {
                     executorService.shutdownNow();
                 }
             } catch (InterruptedException e) {
@@ -135,11 +333,26 @@ public class ScreenRecorder {
             }
         }
 
+        capturing = false;
+        if (encodingThread != null) {
+            try {
+                encodingThread.join();
+            } catch (InterruptedException e) {
+                encodingThread.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+
         try {
-            recorder.stop();
-            recorder.release();
+            if (isSegmented()) {
+                finishCurrentSegment();
+                segmentIndex.save();
+            } else {
+                recorder.stop();
+                recorder.release();
+            }
             converter.close();
-            LOG.info("Stopped video recording.");
+            LOG.info("Stopped video recording. {}", getStatistics());
         } catch (Exception e) {
             LOG.error("Failed to stop video recording", e);
         }
@@ -148,4 +361,29 @@ public class ScreenRecorder {
     public String getCurrentRecordingPath() {
         return currentRecordingPath;
     }
+
+    public RecordingStatistics getStatistics() {
+        long encoded = encodedFrames.get();
+        return new RecordingStatistics(capturedFrames.get(), encoded, duplicateFrames.get(), droppedFrames.get(),
+                encoded == 0 ? 0 : NANOSECONDS.toMillis(totalEncodingNanos.get() / encoded),
+                NANOSECONDS.toMillis(maxEncodingNanos.get()), NANOSECONDS.toMillis(maxFrameLatencyNanos.get()));
+    }
+
+    private record QueuedFrame(BufferedImage buffer, long capturedAtNanos) {
+    }
+
+    /**
+     * Metrics of the current recording.
+     *
+     * @param capturedFrames        frames captured at the configured frame rate
+     * @param encodedFrames         frames passed to the encoder
+     * @param duplicateFrames       frames skipped because they're identical to the previous one
+     * @param droppedFrames         frames dropped because the encoder couldn't keep up
+     * @param averageEncodingMillis average time needed to encode a frame
+     * @param maxEncodingMillis     max time needed to encode a frame
+     * @param maxFrameLatencyMillis max time between capturing and encoding a frame
+     */
+    public record RecordingStatistics(long capturedFrames, long encodedFrames, long duplicateFrames, long droppedFrames,
+                                      long averageEncodingMillis, long maxEncodingMillis, long maxFrameLatencyMillis) {
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.UiTestAgentConfig;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+import static java.util.Comparator.comparingDouble;
+import static org.opencv.imgproc.Imgproc.*;
+import static org.tarik.ta.utils.ImageMatchingUtil.toMat;
+
+/**
+ * Template matching of a UI element screenshot against the whole screen. Compared to a single full-resolution
+ * {@code matchTemplate} run, it:
+ * <ul>
+ *     <li>searches the element at multiple scales, so that DPI-scaled elements are found as well,</li>
+ *     <li>does a coarse search on a downscaled screen first and refines only the found candidates at full resolution,</li>
+ *     <li>ranks the matches close to the region of interest (e.g. the last known element position) higher,</li>
+ *     <li>uses non-maximum suppression for selecting the distinct matches.</li>
+ * </ul>
+ */
+public final class TemplateMatchingEngine {
+    private static final Logger LOG = LoggerFactory.getLogger(TemplateMatchingEngine.class);
+    private static final double PYRAMID_DOWNSCALE_FACTOR = 0.5;
+    private static final int MIN_COARSE_TEMPLATE_SIDE_PIXELS = 12;
+    private static final int MIN_SCALED_TEMPLATE_SIDE_PIXELS = 4;
+    private static final double COARSE_SEARCH_THRESHOLD_RELAXATION = 0.15;
+    private static final int COARSE_CANDIDATES_PER_MATCH = 3;
+    private static final int REFINEMENT_MARGIN_PIXELS = (int) ceil(2 / PYRAMID_DOWNSCALE_FACTOR);
+    private static final double NMS_MAX_INTERSECTION_OVER_UNION = 0.3;
+    private static final double SUPPRESSED_SCORE = -1;
+    // Only used for ranking: a match in the region of interest wins over slightly better matches elsewhere
+    private static final double REGION_OF_INTEREST_SCORE_BONUS = 0.05;
+
+    private TemplateMatchingEngine() {
+    }
+
+    /**
+     * Finds the regions of the whole screenshot which match the element screenshot, sorted by the descending match score.
+     *
+     * @param regionOfInterest - the region where the element is expected, e.g. its last known location. The whole screenshot
+     *                         is still searched, so that moved or duplicate elements are found as well, but the matches in
+     *                         this region are ranked higher. If {@link MatchingOptions#regionOfInterestOnly()} is set, the
+     *                         whole screenshot is searched only if nothing is found in this region.
+     */
+    public static List<TemplateMatch> findMatches(@NotNull BufferedImage wholeScreenshot, @NotNull BufferedImage elementScreenshot,
+                                                  @Nullable Rectangle regionOfInterest, @NotNull MatchingOptions options) {
+        Mat screen = toMat(wholeScreenshot, false);
+        Mat template = toMat(elementScreenshot, false);
+        var screenBounds = new Rectangle(0, 0, screen.cols(), screen.rows());
+        if (regionOfInterest != null) {
+            var searchArea = new Rectangle(regionOfInterest);
+            searchArea.grow(template.cols(), template.rows());
+            searchArea = searchArea.intersection(screenBounds);
+            if (!searchArea.isEmpty() && !searchArea.equals(screenBounds)) {
+                if (options.regionOfInterestOnly()) {
+                    var matches = findMatchesInArea(screen, template, searchArea, options);
+                    if (!matches.isEmpty()) {
+                        LOG.debug("Found {} template matches in the region of interest {}", matches.size(), searchArea);
+                        return matches;
+                    }
+                    LOG.debug("No template matches found in the region of interest {}, searching the whole screen", searchArea);
+                } else {
+                    return rankByRegionOfInterest(findMatchesInArea(screen, template, screenBounds, options), searchArea);
+                }
+            }
+        }
+        return findMatchesInArea(screen, template, screenBounds, options);
+    }
+
+    static List<TemplateMatch> rankByRegionOfInterest(List<TemplateMatch> matches, Rectangle searchArea) {
+        return matches.stream()
+                .sorted(comparingDouble((TemplateMatch match) -> match.score() +
+                        (searchArea.contains(match.rectangle()) ? REGION_OF_INTEREST_SCORE_BONUS : 0)).reversed())
+                .toList();
+    }
+
+    private static List<TemplateMatch> findMatchesInArea(Mat screen, Mat template, Rectangle searchArea, MatchingOptions options) {
+        Mat area = screen.submat(new Rect(searchArea.x, searchArea.y, searchArea.width, searchArea.height));
+        List<TemplateMatch> candidates = new ArrayList<>();
+        for (double scale : options.scales()) {
+            Mat scaledTemplate = scale == 1.0 ? template : resizeImage(template, scale);
+            if (min(scaledTemplate.cols(), scaledTemplate.rows()) < MIN_SCALED_TEMPLATE_SIDE_PIXELS ||
+                    scaledTemplate.cols() > area.cols() || scaledTemplate.rows() > area.rows()) {
+                continue;
+            }
+            findMatchesAtScale(area, scaledTemplate, options).stream()
+                    .map(match -> match.translate(searchArea.x, searchArea.y))
+                    .forEach(candidates::add);
+        }
+        return applyNonMaximumSuppression(candidates, options.maxMatches());
+    }
+
+    private static List<TemplateMatch> findMatchesAtScale(Mat area, Mat template, MatchingOptions options) {
+        boolean coarseSearchPossible = options.pyramidEnabled() &&
+                min(template.cols(), template.rows()) * PYRAMID_DOWNSCALE_FACTOR >= MIN_COARSE_TEMPLATE_SIDE_PIXELS;
+        Mat coarseArea = coarseSearchPossible ? resizeImage(area, PYRAMID_DOWNSCALE_FACTOR) : null;
+        Mat coarseTemplate = coarseSearchPossible ? resizeImage(template, PYRAMID_DOWNSCALE_FACTOR) : null;
+        if (coarseArea == null || coarseTemplate.cols() > coarseArea.cols() || coarseTemplate.rows() > coarseArea.rows()) {
+            return findPeaks(computeMatchingScores(area, template), template.cols(), template.rows(), options.threshold(),
+                    options.maxMatches());
+        }
+
+        var coarseCandidates = findPeaks(computeMatchingScores(coarseArea, coarseTemplate),
+                coarseTemplate.cols(), coarseTemplate.rows(), options.threshold() - COARSE_SEARCH_THRESHOLD_RELAXATION,
+                options.maxMatches() * COARSE_CANDIDATES_PER_MATCH);
+        var areaBounds = new Rectangle(0, 0, area.cols(), area.rows());
+        List<TemplateMatch> refinedMatches = new ArrayList<>();
+        for (TemplateMatch coarseCandidate : coarseCandidates) {
+            var window = new Rectangle(
+                    (int) round(coarseCandidate.rectangle().x / PYRAMID_DOWNSCALE_FACTOR) - REFINEMENT_MARGIN_PIXELS,
+                    (int) round(coarseCandidate.rectangle().y / PYRAMID_DOWNSCALE_FACTOR) - REFINEMENT_MARGIN_PIXELS,
+                    template.cols() + 2 * REFINEMENT_MARGIN_PIXELS, template.rows() + 2 * REFINEMENT_MARGIN_PIXELS)
+                    .intersection(areaBounds);
+            if (window.width < template.cols() || window.height < template.rows()) {
+                continue;
+            }
+            var bestMatch = Core.minMaxLoc(computeMatchingScores(area.submat(new Rect(window.x, window.y, window.width, window.height)),
+                    template));
+            if (bestMatch.maxVal >= options.threshold()) {
+                refinedMatches.add(new TemplateMatch(new Rectangle(window.x + (int) bestMatch.maxLoc.x,
+                        window.y + (int) bestMatch.maxLoc.y, template.cols(), template.rows()), bestMatch.maxVal));
+            }
+        }
+        return refinedMatches;
+    }
+
+    private static List<TemplateMatch> findPeaks(Mat matchingResult, int templateWidth, int templateHeight, double threshold,
+                                                 int maxPeaks) {
+        List<TemplateMatch> peaks = new ArrayList<>();
+        while (peaks.size() < maxPeaks) {
+            var peak = Core.minMaxLoc(matchingResult);
+            if (peak.maxVal < threshold) {
+                break;
+            }
+            peaks.add(new TemplateMatch(new Rectangle((int) peak.maxLoc.x, (int) peak.maxLoc.y, templateWidth, templateHeight),
+                    peak.maxVal));
+            // Suppressing the neighborhood of the peak, otherwise the next peaks would be the same match shifted by a few pixels
+            rectangle(matchingResult,
+                    new Point(peak.maxLoc.x - templateWidth / 2.0, peak.maxLoc.y - templateHeight / 2.0),
+                    new Point(peak.maxLoc.x + templateWidth / 2.0, peak.maxLoc.y + templateHeight / 2.0),
+                    new Scalar(SUPPRESSED_SCORE), FILLED);
+        }
+        return peaks;
+    }
+
+    static List<TemplateMatch> applyNonMaximumSuppression(List<TemplateMatch> candidates, int maxMatches) {
+        List<TemplateMatch> selectedMatches = new ArrayList<>();
+        candidates.stream()
+                .sorted(comparingDouble(TemplateMatch::score).reversed())
+                .forEach(candidate -> {
+                    if (selectedMatches.size() < maxMatches && selectedMatches.stream().noneMatch(selected ->
+                            getIntersectionOverUnion(selected.rectangle(), candidate.rectangle()) > NMS_MAX_INTERSECTION_OVER_UNION)) {
+                        selectedMatches.add(candidate);
+                    }
+                });
+        return selectedMatches;
+    }
+
+    private static double getIntersectionOverUnion(Rectangle first, Rectangle second) {
+        var intersection = first.intersection(second);
+        if (intersection.isEmpty()) {
+            return 0;
+        }
+        double intersectionArea = (double) intersection.width * intersection.height;
+        double unionArea = (double) first.width * first.height + (double) second.width * second.height - intersectionArea;
+        return intersectionArea / unionArea;
+    }
+
+    private static Mat computeMatchingScores(Mat image, Mat template) {
+        Mat result = new Mat();
+        matchTemplate(image, template, result, TM_CCOEFF_NORMED);
+        return result;
+    }
+
+    private static Mat resizeImage(Mat image, double scale) {
+        Mat resized = new Mat();
+        resize(image, resized, new Size(), scale, scale, scale < 1 ? INTER_AREA : INTER_LINEAR);
+        return resized;
+    }
+
+    public record TemplateMatch(Rectangle rectangle, double score) {
+        TemplateMatch translate(int dx, int dy) {
+            var translated = new Rectangle(rectangle);
+            translated.translate(dx, dy);
+            return new TemplateMatch(translated, score);
+        }
+    }
+
+    /**
+     * @param scales               - scale factors applied to the element screenshot
+     * @param pyramidEnabled       - whether the coarse search on the downscaled screen is done before the full-resolution one
+     * @param threshold            - minimal normalized correlation coefficient of a match
+     * @param maxMatches           - maximal number of returned matches
+     * @param regionOfInterestOnly - whether the whole screen is searched only if nothing is found in the region of interest
+     */
+    public record MatchingOptions(List<Double> scales, boolean pyramidEnabled, double threshold, int maxMatches,
+                                  boolean regionOfInterestOnly) {
+        public MatchingOptions(List<Double> scales, boolean pyramidEnabled, double threshold, int maxMatches) {
+            this(scales, pyramidEnabled, threshold, maxMatches, false);
+        }
+
+        public static MatchingOptions fromConfig() {
+            return new MatchingOptions(UiTestAgentConfig.getTemplateMatchingScales(),
+                    UiTestAgentConfig.isTemplateMatchingPyramidEnabled(),
+                    UiTestAgentConfig.getElementLocatorVisualSimilarityThreshold(),
+                    UiTestAgentConfig.getElementLocatorTopVisualMatches(),
+                    UiTestAgentConfig.isTemplateMatchingRegionOfInterestOnly());
+        }
+    }
+}
@@ -63,9 +63,19 @@ public class UiCommonUtils {
                 .orElseThrow(() -> new IllegalStateException("No suitable color name found in JDK for the value of " + color));
     }
 
+    /**
+     * Returns the current screen. The frame is shared with other consumers and may have been captured up to the configured max frame
+     * age ago, but never before the last input sent by the robot, see {@link ScreenFrameGrabber}.
+     */
     public static BufferedImage captureScreen(boolean withHighestResolution) {
-        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-        return captureScreenPart(new Rectangle(screenSize), withHighestResolution);
+        return ScreenFrameGrabber.getRecentFrame().image(withHighestResolution);
+    }
+
+    /**
+     * Returns the screen captured not earlier than the provided timestamp, see {@link ScreenFrameGrabber#getFrameNewerThan(long)}.
+     */
+    public static BufferedImage captureScreenNewerThan(long timestampNanos, boolean withHighestResolution) {
+        return ScreenFrameGrabber.getFrameNewerThan(timestampNanos).image(withHighestResolution);
     }
 
     public static Dimension getScreenSize() {
@@ -92,7 +102,7 @@ public class UiCommonUtils {
     public static synchronized Robot getRobot() {
         if (robot == null) {
             try {
-                robot = new Robot();
+                robot = new InputTrackingRobot();
             } catch (AWTException e) {
                 throw new RuntimeException(e);
             }
@@ -168,7 +178,49 @@ public class UiCommonUtils {
             return new Rectangle(minX, minY, maxX - minX, maxY - minY);
         }
     }
-}
 
+    /**
+     * Notifies {@link ScreenFrameGrabber} about each input it sends, so that no screen captured before the input is reused after it.
+     */
+    private static final class InputTrackingRobot extends Robot {
+        private InputTrackingRobot() throws AWTException {
+            super();
+        }
+
+        @Override
+        public synchronized void mouseMove(int x, int y) {
+            super.mouseMove(x, y);
+            ScreenFrameGrabber.onInputAction();
+        }
+
+        @Override
+        public synchronized void mousePress(int buttons) {
+            super.mousePress(buttons);
+            ScreenFrameGrabber.onInputAction();
+        }
+
+        @Override
+        public synchronized void mouseRelease(int buttons) {
+            super.mouseRelease(buttons);
+            ScreenFrameGrabber.onInputAction();
+        }
+
+        @Override
+        public synchronized void mouseWheel(int wheelAmt) {
+            super.mouseWheel(wheelAmt);
+            ScreenFrameGrabber.onInputAction();
+        }
 
+        @Override
+        public synchronized void keyPress(int keycode) {
+            super.keyPress(keycode);
+            ScreenFrameGrabber.onInputAction();
+        }
 
+        @Override
+        public synchronized void keyRelease(int keycode) {
+            super.keyRelease(keycode);
+            ScreenFrameGrabber.onInputAction();
+        }
+    }
+}
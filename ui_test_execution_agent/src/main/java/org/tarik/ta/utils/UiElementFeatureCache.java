@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.UiTestAgentConfig;
+import org.tarik.ta.rag.ElementScreenshotStore;
+import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.utils.ImageMatchingUtil.ElementFeatures;
+
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static java.util.Optional.empty;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded LRU cache of the data derived from the stored screenshots of UI elements: the decoded image and its ORB features. The
+ * screenshot is loaded from the screenshot store only on a cache miss. The entries are keyed by the element UUID and the hash of its
+ * screenshot, so an updated screenshot never hits a stale entry. Entries are explicitly invalidated when the element is updated or
+ * removed in the vector DB.
+ * <p>
+ * The ORB features are held in native OpenCV memory which is released as soon as the entry is removed from the cache and the
+ * features aren't used anymore, that's why they are accessible only within
+ * {@link #withFeatures(UiElement, ElementScreenshotStore, Function)}.
+ * <p>
+ * The screenshot store must be the one into which the retriever of the element has saved its screenshot, null if there's none.
+ */
+public final class UiElementFeatureCache {
+    private static final Logger LOG = LoggerFactory.getLogger(UiElementFeatureCache.class);
+    private static final Cache<CacheKey, CachedElementData> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(UiTestAgentConfig.getElementFeatureCacheSize())
+            .<CacheKey, CachedElementData>removalListener(UiElementFeatureCache::onRemoval)
+            .build();
+
+    private UiElementFeatureCache() {
+    }
+
+    /**
+     * Returns the decoded screenshot of the provided element, decoding it only if it's not cached yet.
+     */
+    public static Optional<BufferedImage> getScreenshot(@NotNull UiElement element,
+                                                        @Nullable ElementScreenshotStore screenshotStore) {
+        return getCachedData(element, screenshotStore).map(CachedElementData::image);
+    }
+
+    /**
+     * Applies the provided function to the ORB features of the element's screenshot, extracting them only if they're not cached yet.
+     * The features must not be used after the function returns, because their native memory could be released at any time after
+     * that.
+     */
+    public static <T> Optional<T> withFeatures(@NotNull UiElement element, @Nullable ElementScreenshotStore screenshotStore,
+                                               @NotNull Function<ElementFeatures, T> function) {
+        // The entry could be evicted and released between its retrieval and use, in which case the newly cached one is used
+        for (int attempt = 0; attempt < 2; attempt++) {
+            var cachedData = getCachedData(element, screenshotStore);
+            if (cachedData.isEmpty()) {
+                return empty();
+            }
+            var features = cachedData.get().acquireFeatures();
+            if (features != null) {
+                try {
+                    return Optional.ofNullable(function.apply(features));
+                } finally {
+                    cachedData.get().releaseFeatures();
+                }
+            }
+        }
+        return empty();
+    }
+
+    /**
+     * Extracts the ORB features of the provided element's screenshot in advance if they're not cached yet.
+     */
+    public static void prefetchFeatures(@NotNull UiElement element, @Nullable ElementScreenshotStore screenshotStore) {
+        withFeatures(element, screenshotStore, _ -> null);
+    }
+
+    /**
+     * Removes all cached data of the element with the provided UUID.
+     */
+    public static void invalidate(@NotNull UUID elementId) {
+        CACHE.asMap().keySet().removeIf(key -> key.elementId().equals(elementId));
+    }
+
+    public static void clear() {
+        CACHE.invalidateAll();
+    }
+
+    private static Optional<CachedElementData> getCachedData(UiElement element,
+                                                             @Nullable ElementScreenshotStore screenshotStore) {
+        var screenshot = element.screenshot();
+        if (screenshot == null) {
+            return empty();
+        }
+        var key = new CacheKey(element.uuid(), screenshot.contentHash());
+        try {
+            return Optional.of(CACHE.get(key, () -> new CachedElementData(requireNonNull(
+                    screenshot.toBufferedImage(screenshotStore), "The screenshot is missing or has an unsupported image format"))));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            LOG.warn("Couldn't decode the screenshot of the UI element '{}'", element.name(), e.getCause());
+            return empty();
+        }
+    }
+
+    private static void onRemoval(RemovalNotification<CacheKey, CachedElementData> notification) {
+        var cachedData = notification.getValue();
+        if (cachedData != null) {
+            cachedData.discard();
+        }
+    }
+
+    private record CacheKey(UUID elementId, String screenshotHash) {
+    }
+
+    private static final class CachedElementData {
+        private final BufferedImage image;
+        private ElementFeatures features;
+        private int activeUsers;
+        private boolean discarded;
+
+        private CachedElementData(BufferedImage image) {
+            this.image = image;
+        }
+
+        BufferedImage image() {
+            return image;
+        }
+
+        /**
+         * Returns the features, extracting them on the first call, or null if the entry has already been discarded.
+         */
+        synchronized ElementFeatures acquireFeatures() {
+            if (discarded) {
+                return null;
+            }
+            if (features == null) {
+                features = ImageMatchingUtil.extractFeatures(image);
+            }
+            activeUsers++;
+            return features;
+        }
+
+        synchronized void releaseFeatures() {
+            activeUsers--;
+            if (discarded && activeUsers == 0) {
+                releaseNativeMemory();
+            }
+        }
+
+        synchronized void discard() {
+            discarded = true;
+            if (activeUsers == 0) {
+                releaseNativeMemory();
+            }
+        }
+
+        private void releaseNativeMemory() {
+            if (features != null) {
+                features.grayscaleMat().release();
+                features.descriptors().release();
+                features = null;
+            }
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.tarik.ta.agents.UiElementBoundingBoxAgent;
 import org.tarik.ta.agents.BestUiElementMatchSelectionAgent;
 import org.tarik.ta.agents.DbUiElementSelectionAgent;
 import org.tarik.ta.agents.ImageVerificationAgent;
+import org.tarik.ta.core.agents.AgentRegistry;
 import org.tarik.ta.core.agents.TestCaseExtractionAgent;
 import org.tarik.ta.core.dto.EmptyExecutionResult;
 import org.tarik.ta.core.dto.TestExecutionResult;
@@ -151,6 +152,7 @@ class UiTestAgentTest {
 
         @BeforeEach
         void setUp() {
+                AgentRegistry.clear();
                 modelFactoryMockedStatic = mockStatic(ModelFactory.class);
                 commonUtilsMockedStatic = mockStatic(UiCommonUtils.class);
                 coreUtilsMockedStatic = mockStatic(CommonUtils.class);
@@ -509,7 +511,7 @@ assertThat(result.getTestExecutionStatus()).isEqualTo(TestExecutionStatus.ERROR)
                 assertThat(result.getSystemInfo().device()).isNotNull();
                 assertThat(result.getSystemInfo().osVersion()).isNotBlank();
                 assertThat(result.getLogs()).isNotNull();
-                assertThat(result.getLogs()).isNotEmpty(); // Should contain at least start/end logs
+                assertThat(result.getLogs().readLines()).isNotEmpty(); // Should contain at least the start logs
         }
 
         private void mockTestCaseExtraction(TestCase testCase) {
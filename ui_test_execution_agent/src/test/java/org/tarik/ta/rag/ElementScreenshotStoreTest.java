@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tarik.ta.rag.model.UiElement.Screenshot;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ElementScreenshotStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void save_shouldStoreScreenshotUnderItsHash() throws IOException {
+        var store = new ElementScreenshotStore(tempDir);
+        var screenshot = Screenshot.fromBufferedImage(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png");
+        var content = Base64.getDecoder().decode(screenshot.base64EncodedImage());
+
+        store.save(screenshot.contentHash(), screenshot.fileExtension(), content);
+        store.save(screenshot.contentHash(), screenshot.fileExtension(), content);
+
+        assertThat(tempDir.resolve(screenshot.contentHash() + ".png")).hasBinaryContent(content);
+        assertThat(store.load(screenshot.contentHash(), "png")).hasValue(content);
+        try (var files = Files.list(tempDir.resolve(".incoming"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void load_shouldBeEmptyForMissingScreenshot() {
+        var store = new ElementScreenshotStore(tempDir);
+
+        assertThat(store.load("a".repeat(64), "png")).isEmpty();
+    }
+
+    @Test
+    void load_shouldRejectReferencesPointingOutsideTheStore() {
+        var store = new ElementScreenshotStore(tempDir);
+
+        assertThatThrownBy(() -> store.load("../secret", "png")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.load("a".repeat(64), "png/../x")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
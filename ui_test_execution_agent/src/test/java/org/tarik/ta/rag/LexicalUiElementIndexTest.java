@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import org.junit.jupiter.api.Test;
+import org.tarik.ta.rag.model.UiElement;
+
+import java.util.List;
+
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LexicalUiElementIndexTest {
+
+    @Test
+    void tokenize_shouldSplitIntoLowerCaseWordsAndTrigramsOfLongerWords() {
+        assertThat(LexicalUiElementIndex.tokenize("OK-Button")).containsExactly("ok", "button", "#but", "#utt", "#tto", "#ton");
+        assertThat(LexicalUiElementIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void rank_shouldRankElementsByAllTextualFields() {
+        var headerLogin = createElement("Login button", "Opens the login dialog", "Header");
+        var formLogin = createElement("Login button", "Submits the credentials", "Login form");
+        var searchField = createElement("Search field", "Searches the products", "Header");
+        var index = LexicalUiElementIndex.loadFrom(List.of(headerLogin, formLogin, searchField));
+        var allIds = List.of(searchField.uuid(), formLogin.uuid(), headerLogin.uuid());
+
+        assertThat(index.rank("login button in the header", allIds))
+                .containsExactly(headerLogin.uuid(), formLogin.uuid(), searchField.uuid());
+        assertThat(index.rank("button which submits credentials", allIds).getFirst()).isEqualTo(formLogin.uuid());
+        assertThat(index.rank("search", allIds)).containsExactly(searchField.uuid());
+    }
+
+    @Test
+    void rank_shouldReturnOnlyMatchingCandidates() {
+        var headerLogin = createElement("Login button", "Opens the login dialog", "Header");
+        var formLogin = createElement("Login button", "Submits the credentials", "Login form");
+        var headerSearch = createElement("Search field", "Searches the products", "Header");
+        var index = LexicalUiElementIndex.loadFrom(List.of(headerLogin, formLogin, headerSearch));
+
+        assertThat(index.rank("login button in the header", List.of(formLogin.uuid(), headerLogin.uuid(), randomUUID())))
+                .containsExactly(headerLogin.uuid(), formLogin.uuid());
+    }
+
+    @Test
+    void rank_shouldMatchInflectedWordsByTrigrams() {
+        var checkoutLink = createElement("Checkout link", "Navigates to the checkout page", "Cart summary");
+        var helpIcon = createElement("Help icon", "", "Footer");
+        var index = LexicalUiElementIndex.loadFrom(List.of(checkoutLink, helpIcon));
+        var allIds = List.of(checkoutLink.uuid(), helpIcon.uuid());
+
+        assertThat(index.rank("checking out", allIds)).containsExactly(checkoutLink.uuid());
+        assertThat(index.rank("unknown", allIds)).isEmpty();
+    }
+
+    @Test
+    void addAndRemove_shouldKeepIndexInSync() {
+        var element = createElement("Cancel button", "", "Dialog");
+        var index = LexicalUiElementIndex.loadFrom(List.of(element));
+        var renamedElement = new UiElement(element.uuid(), "Close button", "", "", "Dialog", null, false);
+
+        index.add(renamedElement);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.rank("cancel", List.of(element.uuid()))).isEmpty();
+        assertThat(index.rank("close", List.of(element.uuid()))).containsExactly(element.uuid());
+
+        index.remove(element.uuid());
+
+        assertThat(index.size()).isZero();
+        assertThat(index.rank("dialog", List.of(element.uuid()))).isEmpty();
+    }
+
+    private static UiElement createElement(String name, String description, String parentElementSummary) {
+        return new UiElement(randomUUID(), name, description, "", parentElementSummary, null, false);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LocalUiElementIndexTest {
+
+    @Test
+    void search_shouldReturnBestMatchesAboveMinScoreInDescendingOrder() {
+        var index = new LocalUiElementIndex();
+        index.addAll(List.of("exact", "close", "orthogonal", "opposite"),
+                List.of(embedding(2, 0), embedding(1, 1), embedding(0, 1), embedding(-1, 0)),
+                List.of(TextSegment.from("exact"), TextSegment.from("close"), TextSegment.from("orthogonal"),
+                        TextSegment.from("opposite")));
+
+        var matches = index.search(embedding(1, 0), 2, 0.5);
+
+        assertThat(matches).extracting(EmbeddingMatch::embeddingId).containsExactly("exact", "close");
+        assertThat(matches.getFirst().score()).isCloseTo(1.0, within(1e-6));
+        assertThat(index.search(embedding(1, 0), 10, 0.5)).extracting(EmbeddingMatch::embeddingId)
+                .containsExactly("exact", "close", "orthogonal");
+    }
+
+    @Test
+    void remove_shouldExcludeElementFromSearch() {
+        var index = new LocalUiElementIndex();
+        index.add("first", embedding(1, 0), TextSegment.from("first"));
+        index.add("second", embedding(1, 0.1f), TextSegment.from("second"));
+
+        index.remove("first");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search(embedding(1, 0), 5, 0.0)).extracting(EmbeddingMatch::embeddingId).containsExactly("second");
+    }
+
+    private static Embedding embedding(float... vector) {
+        return Embedding.from(vector);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.rag.model.UiElement.Screenshot;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.tarik.ta.rag.UiElementMemoryTransfer.ELEMENTS_FILE_NAME;
+import static org.tarik.ta.rag.UiElementMemoryTransfer.SCREENSHOTS_FOLDER_NAME;
+
+class UiElementMemoryTransferTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void exportedElementsShouldBeImportedIntoAnotherStore() throws Exception {
+        var screenshot = Screenshot.fromBufferedImage(new BufferedImage(5, 5, BufferedImage.TYPE_INT_RGB), "png");
+        var elementWithScreenshot = new UiElement(randomUUID(), "Login button", "Blue button", "Below the password field",
+                "Login form", screenshot, false);
+        var elementWithoutScreenshot = new UiElement(randomUUID(), "Search field", "Text input", "In the header", "Header",
+                null, true);
+        var source = new TestRetriever(new InMemoryEmbeddingStore<>());
+        source.storeElements(List.of(elementWithScreenshot, elementWithoutScreenshot));
+
+        int exported = new UiElementMemoryTransfer(source, 1, 2).exportTo(tempDir, 100);
+
+        assertThat(exported).isEqualTo(2);
+        assertThat(Files.readAllLines(tempDir.resolve(ELEMENTS_FILE_NAME))).hasSize(2);
+        assertThat(tempDir.resolve(SCREENSHOTS_FOLDER_NAME).resolve(screenshot.contentHash() + ".png")).exists();
+
+        var target = new TestRetriever(new InMemoryEmbeddingStore<>());
+        int imported = new UiElementMemoryTransfer(target, 1, 2).importFrom(tempDir);
+
+        assertThat(imported).isEqualTo(2);
+        var importedElements = target.getAllElements(100);
+        assertThat(importedElements).extracting(UiElement::uuid)
+                .containsExactlyInAnyOrder(elementWithScreenshot.uuid(), elementWithoutScreenshot.uuid());
+        var importedElementWithScreenshot = findElement(importedElements, elementWithScreenshot.uuid());
+        assertThat(importedElementWithScreenshot.locationDetails()).isEqualTo("Below the password field");
+        assertThat(importedElementWithScreenshot.screenshot()).isEqualTo(screenshot);
+        var importedElementWithoutScreenshot = findElement(importedElements, elementWithoutScreenshot.uuid());
+        assertThat(importedElementWithoutScreenshot.screenshot()).isNull();
+        assertThat(importedElementWithoutScreenshot.isDataDependent()).isTrue();
+    }
+
+    @Test
+    void importingSameFolderAgainShouldReplaceElements() throws Exception {
+        var element = new UiElement(randomUUID(), "Login button", "Blue button", "", "Login form", null, false);
+        var source = new TestRetriever(new InMemoryEmbeddingStore<>());
+        source.storeElement(element);
+        new UiElementMemoryTransfer(source, 1, 1).exportTo(tempDir, 100);
+        var target = new TestRetriever(new InMemoryEmbeddingStore<>());
+
+        new UiElementMemoryTransfer(target, 1, 1).importFrom(tempDir);
+        new UiElementMemoryTransfer(target, 1, 1).importFrom(tempDir);
+
+        assertThat(target.getAllElements(100)).extracting(UiElement::uuid).containsExactly(element.uuid());
+    }
+
+    private static UiElement findElement(List<UiElement> elements, UUID id) {
+        return elements.stream().filter(element -> element.uuid().equals(id)).findFirst().orElseThrow();
+    }
+
+    private static class TestRetriever extends UiElementRetriever {
+        TestRetriever(EmbeddingStore<TextSegment> embeddingStore) {
+            super(embeddingStore, false);
+        }
+    }
+}
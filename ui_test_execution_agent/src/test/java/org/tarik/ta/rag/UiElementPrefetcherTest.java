@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tarik.ta.core.dto.TestStep;
+import org.tarik.ta.rag.UiElementRetriever.RetrievedUiElementItem;
+import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.rag.model.UiElement.Screenshot;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class UiElementPrefetcherTest {
+    private static final int TOP_N = 3;
+    private static final double MIN_SCORE = 0.5;
+
+    private UiElementRetriever retriever;
+    private UiElementPrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        retriever = mock(UiElementRetriever.class);
+        prefetcher = new UiElementPrefetcher(retriever, TOP_N, MIN_SCORE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.close();
+    }
+
+    @Test
+    void getElementQueries_shouldExtractOnlyQuotedMentions() {
+        var queries = UiElementPrefetcher.getElementQueries("Click the \"Login\"  button and then the “Sign up   link”");
+
+        assertThat(queries).containsExactly("Login", "Sign up link");
+    }
+
+    @Test
+    void getElementQueries_shouldReturnNothingIfNoElementIsMentioned() {
+        assertThat(UiElementPrefetcher.getElementQueries("Open the main page")).isEmpty();
+    }
+
+    @Test
+    void getElementQueries_shouldReturnNothingForBlankDescription() {
+        assertThat(UiElementPrefetcher.getElementQueries("  ")).isEmpty();
+    }
+
+    @Test
+    void prefetch_shouldProvideRetrievalResultsAndDecodedScreenshots() {
+        var screenshot = Screenshot.fromBufferedImage(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png");
+        var element = new UiElement(randomUUID(), "Login", "Login button", "", "", screenshot, false);
+        var items = List.of(new RetrievedUiElementItem(element, 0.9));
+        when(retriever.retrieveUiElements(anyString(), anyInt(), anyDouble())).thenReturn(items);
+
+        prefetcher.prefetch(new TestStep("Click the \"Login\" button", null, null));
+
+        assertThat(prefetcher.getRetrievalResult(" login ")).contains(items);
+        assertThat(prefetcher.getScreenshot(element)).hasValueSatisfying(image -> assertThat(image.getWidth()).isEqualTo(4));
+        verify(retriever).retrieveUiElements("Login", TOP_N, MIN_SCORE);
+    }
+
+    @Test
+    void prefetch_shouldNotRetrieveTheSameQueryTwice() {
+        when(retriever.retrieveUiElements(anyString(), anyInt(), anyDouble())).thenReturn(List.of());
+        var testStep = new TestStep("Click \"OK\"", null, null);
+
+        prefetcher.prefetch(testStep);
+        prefetcher.prefetch(testStep);
+        prefetcher.getRetrievalResult("OK");
+
+        verify(retriever, times(1)).retrieveUiElements("OK", TOP_N, MIN_SCORE);
+    }
+
+    @Test
+    void getRetrievalResult_shouldBeEmptyIfNotPrefetchedOrFailed() {
+        when(retriever.retrieveUiElements(anyString(), anyInt(), anyDouble())).thenThrow(new IllegalStateException("DB down"));
+
+        prefetcher.prefetch(new TestStep("Click \"OK\"", null, null));
+
+        assertThat(prefetcher.getRetrievalResult("OK")).isEmpty();
+        assertThat(prefetcher.getRetrievalResult("Cancel")).isEmpty();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tarik.ta.rag.UiElementRetriever.RetrievedUiElementItem;
+import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.rag.model.UiElement.Screenshot;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class UiElementRetrieverTest {
+    // Only the element with exactly the same name is expected to reach this score
+    private static final double MIN_SCORE = 0.99;
+    private UiElementRetriever retriever;
+
+    @BeforeEach
+    void setUp() {
+        retriever = new TestRetriever(new InMemoryEmbeddingStore<>());
+    }
+
+    @Test
+    void storeElements_shouldStoreAllElementsInSingleBatch() {
+        var loginButton = createElement("Login button");
+        var searchField = createElement("Search field");
+
+        retriever.storeElements(List.of(loginButton, searchField));
+
+        assertThat(retriever.retrieveUiElements("Login button", 5, MIN_SCORE))
+                .extracting(item -> item.element().uuid())
+                .containsExactly(loginButton.uuid());
+        assertThat(retriever.retrieveUiElements("Search field", 5, MIN_SCORE))
+                .extracting(item -> item.element().uuid())
+                .containsExactly(searchField.uuid());
+    }
+
+    @Test
+    void retrieveUiElements_shouldEmbedEquivalentQueriesOnlyOnce() {
+        retriever.storeElement(createElement("Submit order button"));
+        var statsBefore = UiElementRetriever.getQueryEmbeddingCacheStats();
+
+        var first = retriever.retrieveUiElements("Submit order button", 5, 0.5);
+        var second = retriever.retrieveUiElements("  submit   ORDER button ", 5, 0.5);
+
+        var stats = UiElementRetriever.getQueryEmbeddingCacheStats().minus(statsBefore);
+        assertThat(stats.missCount()).isEqualTo(1);
+        assertThat(stats.hitCount()).isEqualTo(1);
+        assertThat(second).extracting(RetrievedUiElementItem::mainScore)
+                .containsExactlyElementsOf(first.stream().map(RetrievedUiElementItem::mainScore).toList());
+    }
+
+    @Test
+    void localIndex_shouldBeLoadedFromTheStoreAndKeptInSync() {
+        var embeddingStore = new InMemoryEmbeddingStore<TextSegment>();
+        var existingElement = createElement("Cancel button");
+        new TestRetriever(embeddingStore, false).storeElement(existingElement);
+        var localRetriever = new TestRetriever(embeddingStore, true);
+
+        assertThat(localRetriever.retrieveUiElements("Cancel button", 5, MIN_SCORE))
+                .extracting(item -> item.element().uuid())
+                .containsExactly(existingElement.uuid());
+
+        var newElement = createElement("Checkout link");
+        localRetriever.storeElement(newElement);
+        localRetriever.removeElement(existingElement);
+
+        assertThat(localRetriever.retrieveUiElements("Cancel button", 5, MIN_SCORE)).isEmpty();
+        assertThat(localRetriever.retrieveUiElements("Checkout link", 5, MIN_SCORE))
+                .extracting(item -> item.element().uuid())
+                .containsExactly(newElement.uuid());
+
+        var remoteRetriever = new TestRetriever(embeddingStore, false);
+        var remoteScore = remoteRetriever.retrieveUiElements("Checkout link", 5, MIN_SCORE).getFirst().mainScore();
+        var localScore = localRetriever.retrieveUiElements("Checkout link", 5, MIN_SCORE).getFirst().mainScore();
+        assertThat(localScore).isCloseTo(remoteScore, within(1e-4));
+    }
+
+    @Test
+    void resyncLocalIndexes_shouldMakeChangesOfOtherAgentsVisible() {
+        var embeddingStore = new InMemoryEmbeddingStore<TextSegment>();
+        var existingElement = createElement("Cancel button");
+        var otherAgentRetriever = new TestRetriever(embeddingStore, false);
+        otherAgentRetriever.storeElement(existingElement);
+        var localRetriever = new TestRetriever(embeddingStore, true);
+
+        var elementOfOtherAgent = createElement("Checkout link");
+        otherAgentRetriever.storeElement(elementOfOtherAgent);
+        otherAgentRetriever.removeElement(existingElement);
+        assertThat(localRetriever.retrieveUiElements("Checkout link", 5, MIN_SCORE)).isEmpty();
+
+        localRetriever.resyncLocalIndexes();
+
+        assertThat(localRetriever.retrieveUiElements("Cancel button", 5, MIN_SCORE)).isEmpty();
+        assertThat(localRetriever.retrieveUiElements("Checkout link", 5, MIN_SCORE))
+                .extracting(item -> item.element().uuid())
+                .containsExactly(elementOfOtherAgent.uuid());
+    }
+
+    @Test
+    void hybridSearch_shouldPreferElementMatchingTheQueryLexically() {
+        var embeddingStore = new InMemoryEmbeddingStore<TextSegment>();
+        var formLoginButton = createElement("Login button", "Login form");
+        var headerLoginButton = createElement("Login button", "Header");
+        new TestRetriever(embeddingStore, false, false).storeElements(List.of(formLoginButton, headerLoginButton));
+        var hybridRetriever = new TestRetriever(embeddingStore, false, true);
+
+        var retrievedItems = hybridRetriever.retrieveUiElements("Login button in the header", 5, 0.5);
+
+        assertThat(retrievedItems).extracting(item -> item.element().uuid())
+                .containsExactly(headerLoginButton.uuid(), formLoginButton.uuid());
+        assertThat(retrievedItems.getFirst().rankingScore()).isGreaterThan(retrievedItems.getLast().rankingScore());
+        assertThat(retrievedItems.getFirst().mainScore()).isCloseTo(retrievedItems.getLast().mainScore(), within(1e-6));
+    }
+
+    @Test
+    void storeElement_shouldSaveScreenshotIntoStoreAndKeepOnlyItsHashInVectorDb(@TempDir Path tempDir) {
+        var screenshotStore = new ElementScreenshotStore(tempDir);
+        var retrieverWithScreenshotStore = new TestRetriever(new InMemoryEmbeddingStore<>(), false, false, screenshotStore);
+        var screenshot = Screenshot.fromBufferedImage(new BufferedImage(6, 3, BufferedImage.TYPE_INT_RGB), "png");
+        var element = new UiElement(randomUUID(), "Save button", "A button", "", "", screenshot, false);
+
+        retrieverWithScreenshotStore.storeElement(element);
+
+        var retrievedScreenshot = retrieverWithScreenshotStore.retrieveUiElements("Save button", 5, MIN_SCORE).getFirst()
+                .element().screenshot();
+        assertThat(retrievedScreenshot.contentHash()).isEqualTo(screenshot.contentHash());
+        assertThat(retrievedScreenshot.base64EncodedImage()).isNull();
+        assertThat(screenshotStore.load(screenshot.contentHash(), "png")).isPresent();
+        assertThat(retrievedScreenshot.toBufferedImage(retrieverWithScreenshotStore.getScreenshotStore())).isNotNull()
+                .satisfies(image -> assertThat(image.getWidth()).isEqualTo(6));
+    }
+
+    @Test
+    void resyncLocalIndexes_shouldReloadLexicalIndex() {
+        var embeddingStore = new InMemoryEmbeddingStore<TextSegment>();
+        var hybridRetriever = new TestRetriever(embeddingStore, false, true);
+        var formLoginButton = createElement("Login button", "Login form");
+        var headerLoginButton = createElement("Login button", "Header");
+        new TestRetriever(embeddingStore, false, false).storeElements(List.of(formLoginButton, headerLoginButton));
+
+        hybridRetriever.resyncLocalIndexes();
+
+        var retrievedItems = hybridRetriever.retrieveUiElements("Login button in the header", 5, 0.5);
+        assertThat(retrievedItems.getFirst().element().uuid()).isEqualTo(headerLoginButton.uuid());
+        assertThat(retrievedItems.getFirst().rankingScore()).isGreaterThan(retrievedItems.getLast().rankingScore());
+    }
+
+    @Test
+    void normalizeQuery_shouldIgnoreCaseAndRedundantWhitespace() {
+        assertThat(UiElementRetriever.normalizeQuery("\tLogin \n  Button ")).isEqualTo("login button");
+    }
+
+    private static UiElement createElement(String name) {
+        return createElement(name, "");
+    }
+
+    private static UiElement createElement(String name, String parentElementSummary) {
+        return new UiElement(randomUUID(), name, "%s description".formatted(name), "", parentElementSummary, null, false);
+    }
+
+    private static class TestRetriever extends UiElementRetriever {
+        TestRetriever(EmbeddingStore<TextSegment> embeddingStore) {
+            super(embeddingStore);
+        }
+
+        TestRetriever(EmbeddingStore<TextSegment> embeddingStore, boolean useLocalIndex) {
+            super(embeddingStore, useLocalIndex);
+        }
+
+        TestRetriever(EmbeddingStore<TextSegment> embeddingStore, boolean useLocalIndex, boolean useHybridSearch) {
+            super(embeddingStore, useLocalIndex, useHybridSearch);
+        }
+
+        TestRetriever(EmbeddingStore<TextSegment> embeddingStore, boolean useLocalIndex, boolean useHybridSearch,
+                      ElementScreenshotStore screenshotStore) {
+            super(embeddingStore, useLocalIndex, useHybridSearch, screenshotStore);
+        }
+    }
+}
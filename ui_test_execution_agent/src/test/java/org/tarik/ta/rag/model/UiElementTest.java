@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.rag.model;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.tarik.ta.rag.model.UiElement.Screenshot;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.tarik.ta.rag.model.UiElement.MetadataField.*;
+
+class UiElementTest {
+
+    @Test
+    void fromTextSegment_shouldRestoreScreenshotReference() {
+        var screenshot = Screenshot.fromBufferedImage(new BufferedImage(6, 3, BufferedImage.TYPE_INT_RGB), "png");
+        var element = new UiElement(randomUUID(), "Button", "A button", "", "", screenshot, false);
+
+        var restored = UiElement.fromTextSegment(element.asTextSegment(true));
+
+        assertThat(restored.screenshot()).isNotNull();
+        assertThat(restored.screenshot().contentHash()).isEqualTo(screenshot.contentHash());
+        assertThat(restored.screenshot().toBufferedImage(null)).isNotNull()
+                .satisfies(image -> assertThat(image.getWidth()).isEqualTo(6));
+    }
+
+    @Test
+    void fromTextSegment_shouldHashInlinedScreenshotOfElementStoredWithoutHash() {
+        var screenshot = Screenshot.fromBufferedImage(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png");
+        var metadata = Metadata.from(Map.of(
+                ID.name(), randomUUID(),
+                NAME.name(), "Button",
+                OWN_DESCRIPTION.name(), "A button",
+                SCREENSHOT_FILE_EXTENSION.name(), "png",
+                SCREENSHOT_MIME_TYPE.name(), "image/png",
+                SCREENSHOT_IMAGE.name(), screenshot.base64EncodedImage()));
+
+        var restored = UiElement.fromTextSegment(TextSegment.from("Button", metadata));
+
+        assertThat(restored.screenshot()).isEqualTo(screenshot);
+    }
+
+    @Test
+    void fromTextSegment_shouldHaveNoScreenshotIfNoneWasStored() {
+        var element = new UiElement(randomUUID(), "Button", "A button", "", "", null, false);
+
+        assertThat(UiElement.fromTextSegment(element.asTextSegment(true)).screenshot()).isNull();
+    }
+
+    @Test
+    void asTextSegment_shouldKeepOnlyScreenshotHash_whenImageIsNotInlined() {
+        var screenshot = Screenshot.fromBufferedImage(new BufferedImage(6, 3, BufferedImage.TYPE_INT_RGB), "png");
+        var element = new UiElement(randomUUID(), "Button", "A button", "", "", screenshot, false);
+
+        var restored = UiElement.fromTextSegment(element.asTextSegment(false));
+
+        assertThat(restored.screenshot()).isNotNull();
+        assertThat(restored.screenshot().contentHash()).isEqualTo(screenshot.contentHash());
+        assertThat(restored.screenshot().base64EncodedImage()).isNull();
+    }
+}
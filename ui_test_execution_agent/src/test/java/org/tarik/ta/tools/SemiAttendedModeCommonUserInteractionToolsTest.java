@@ -24,6 +24,7 @@ import org.mockito.MockitoAnnotations;
 import org.tarik.ta.UiTestAgentConfig;
 import org.tarik.ta.agents.UiElementExtendedDescriptionAgent;
 import org.tarik.ta.core.AgentConfig.ModelProvider;
+import org.tarik.ta.core.agents.AgentRegistry;
 import org.tarik.ta.core.model.GenAiModel;
 import org.tarik.ta.core.model.ModelFactory;
 import org.tarik.ta.core.utils.PromptUtils;
@@ -59,6 +60,7 @@ class SemiAttendedModeCommonUserInteractionToolsTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        AgentRegistry.clear();
 
         mockedConfig = mockStatic(UiTestAgentConfig.class);
         mockedConfig.when(UiTestAgentConfig::getUiStateCheckAgentPromptVersion).thenReturn("v1.0.0");
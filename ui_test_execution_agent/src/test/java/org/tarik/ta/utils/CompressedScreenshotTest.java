@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedScreenshotTest {
+    private static final ImageCodec JPEG = new ImageCodec("jpeg", 0.7f);
+
+    @Test
+    void of_shouldReturnNullIfThereIsNoScreenshot() {
+        assertThat(CompressedScreenshot.of(null)).isNull();
+    }
+
+    @Test
+    void of_shouldReuseTheEncodingOfTheFrame() {
+        var image = createImage();
+        var encodingSentToModel = EncodedFrame.of(image).encoded(JPEG);
+
+        var screenshot = CompressedScreenshot.of(image, JPEG);
+
+        assertThat(screenshot).isNotNull();
+        assertThat(screenshot.encoding()).isSameAs(encodingSentToModel);
+        assertThat(screenshot.codec()).isEqualTo(JPEG);
+        assertThat(screenshot.sizeBytes()).isEqualTo(encodingSentToModel.sizeBytes());
+    }
+
+    @Test
+    void toBufferedImage_shouldReturnImageWithOriginalDimensions() {
+        var image = createImage();
+
+        var screenshot = CompressedScreenshot.of(image, ImageCodec.PNG);
+
+        assertThat(screenshot).isNotNull();
+        var decoded = screenshot.toBufferedImage();
+        assertThat(decoded.getWidth()).isEqualTo(image.getWidth());
+        assertThat(decoded.getHeight()).isEqualTo(image.getHeight());
+        assertThat(screenshot.toBufferedImage()).isSameAs(decoded);
+    }
+
+    @Test
+    void toBufferedImage_shouldNotReturnOriginalImage() {
+        var image = createImage();
+
+        var screenshot = CompressedScreenshot.of(image, ImageCodec.PNG);
+
+        assertThat(screenshot).isNotNull();
+        assertThat(screenshot.toBufferedImage()).isNotSameAs(image);
+    }
+
+    @Test
+    void equals_shouldCompareEncodedContent() {
+        var image = createImage();
+        var copy = ImageUtils.cloneImage(image);
+
+        assertThat(CompressedScreenshot.of(image, ImageCodec.PNG)).isEqualTo(CompressedScreenshot.of(copy, ImageCodec.PNG));
+        assertThat(CompressedScreenshot.of(image, ImageCodec.PNG)).isNotEqualTo(CompressedScreenshot.of(image, JPEG));
+    }
+
+    private static BufferedImage createImage() {
+        var image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, (x * 4) << 16 | (y * 5) << 8 | (x + y));
+            }
+        }
+        return image;
+    }
+}
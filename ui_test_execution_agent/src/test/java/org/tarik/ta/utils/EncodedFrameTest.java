@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.tarik.ta.UiTestAgentConfig;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mockStatic;
+
+class EncodedFrameTest {
+    private static final ImageCodec JPEG = new ImageCodec("jpeg", 0.7f);
+
+    @Test
+    void encoded_shouldEncodeTheSameImageOnlyOncePerCodec() {
+        var image = createNoisyImage(BufferedImage.TYPE_INT_RGB);
+
+        var first = EncodedFrame.of(image).encoded(ImageCodec.PNG);
+        var second = EncodedFrame.of(image).encoded(ImageCodec.PNG);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void encoded_shouldNotShareEncodingsBetweenDifferentImagesOrCodecs() {
+        var image = createNoisyImage(BufferedImage.TYPE_INT_RGB);
+        var equalImage = ImageUtils.cloneImage(image);
+
+        var png = EncodedFrame.of(image).encoded(ImageCodec.PNG);
+        var jpeg = EncodedFrame.of(image).encoded(JPEG);
+
+        assertThat(EncodedFrame.of(equalImage).encoded(ImageCodec.PNG)).isNotSameAs(png);
+        assertThat(jpeg.mimeType()).isEqualTo("image/jpeg");
+        assertThat(png.mimeType()).isEqualTo("image/png");
+    }
+
+    @Test
+    void encoded_shouldProduceSmallerLossyEncodingWhichCanBeDecoded() throws IOException {
+        var image = createNoisyImage(BufferedImage.TYPE_INT_ARGB);
+
+        var png = EncodedFrame.of(image).encoded(ImageCodec.PNG);
+        var jpeg = EncodedFrame.of(image).encoded(JPEG);
+
+        assertThat(jpeg.sizeBytes()).isLessThan(png.sizeBytes());
+        var decoded = ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(jpeg.base64Data())));
+        assertThat(decoded.getWidth()).isEqualTo(image.getWidth());
+        assertThat(decoded.getHeight()).isEqualTo(image.getHeight());
+    }
+
+    @Test
+    void toImageContent_shouldUseTheCodecMimeType() {
+        var image = createNoisyImage(BufferedImage.TYPE_3BYTE_BGR);
+
+        var content = EncodedFrame.of(image).toImageContent(JPEG);
+
+        assertThat(content.image().mimeType()).isEqualTo("image/jpeg");
+        assertThat(content.image().base64Data()).isEqualTo(EncodedFrame.of(image).encoded(JPEG).base64Data());
+    }
+
+    @Test
+    void imageCodec_shouldNormalizeFormatAndQuality() {
+        assertThat(new ImageCodec(" JPG ", 0.5f)).isEqualTo(new ImageCodec("jpeg", 0.5f));
+        assertThat(new ImageCodec("png", 0.3f)).isEqualTo(ImageCodec.PNG);
+        assertThat(new ImageCodec("jpeg", 0.5f).fileExtension()).isEqualTo("jpg");
+        assertThatThrownBy(() -> new ImageCodec("jpeg", 1.5f)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ImageCodec(" ", 0.5f)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void imageCodec_fromConfigShouldFallBackToPngForUnsupportedFormat() {
+        try (MockedStatic<UiTestAgentConfig> config = mockStatic(UiTestAgentConfig.class)) {
+            config.when(UiTestAgentConfig::getScreenshotEncodingFormat).thenReturn("non_existing_format");
+            config.when(UiTestAgentConfig::getScreenshotEncodingQuality).thenReturn(0.8);
+            assertThat(ImageCodec.fromConfig()).isEqualTo(ImageCodec.PNG);
+
+            config.when(UiTestAgentConfig::getScreenshotEncodingFormat).thenReturn("jpeg");
+            assertThat(ImageCodec.fromConfig()).isEqualTo(new ImageCodec("jpeg", 0.8f));
+        }
+    }
+
+    private static BufferedImage createNoisyImage(int type) {
+        var image = new BufferedImage(120, 80, type);
+        var random = new Random(42);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                int gray = (x * 2 + y) % 256;
+                int noise = random.nextInt(16);
+                image.setRGB(x, y, 0xFF000000 | (gray << 16) | ((gray + noise) % 256 << 8) | (255 - gray));
+            }
+        }
+        return image;
+    }
+}
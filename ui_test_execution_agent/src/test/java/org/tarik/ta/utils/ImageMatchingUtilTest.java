@@ -2,6 +2,8 @@ package org.tarik.ta.utils;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,8 +11,13 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -101,4 +108,84 @@ class ImageMatchingUtilTest {
             LOG.warn("Skipping test due to missing OpenCV library: " + e.getMessage());
         }
     }
+
+    @Test
+    void toMat_ShouldPreserveColorsForAllSupportedImageTypes() {
+        Color color = new Color(200, 100, 50);
+        int[] imageTypes = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+                BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB};
+        try {
+            for (int imageType : imageTypes) {
+                BufferedImage image = new BufferedImage(8, 6, imageType);
+                Graphics2D g2d = image.createGraphics();
+                g2d.setColor(color);
+                g2d.fillRect(0, 0, 8, 6);
+                g2d.dispose();
+
+                Mat colorMat = ImageMatchingUtil.toMat(image, false);
+                assertEquals(CvType.CV_8UC3, colorMat.type(), "Unexpected Mat type for image type " + imageType);
+                assertEquals(6, colorMat.rows());
+                assertEquals(8, colorMat.cols());
+                double[] bgr = colorMat.get(5, 7);
+                int tolerance = imageType == BufferedImage.TYPE_USHORT_565_RGB ? 8 : 0;
+                assertEquals(color.getBlue(), bgr[0], tolerance, "Blue channel mismatch for image type " + imageType);
+                assertEquals(color.getGreen(), bgr[1], tolerance, "Green channel mismatch for image type " + imageType);
+                assertEquals(color.getRed(), bgr[2], tolerance, "Red channel mismatch for image type " + imageType);
+
+                Mat grayMat = ImageMatchingUtil.toMat(image, true);
+                assertEquals(CvType.CV_8UC1, grayMat.type(), "Unexpected grayscale Mat type for image type " + imageType);
+            }
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+            LOG.warn("Skipping test due to missing OpenCV library: " + e.getMessage());
+        }
+    }
+
+    @Test
+    void toMat_ShouldConvertOnlyTheSubImageRegion() {
+        BufferedImage image = new BufferedImage(20, 20, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.RED);
+        g2d.fillRect(10, 10, 10, 10);
+        g2d.dispose();
+
+        try {
+            Mat mat = ImageMatchingUtil.toMat(image.getSubimage(10, 10, 5, 5), false);
+            assertEquals(5, mat.rows());
+            assertEquals(5, mat.cols());
+            double[] bgr = mat.get(0, 0);
+            assertEquals(0, bgr[0]);
+            assertEquals(0, bgr[1]);
+            assertEquals(255, bgr[2]);
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+            LOG.warn("Skipping test due to missing OpenCV library: " + e.getMessage());
+        }
+    }
+
+    @Test
+    void extractFeatures_ShouldBeConsistentWhenRunConcurrently() throws Exception {
+        BufferedImage image = new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        for (int i = 0; i < 12; i++) {
+            g2d.setColor(i % 2 == 0 ? Color.WHITE : Color.ORANGE);
+            g2d.fillRect(i * 10, (i * 7) % 60, 8, 15);
+        }
+        g2d.dispose();
+
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            List<Future<ImageMatchingUtil.ElementFeatures>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> ImageMatchingUtil.extractFeatures(image)));
+            }
+            int expectedKeyPoints = futures.getFirst().get().keyPoints().size();
+            for (Future<ImageMatchingUtil.ElementFeatures> future : futures) {
+                assertEquals(expectedKeyPoints, future.get().keyPoints().size());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnsatisfiedLinkError || e.getCause() instanceof NoClassDefFoundError) {
+                LOG.warn("Skipping test due to missing OpenCV library: " + e.getCause().getMessage());
+            } else {
+                throw e;
+            }
+        }
+    }
 }
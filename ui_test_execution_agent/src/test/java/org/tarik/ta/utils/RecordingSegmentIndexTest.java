@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tarik.ta.utils.RecordingSegmentIndex.Segment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecordingSegmentIndexTest {
+    private static final Instant START = Instant.parse("2025-01-01T10:00:00Z");
+
+    @TempDir
+    Path recordingFolder;
+    private RecordingSegmentIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new RecordingSegmentIndex(recordingFolder);
+        for (int i = 0; i < 3; i++) {
+            var fileName = "segment_%d.ts".formatted(i);
+            Files.writeString(recordingFolder.resolve(fileName), "segment_%d;".formatted(i));
+            index.addSegment(new Segment(fileName, START.plusSeconds(i * 10L), START.plusSeconds(i * 10L + 9)));
+        }
+    }
+
+    @Test
+    void save_shouldPersistTheIndexWhichCanBeLoadedBack() {
+        index.save();
+
+        var loadedIndex = RecordingSegmentIndex.load(recordingFolder);
+
+        assertThat(loadedIndex).isPresent();
+        assertThat(loadedIndex.get().getSegments()).containsExactlyElementsOf(index.getSegments());
+    }
+
+    @Test
+    void load_shouldBeEmptyIfFolderContainsNoIndex() {
+        assertThat(RecordingSegmentIndex.load(recordingFolder)).isEmpty();
+    }
+
+    @Test
+    void getSegmentsOverlapping_shouldReturnOnlySegmentsWithinTimeRange() {
+        var segments = index.getSegmentsOverlapping(START.plusSeconds(12), START.plusSeconds(22));
+
+        assertThat(segments).extracting(Segment::fileName).containsExactly("segment_1.ts", "segment_2.ts");
+    }
+
+    @Test
+    void extractClip_shouldConcatenateOverlappingSegments() throws IOException {
+        var clip = index.extractClip(START.plusSeconds(5), START.plusSeconds(15), "clip");
+
+        assertThat(clip).isPresent();
+        assertThat(Files.readString(clip.get())).isEqualTo("segment_0;segment_1;");
+    }
+
+    @Test
+    void extractClip_shouldBeEmptyIfNoSegmentOverlapsTimeRange() {
+        assertThat(index.extractClip(START.plusSeconds(100), START.plusSeconds(110), "clip")).isEmpty();
+    }
+}
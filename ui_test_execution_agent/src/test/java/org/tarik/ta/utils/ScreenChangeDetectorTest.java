@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+
+class ScreenChangeDetectorTest {
+
+    @Test
+    void hasChanged_shouldBeFalseForIdenticalScreens() {
+        assertThat(ScreenChangeDetector.hasChanged(createScreen(), createScreen())).isFalse();
+    }
+
+    @Test
+    void hasChanged_shouldIgnoreTinyChangesLikeTextCursor() {
+        var current = createScreen();
+        fill(current, Color.BLACK, 300, 200, 2, 16);
+
+        assertThat(ScreenChangeDetector.hasChanged(createScreen(), current)).isFalse();
+    }
+
+    @Test
+    void hasChanged_shouldDetectAppearedElement() {
+        var current = createScreen();
+        fill(current, Color.BLUE, 600, 400, 120, 40);
+
+        assertThat(ScreenChangeDetector.hasChanged(createScreen(), current)).isTrue();
+    }
+
+    @Test
+    void hasChanged_shouldDetectResolutionChange() {
+        var current = new BufferedImage(1280, 720, BufferedImage.TYPE_INT_RGB);
+        fill(current, Color.WHITE, 0, 0, 1280, 720);
+
+        assertThat(ScreenChangeDetector.hasChanged(createScreen(), current)).isTrue();
+    }
+
+    @Test
+    void awaitVisualStability_shouldReturnAsSoonAsFramesAreStable() {
+        try (MockedStatic<UiCommonUtils> uiCommonUtils = mockStatic(UiCommonUtils.class)) {
+            var changedScreen = createScreen();
+            fill(changedScreen, Color.BLUE, 600, 400, 120, 40);
+            uiCommonUtils.when(() -> UiCommonUtils.captureScreenNewerThan(anyLong(), eq(false)))
+                    .thenReturn(createScreen(), changedScreen, changedScreen, changedScreen);
+
+            assertThat(ScreenChangeDetector.awaitVisualStability(5000)).isTrue();
+            uiCommonUtils.verify(() -> UiCommonUtils.captureScreenNewerThan(anyLong(), eq(false)), times(4));
+        }
+    }
+
+    @Test
+    void awaitVisualStability_shouldGiveUpIfScreenKeepsChanging() {
+        try (MockedStatic<UiCommonUtils> uiCommonUtils = mockStatic(UiCommonUtils.class)) {
+            var changedScreen = createScreen();
+            fill(changedScreen, Color.BLUE, 600, 400, 120, 40);
+            AtomicInteger frameCounter = new AtomicInteger();
+            uiCommonUtils.when(() -> UiCommonUtils.captureScreenNewerThan(anyLong(), eq(false)))
+                    .thenAnswer(_ -> frameCounter.incrementAndGet() % 2 == 0 ? changedScreen : createScreen());
+
+            assertThat(ScreenChangeDetector.awaitVisualStability(300)).isFalse();
+        }
+    }
+
+    @Test
+    void awaitVisualStability_shouldWaitMaxTimeIfScreenCanNotBeCaptured() {
+        try (MockedStatic<UiCommonUtils> uiCommonUtils = mockStatic(UiCommonUtils.class)) {
+            uiCommonUtils.when(() -> UiCommonUtils.captureScreenNewerThan(anyLong(), eq(false))).thenThrow(new IllegalStateException("No display"));
+            long start = System.currentTimeMillis();
+
+            assertThat(ScreenChangeDetector.awaitVisualStability(200)).isFalse();
+            assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(200);
+        }
+    }
+
+    @Test
+    void performAndAwaitReaction_shouldNotWaitForStabilityIfUiDoesNotReact() {
+        try (MockedStatic<UiCommonUtils> uiCommonUtils = mockStatic(UiCommonUtils.class)) {
+            uiCommonUtils.when(() -> UiCommonUtils.captureScreenNewerThan(anyLong(), eq(false))).thenAnswer(_ -> createScreen());
+            AtomicInteger actionCounter = new AtomicInteger();
+            long start = System.currentTimeMillis();
+
+            assertThat(ScreenChangeDetector.performAndAwaitReaction(actionCounter::incrementAndGet, 200, 5000)).isFalse();
+            assertThat(actionCounter).hasValue(1);
+            assertThat(System.currentTimeMillis() - start).isLessThan(2000);
+        }
+    }
+
+    @Test
+    void performAndAwaitReaction_shouldWaitForStabilityAfterDelayedReaction() {
+        try (MockedStatic<UiCommonUtils> uiCommonUtils = mockStatic(UiCommonUtils.class)) {
+            var changedScreen = createScreen();
+            fill(changedScreen, Color.BLUE, 600, 400, 120, 40);
+            uiCommonUtils.when(() -> UiCommonUtils.captureScreenNewerThan(anyLong(), eq(false)))
+                    .thenReturn(createScreen(), createScreen(), changedScreen, changedScreen, changedScreen, changedScreen);
+
+            assertThat(ScreenChangeDetector.performAndAwaitReaction(() -> {}, 5000, 5000)).isTrue();
+            uiCommonUtils.verify(() -> UiCommonUtils.captureScreenNewerThan(anyLong(), eq(false)), times(6));
+        }
+    }
+
+    private static BufferedImage createScreen() {
+        var screen = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+        fill(screen, Color.WHITE, 0, 0, 1920, 1080);
+        fill(screen, Color.DARK_GRAY, 0, 0, 1920, 60);
+        return screen;
+    }
+
+    private static void fill(BufferedImage image, Color color, int x, int y, int width, int height) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(color);
+        g2d.fillRect(x, y, width, height);
+        g2d.dispose();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.tarik.ta.UiTestAgentConfig;
+
+import java.awt.*;
+import java.awt.image.BaseMultiResolutionImage;
+import java.awt.image.BufferedImage;
+
+import static java.lang.System.nanoTime;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScreenFrameGrabberTest {
+    private MockedStatic<UiCommonUtils> uiCommonUtils;
+    private MockedStatic<UiTestAgentConfig> config;
+    private Robot robot;
+
+    @BeforeEach
+    void setUp() {
+        ScreenFrameGrabber.clear();
+        robot = mock(Robot.class);
+        when(robot.createMultiResolutionScreenCapture(any(Rectangle.class))).thenAnswer(_ -> new BaseMultiResolutionImage(
+                new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB)));
+        uiCommonUtils = mockStatic(UiCommonUtils.class);
+        uiCommonUtils.when(UiCommonUtils::getRobot).thenReturn(robot);
+        uiCommonUtils.when(UiCommonUtils::getScreenSize).thenReturn(new Dimension(200, 100));
+        config = mockStatic(UiTestAgentConfig.class);
+        config.when(UiTestAgentConfig::getScreenFrameBufferSize).thenReturn(2);
+        config.when(UiTestAgentConfig::getScreenFrameMaxAgeMillis).thenReturn(60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ScreenFrameGrabber.clear();
+        uiCommonUtils.close();
+        config.close();
+    }
+
+    @Test
+    void grabFrame_shouldKeepHighestAndLowestResolutionVariants() {
+        var frame = ScreenFrameGrabber.grabFrame();
+
+        assertThat(frame.image().getWidth()).isEqualTo(400);
+        assertThat(frame.image(false).getWidth()).isEqualTo(200);
+        assertThat(ScreenFrameGrabber.getLatestFrame()).containsSame(frame);
+    }
+
+    @Test
+    void getRecentFrame_shouldReuseTheLatestFrameWithinMaxAge() {
+        var grabbedFrame = ScreenFrameGrabber.grabFrame();
+
+        assertThat(ScreenFrameGrabber.getRecentFrame()).isSameAs(grabbedFrame);
+        verify(robot, times(1)).createMultiResolutionScreenCapture(any(Rectangle.class));
+    }
+
+    @Test
+    void getRecentFrame_shouldCaptureNewFrameIfLatestIsTooOld() {
+        config.when(UiTestAgentConfig::getScreenFrameMaxAgeMillis).thenReturn(0);
+        var grabbedFrame = ScreenFrameGrabber.grabFrame();
+
+        assertThat(ScreenFrameGrabber.getRecentFrame()).isNotSameAs(grabbedFrame);
+        verify(robot, times(2)).createMultiResolutionScreenCapture(any(Rectangle.class));
+    }
+
+    @Test
+    void getRecentFrame_shouldNotReuseFrameCapturedBeforeInputAction() {
+        var grabbedFrame = ScreenFrameGrabber.grabFrame();
+
+        ScreenFrameGrabber.onInputAction();
+        var frameAfterInput = ScreenFrameGrabber.getRecentFrame();
+
+        assertThat(frameAfterInput).isNotSameAs(grabbedFrame);
+        assertThat(ScreenFrameGrabber.getRecentFrame()).isSameAs(frameAfterInput);
+        verify(robot, times(2)).createMultiResolutionScreenCapture(any(Rectangle.class));
+    }
+
+    @Test
+    void getFrameNewerThan_shouldCaptureOnlyIfNoFrameIsNewEnough() {
+        long beforeFirstFrame = nanoTime();
+        var firstFrame = ScreenFrameGrabber.grabFrame();
+        long afterFirstFrame = nanoTime();
+
+        assertThat(ScreenFrameGrabber.getFrameNewerThan(beforeFirstFrame)).isSameAs(firstFrame);
+        var secondFrame = ScreenFrameGrabber.getFrameNewerThan(afterFirstFrame);
+
+        assertThat(secondFrame).isNotSameAs(firstFrame);
+        assertThat(secondFrame.isNotOlderThan(afterFirstFrame)).isTrue();
+    }
+
+    @Test
+    void bufferedFrames_shouldBeLimitedToConfiguredSize() {
+        ScreenFrameGrabber.grabFrame();
+        var secondFrame = ScreenFrameGrabber.grabFrame();
+        var thirdFrame = ScreenFrameGrabber.grabFrame();
+
+        assertThat(ScreenFrameGrabber.getBufferedFrames()).containsExactly(secondFrame, thirdFrame);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tarik.ta.utils.TemplateMatchingEngine.MatchingOptions;
+import org.tarik.ta.utils.TemplateMatchingEngine.TemplateMatch;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemplateMatchingEngineTest {
+    private static final Logger LOG = LoggerFactory.getLogger(TemplateMatchingEngineTest.class);
+    private static final int BLOCK_SIZE = 4;
+    private static final int TEMPLATE_BLOCKS = 6;
+
+    @Test
+    void applyNonMaximumSuppression_shouldKeepOnlyTheBestOfOverlappingMatches() {
+        var best = new TemplateMatch(new Rectangle(10, 10, 20, 20), 0.95);
+        var overlapping = new TemplateMatch(new Rectangle(12, 11, 20, 20), 0.9);
+        var distinct = new TemplateMatch(new Rectangle(100, 100, 20, 20), 0.85);
+
+        var selected = TemplateMatchingEngine.applyNonMaximumSuppression(List.of(overlapping, distinct, best), 5);
+
+        assertThat(selected).containsExactly(best, distinct);
+    }
+
+    @Test
+    void rankByRegionOfInterest_shouldPreferSimilarMatchesInTheRegion() {
+        var outside = new TemplateMatch(new Rectangle(0, 0, 10, 10), 0.93);
+        var inside = new TemplateMatch(new Rectangle(100, 100, 10, 10), 0.9);
+        var muchBetterOutside = new TemplateMatch(new Rectangle(200, 0, 10, 10), 0.99);
+
+        var ranked = TemplateMatchingEngine.rankByRegionOfInterest(List.of(outside, inside, muchBetterOutside),
+                new Rectangle(90, 90, 30, 30));
+
+        assertThat(ranked).containsExactly(muchBetterOutside, inside, outside);
+    }
+
+    @Test
+    void applyNonMaximumSuppression_shouldLimitTheNumberOfMatches() {
+        var first = new TemplateMatch(new Rectangle(0, 0, 10, 10), 0.9);
+        var second = new TemplateMatch(new Rectangle(50, 0, 10, 10), 0.8);
+
+        assertThat(TemplateMatchingEngine.applyNonMaximumSuppression(List.of(second, first), 1)).containsExactly(first);
+    }
+
+    @Test
+    void findMatches_shouldFindScaledElement() {
+        var template = createPattern(BLOCK_SIZE);
+        var screen = createScreen(240, 160);
+        drawAt(screen, createPattern(BLOCK_SIZE * 2), 60, 40);
+        var options = new MatchingOptions(List.of(1.0, 2.0), true, 0.8, 3);
+
+        try {
+            var matches = TemplateMatchingEngine.findMatches(screen, template, null, options);
+
+            assertThat(matches).isNotEmpty();
+            var bestMatch = matches.getFirst().rectangle();
+            assertThat(bestMatch.x).isBetween(58, 62);
+            assertThat(bestMatch.y).isBetween(38, 42);
+            assertThat(bestMatch.width).isEqualTo(template.getWidth() * 2);
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+            LOG.warn("Skipping test due to missing OpenCV library: " + e.getMessage());
+        }
+    }
+
+    @Test
+    void findMatches_shouldPreferMatchesInRegionOfInterest() {
+        var template = createPattern(BLOCK_SIZE);
+        var screen = createScreen(300, 200);
+        drawAt(screen, template, 20, 20);
+        drawAt(screen, template, 220, 140);
+        var options = new MatchingOptions(List.of(1.0), true, 0.8, 3);
+
+        try {
+            var allMatches = TemplateMatchingEngine.findMatches(screen, template, null, options);
+            var rankedMatches = TemplateMatchingEngine.findMatches(screen, template, new Rectangle(215, 135, 30, 30), options);
+
+            assertThat(allMatches).hasSize(2);
+            assertThat(rankedMatches).extracting(match -> match.rectangle().getLocation())
+                    .containsExactly(new java.awt.Point(220, 140), new java.awt.Point(20, 20));
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+            LOG.warn("Skipping test due to missing OpenCV library: " + e.getMessage());
+        }
+    }
+
+    @Test
+    void findMatches_shouldSearchOnlyRegionOfInterestIfConfigured() {
+        var template = createPattern(BLOCK_SIZE);
+        var screen = createScreen(300, 200);
+        drawAt(screen, template, 20, 20);
+        drawAt(screen, template, 220, 140);
+        var options = new MatchingOptions(List.of(1.0), true, 0.8, 3, true);
+
+        try {
+            var regionMatches = TemplateMatchingEngine.findMatches(screen, template, new Rectangle(215, 135, 30, 30), options);
+
+            assertThat(regionMatches).singleElement()
+                    .satisfies(match -> assertThat(match.rectangle().getLocation()).isEqualTo(new java.awt.Point(220, 140)));
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+            LOG.warn("Skipping test due to missing OpenCV library: " + e.getMessage());
+        }
+    }
+
+    private static BufferedImage createPattern(int blockSize) {
+        var random = new Random(42);
+        int size = TEMPLATE_BLOCKS * blockSize;
+        var image = new BufferedImage(size, size, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g2d = image.createGraphics();
+        for (int row = 0; row < TEMPLATE_BLOCKS; row++) {
+            for (int col = 0; col < TEMPLATE_BLOCKS; col++) {
+                g2d.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+                g2d.fillRect(col * blockSize, row * blockSize, blockSize, blockSize);
+            }
+        }
+        g2d.dispose();
+        return image;
+    }
+
+    private static BufferedImage createScreen(int width, int height) {
+        var screen = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = screen.createGraphics();
+        g2d.setColor(Color.LIGHT_GRAY);
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+        return screen;
+    }
+
+    private static void drawAt(BufferedImage screen, BufferedImage image, int x, int y) {
+        Graphics2D g2d = screen.createGraphics();
+        g2d.drawImage(image, x, y, null);
+        g2d.dispose();
+    }
+}
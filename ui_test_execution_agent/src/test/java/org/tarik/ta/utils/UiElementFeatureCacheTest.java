@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2025 Taras Paruta (partarstu@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tarik.ta.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tarik.ta.rag.model.UiElement;
+import org.tarik.ta.rag.model.UiElement.Screenshot;
+
+import java.awt.image.BufferedImage;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UiElementFeatureCacheTest {
+
+    @BeforeEach
+    void setUp() {
+        UiElementFeatureCache.clear();
+    }
+
+    @Test
+    void getScreenshot_shouldDecodeTheScreenshotOnlyOnce() {
+        var element = createElement(randomUUID(), 4);
+
+        var first = UiElementFeatureCache.getScreenshot(element, null);
+        var second = UiElementFeatureCache.getScreenshot(element, null);
+
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+    }
+
+    @Test
+    void getScreenshot_shouldNotReturnStaleImageIfScreenshotChanged() {
+        var elementId = randomUUID();
+        var original = UiElementFeatureCache.getScreenshot(createElement(elementId, 4), null).orElseThrow();
+
+        var updated = UiElementFeatureCache.getScreenshot(createElement(elementId, 8), null).orElseThrow();
+
+        assertThat(updated).isNotSameAs(original);
+        assertThat(updated.getWidth()).isEqualTo(8);
+    }
+
+    @Test
+    void invalidate_shouldRemoveAllEntriesOfTheElement() {
+        var element = createElement(randomUUID(), 4);
+        var original = UiElementFeatureCache.getScreenshot(element, null).orElseThrow();
+
+        UiElementFeatureCache.invalidate(element.uuid());
+
+        assertThat(UiElementFeatureCache.getScreenshot(element, null)).get().isNotSameAs(original);
+    }
+
+    @Test
+    void withFeatures_shouldReleaseNativeMemoryOfRemovedEntries() {
+        var element = createElement(randomUUID(), 32);
+        var features = UiElementFeatureCache.withFeatures(element, null, Function.identity()).orElseThrow();
+        assertThat(features.grayscaleMat().empty()).isFalse();
+
+        UiElementFeatureCache.invalidate(element.uuid());
+
+        assertThat(features.grayscaleMat().empty()).isTrue();
+    }
+
+    @Test
+    void withFeatures_shouldNotReleaseFeaturesWhichAreStillInUse() {
+        var element = createElement(randomUUID(), 32);
+
+        var stillUsable = UiElementFeatureCache.withFeatures(element, null, features -> {
+            UiElementFeatureCache.clear();
+            return !features.grayscaleMat().empty();
+        });
+
+        assertThat(stillUsable).contains(true);
+    }
+
+    @Test
+    void getScreenshot_shouldBeEmptyIfElementHasNoScreenshot() {
+        var element = new UiElement(randomUUID(), "Button", "A button", "", "", null, false);
+
+        assertThat(UiElementFeatureCache.getScreenshot(element, null)).isEmpty();
+        assertThat(UiElementFeatureCache.withFeatures(element, null, features -> features)).isEmpty();
+    }
+
+    private static UiElement createElement(UUID elementId, int size) {
+        var screenshot = Screenshot.fromBufferedImage(new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB), "png");
+        return new UiElement(elementId, "Button", "A button", "", "", screenshot, false);
+    }
+}